@@ -17,12 +17,17 @@
  ******************************************************************************/
 package org.alfresco.mobile.android.api.asynchronous;
 
+import java.util.concurrent.Callable;
+
 import org.alfresco.mobile.android.api.model.ListingContext;
+import org.alfresco.mobile.android.api.model.PagingResult;
 
 import android.content.Context;
 
 /**
- * Base class for all Loaders that return a PagingResult object. </br>
+ * Base class for all Loaders that return a PagingResult object. </br> With a
+ * {@link PagePrefetchBuffer}, the loader takes its page from the buffer when
+ * it has been loaded in advance and loads in background the next page.
  * 
  * @author Jean Marie Pascal
  * @see ListingContext
@@ -33,6 +38,9 @@ public abstract class AbstractPagingLoader<T> extends AbstractBaseLoader<T>
     /** Listing context to apply to the pagingResult. */
     protected ListingContext listingContext;
 
+    /** Buffer of pages loaded in advance. Null if read ahead is disabled. */
+    private PagePrefetchBuffer prefetchBuffer;
+
     /**
      * Default constructor.
      * 
@@ -60,4 +68,77 @@ public abstract class AbstractPagingLoader<T> extends AbstractBaseLoader<T>
     {
         return listingContext;
     }
+
+    /**
+     * Enables the read ahead of the next page. The buffer must be shared by
+     * the loaders of all pages of the list.
+     * 
+     * @param prefetchBuffer : buffer of pages loaded in advance. Null to
+     *            disable the read ahead.
+     */
+    public void setPrefetchBuffer(PagePrefetchBuffer prefetchBuffer)
+    {
+        this.prefetchBuffer = prefetchBuffer;
+    }
+
+    @Override
+    public T loadInBackground()
+    {
+        return loadPage(listingContext);
+    }
+
+    /**
+     * Loads the page defined by the listing context. With a read ahead, the
+     * next page is loaded from the thread of the buffer while the loader may
+     * load an other page : implementations use the listing context in
+     * parameter, never the one of the loader.
+     * 
+     * @param listingContext : listing context of the page. Can be null.
+     */
+    protected abstract T loadPage(ListingContext listingContext);
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected T onLoadInBackground()
+    {
+        ListingContext lc = listingContext;
+        PagePrefetchBuffer buffer = prefetchBuffer;
+        if (buffer == null || lc == null) { return loadPage(lc); }
+
+        T result = (T) buffer.take(lc);
+        if (result == null || hasException(result))
+        {
+            result = loadPage(lc);
+        }
+        prefetchNextPage(buffer, lc, result);
+        return result;
+    }
+
+    private void prefetchNextPage(PagePrefetchBuffer buffer, ListingContext lc, T result)
+    {
+        if (!(result instanceof LoaderResult) || hasException(result)) { return; }
+        Object data = ((LoaderResult<?>) result).getData();
+        if (!(data instanceof PagingResult)) { return; }
+        PagingResult<?> page = (PagingResult<?>) data;
+        if (!page.hasMoreItems() || page.getList() == null || page.getList().isEmpty()) { return; }
+
+        final ListingContext next = new ListingContext();
+        next.setSortProperty(lc.getSortProperty());
+        next.setIsSortAscending(lc.isSortAscending());
+        next.setMaxItems(lc.getMaxItems());
+        next.setSkipCount(lc.getSkipCount() + page.getList().size());
+
+        buffer.prefetch(next, new Callable<Object>()
+        {
+            public Object call()
+            {
+                return loadPage(next);
+            }
+        });
+    }
+
+    private static boolean hasException(Object result)
+    {
+        return result instanceof LoaderResult && ((LoaderResult<?>) result).hasException();
+    }
 }
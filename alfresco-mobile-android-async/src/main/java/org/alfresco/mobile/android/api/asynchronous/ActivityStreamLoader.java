@@ -18,6 +18,7 @@
 package org.alfresco.mobile.android.api.asynchronous;
 
 import org.alfresco.mobile.android.api.model.ActivityEntry;
+import org.alfresco.mobile.android.api.model.ListingContext;
 import org.alfresco.mobile.android.api.model.PagingResult;
 import org.alfresco.mobile.android.api.session.AlfrescoSession;
 
@@ -85,7 +86,7 @@ public class ActivityStreamLoader extends AbstractPagingLoader<LoaderResult<Pagi
     }
 
     @Override
-    public LoaderResult<PagingResult<ActivityEntry>> loadInBackground()
+    protected LoaderResult<PagingResult<ActivityEntry>> loadPage(ListingContext listingContext)
     {
         LoaderResult<PagingResult<ActivityEntry>> result = new LoaderResult<PagingResult<ActivityEntry>>();
         PagingResult<ActivityEntry> pagingResult = null;
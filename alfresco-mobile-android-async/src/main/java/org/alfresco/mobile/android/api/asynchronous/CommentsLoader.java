@@ -18,6 +18,7 @@
 package org.alfresco.mobile.android.api.asynchronous;
 
 import org.alfresco.mobile.android.api.model.Comment;
+import org.alfresco.mobile.android.api.model.ListingContext;
 import org.alfresco.mobile.android.api.model.Node;
 import org.alfresco.mobile.android.api.model.PagingResult;
 import org.alfresco.mobile.android.api.session.AlfrescoSession;
@@ -56,7 +57,7 @@ public class CommentsLoader extends AbstractPagingLoader<LoaderResult<PagingResu
     }
 
     @Override
-    public LoaderResult<PagingResult<Comment>> loadInBackground()
+    protected LoaderResult<PagingResult<Comment>> loadPage(ListingContext listingContext)
     {
         LoaderResult<PagingResult<Comment>> result = new LoaderResult<PagingResult<Comment>>();
         PagingResult<Comment> pagingResult = null;
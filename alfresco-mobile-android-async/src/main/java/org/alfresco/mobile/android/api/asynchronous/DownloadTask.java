@@ -31,6 +31,7 @@ import org.alfresco.mobile.android.api.model.Document;
 import org.alfresco.mobile.android.api.model.impl.ContentFileImpl;
 import org.alfresco.mobile.android.api.session.AlfrescoSession;
 import org.alfresco.mobile.android.api.utils.IOUtils;
+import org.alfresco.mobile.android.api.utils.PartialDownload;
 
 import android.os.AsyncTask;
 import android.util.Log;
@@ -38,7 +39,8 @@ import android.util.Log;
 /**
  * Provides an asynchronous task to download the content of a document
  * object.</br> onProgressUpdate returns the progress of dthe download in
- * percentage.
+ * percentage.</br> An interrupted download of the same version of the
+ * document resumes where it stopped.
  * 
  * @author Jean Marie Pascal
  */
@@ -94,9 +96,19 @@ public class DownloadTask extends AsyncTask<Void, Integer, ContentFile>
     {
         try
         {
-            ContentStream contentStream = session.getServiceRegistry().getDocumentFolderService().getContentStream(doc);
-            copyFile(contentStream.getInputStream(), contentStream.getLength(), destFile);
-            return new ContentFileImpl(destFile);
+            // Resumes a previous download of the same version.
+            PartialDownload download = new PartialDownload(doc, destFile);
+            long offset = download.getOffset();
+            totalDownloaded = (int) offset;
+            ContentStream contentStream = session.getServiceRegistry().getDocumentFolderService()
+                    .getContentStream(doc, offset);
+            OutputStream os = download.openOutputStream(offset);
+            if (contentStream == null)
+            {
+                IOUtils.closeStream(os);
+            }
+            else if (!copyStream(contentStream.getInputStream(), contentStream.getLength(), os)) { return null; }
+            return new ContentFileImpl(download.complete());
         }
         catch (Exception e)
         {
@@ -128,16 +140,33 @@ public class DownloadTask extends AsyncTask<Void, Integer, ContentFile>
     public boolean copyFile(InputStream src, long size, File dest)
     {
         IOUtils.ensureOrCreatePathAndFile(dest);
+        try
+        {
+            return copyStream(src, size, new FileOutputStream(dest));
+        }
+        catch (FileNotFoundException e)
+        {
+            Log.e(TAG, Log.getStackTraceString(e));
+            IOUtils.closeStream(src);
+            return false;
+        }
+    }
+
+    /**
+     * Copies size bytes of the input stream. Both streams are closed.
+     */
+    public boolean copyStream(InputStream src, long size, OutputStream dest)
+    {
         OutputStream os = null;
         boolean copied = true;
 
         try
         {
-            os = new BufferedOutputStream(new FileOutputStream(dest));
+            os = new BufferedOutputStream(dest);
 
             byte[] buffer = new byte[MAX_BUFFER_SIZE];
 
-            while (size > 0)
+            while (downloaded < size)
             {
                 if (size - downloaded < MAX_BUFFER_SIZE)
                 {
@@ -157,11 +186,6 @@ public class DownloadTask extends AsyncTask<Void, Integer, ContentFile>
             }
 
         }
-        catch (FileNotFoundException e)
-        {
-            Log.e(TAG, Log.getStackTraceString(e));
-            copied = false;
-        }
         catch (IOException e)
         {
             Log.e(TAG, Log.getStackTraceString(e));
@@ -170,7 +194,7 @@ public class DownloadTask extends AsyncTask<Void, Integer, ContentFile>
         finally
         {
             IOUtils.closeStream(src);
-            IOUtils.closeStream(os);
+            IOUtils.closeStream((os != null) ? os : dest);
         }
         return copied;
     }
@@ -57,7 +57,8 @@ public class IsLikedLoader extends AbstractBaseLoader<LoaderResult<Boolean>>
 
         try
         {
-            isLiked = session.getServiceRegistry().getRatingService().isLiked(node);
+            // Shares the ratings retrieved for the node by other loaders.
+            isLiked = session.getServiceRegistry().getRatingService().getRatingSummary(node).isLiked();
         }
         catch (Exception e)
         {
@@ -59,6 +59,8 @@ public class LikeLoader extends AbstractBaseLoader<LoaderResult<Boolean>>
 
         try
         {
+            // Cached summaries are only for display : the toggle needs the
+            // current state.
             if (session.getServiceRegistry().getRatingService().isLiked(node))
             {
                 session.getServiceRegistry().getRatingService().unlike(node);
@@ -18,6 +18,7 @@
 package org.alfresco.mobile.android.api.asynchronous;
 
 import org.alfresco.mobile.android.api.model.Folder;
+import org.alfresco.mobile.android.api.model.ListingContext;
 import org.alfresco.mobile.android.api.model.Node;
 import org.alfresco.mobile.android.api.model.PagingResult;
 import org.alfresco.mobile.android.api.model.Site;
@@ -100,7 +101,7 @@ public class NodeChildrenLoader extends AbstractPagingLoader<LoaderResult<Paging
     }
 
     @Override
-    public LoaderResult<PagingResult<Node>> loadInBackground()
+    protected LoaderResult<PagingResult<Node>> loadPage(ListingContext listingContext)
     {
         LoaderResult<PagingResult<Node>> result = new LoaderResult<PagingResult<Node>>();
         PagingResult<Node> pagingResult = null;
@@ -0,0 +1,209 @@
+/*******************************************************************************
+ * Copyright (C) 2005-2012 Alfresco Software Limited.
+ * 
+ * This file is part of the Alfresco Mobile SDK.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ ******************************************************************************/
+package org.alfresco.mobile.android.api.asynchronous;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.alfresco.mobile.android.api.model.ListingContext;
+
+/**
+ * Bounded buffer of pages loaded in advance by paging loaders. </br> When a
+ * paging loader has a buffer, it loads in background the page following the
+ * one it has just loaded. The loader of the next page takes it from the
+ * buffer instead of requesting the server. </br> A buffer is shared by all
+ * loaders of a list and must be cleared when the list is refreshed.
+ * 
+ * @author Jean Marie Pascal
+ * @see AbstractPagingLoader#setPrefetchBuffer(PagePrefetchBuffer)
+ */
+public class PagePrefetchBuffer
+{
+    /** Default number of pages kept in the buffer. */
+    public static final int DEFAULT_CAPACITY = 2;
+
+    private static final int KEEP_ALIVE = 30;
+
+    private final int capacity;
+
+    private final ThreadPoolExecutor executor;
+
+    /** Pages by listing key, the oldest first. */
+    private final Map<String, Future<Object>> pages = new LinkedHashMap<String, Future<Object>>();
+
+    private int prefetchCount;
+
+    private int hitCount;
+
+    private int missCount;
+
+    private int discardCount;
+
+    public PagePrefetchBuffer()
+    {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity : maximum number of pages kept in the buffer.
+     */
+    public PagePrefetchBuffer(int capacity)
+    {
+        if (capacity < 1) { throw new IllegalArgumentException("capacity < 1"); }
+        this.capacity = capacity;
+        this.executor = new ThreadPoolExecutor(1, 1, KEEP_ALIVE, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Starts the loading of a page in background unless it's already in the
+     * buffer. The oldest page is discarded if the buffer is full.
+     * 
+     * @param listingContext : listing context of the page.
+     * @param loader : loads the page.
+     */
+    public synchronized void prefetch(ListingContext listingContext, Callable<Object> loader)
+    {
+        String key = createKey(listingContext);
+        if (pages.containsKey(key)) { return; }
+
+        Iterator<Future<Object>> it = pages.values().iterator();
+        while (pages.size() >= capacity && it.hasNext())
+        {
+            it.next().cancel(true);
+            it.remove();
+            discardCount++;
+        }
+
+        pages.put(key, executor.submit(loader));
+        prefetchCount++;
+    }
+
+    /**
+     * Removes a page from the buffer. If the page is still loading, waits for
+     * the end of its loading.
+     * 
+     * @param listingContext : listing context of the page.
+     * @return the page or null if it's not in the buffer or if its loading
+     *         failed.
+     */
+    public Object take(ListingContext listingContext)
+    {
+        Future<Object> page;
+        synchronized (this)
+        {
+            page = pages.remove(createKey(listingContext));
+            if (page == null)
+            {
+                missCount++;
+                return null;
+            }
+        }
+
+        Object result = null;
+        try
+        {
+            result = page.get();
+        }
+        catch (InterruptedException e)
+        {
+            page.cancel(true);
+            Thread.currentThread().interrupt();
+        }
+        catch (CancellationException e)
+        {
+            result = null;
+        }
+        catch (ExecutionException e)
+        {
+            result = null;
+        }
+
+        synchronized (this)
+        {
+            if (result != null)
+            {
+                hitCount++;
+            }
+            else
+            {
+                missCount++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Cancels the pages currently loading and removes all pages.
+     */
+    public synchronized void clear()
+    {
+        for (Future<Object> page : pages.values())
+        {
+            page.cancel(true);
+        }
+        discardCount += pages.size();
+        pages.clear();
+        executor.purge();
+    }
+
+    /**
+     * @return Returns the number of pages loaded in advance.
+     */
+    public synchronized int getPrefetchCount()
+    {
+        return prefetchCount;
+    }
+
+    /**
+     * @return Returns the number of pages served from the buffer.
+     */
+    public synchronized int getHitCount()
+    {
+        return hitCount;
+    }
+
+    /**
+     * @return Returns the number of pages which were not in the buffer.
+     */
+    public synchronized int getMissCount()
+    {
+        return missCount;
+    }
+
+    /**
+     * @return Returns the number of pages loaded in advance and never used.
+     */
+    public synchronized int getDiscardCount()
+    {
+        return discardCount;
+    }
+
+    private static String createKey(ListingContext lc)
+    {
+        return lc.getSkipCount() + "|" + lc.getMaxItems() + "|" + lc.getSortProperty() + "|" + lc.isSortAscending();
+    }
+}
@@ -18,6 +18,7 @@
 package org.alfresco.mobile.android.api.asynchronous;
 
 import org.alfresco.mobile.android.api.model.KeywordSearchOptions;
+import org.alfresco.mobile.android.api.model.ListingContext;
 import org.alfresco.mobile.android.api.model.Node;
 import org.alfresco.mobile.android.api.model.PagingResult;
 import org.alfresco.mobile.android.api.model.SearchLanguage;
@@ -61,7 +62,7 @@ public class SearchLoader extends AbstractPagingLoader<LoaderResult<PagingResult
     }
 
     @Override
-    public LoaderResult<PagingResult<Node>> loadInBackground()
+    protected LoaderResult<PagingResult<Node>> loadPage(ListingContext listingContext)
     {
         LoaderResult<PagingResult<Node>> result = new LoaderResult<PagingResult<Node>>();
         PagingResult<Node> pagingResult = null;
@@ -17,6 +17,7 @@
  ******************************************************************************/
 package org.alfresco.mobile.android.api.asynchronous;
 
+import org.alfresco.mobile.android.api.model.ListingContext;
 import org.alfresco.mobile.android.api.model.PagingResult;
 import org.alfresco.mobile.android.api.model.Site;
 import org.alfresco.mobile.android.api.session.AlfrescoSession;
@@ -68,7 +69,7 @@ public class SitesLoader extends AbstractPagingLoader<LoaderResult<PagingResult<
     }
 
     @Override
-    public LoaderResult<PagingResult<Site>> loadInBackground()
+    protected LoaderResult<PagingResult<Site>> loadPage(ListingContext listingContext)
     {
         LoaderResult<PagingResult<Site>> result = new LoaderResult<PagingResult<Site>>();
         PagingResult<Site> pagingResult = null;
@@ -17,6 +17,7 @@
  ******************************************************************************/
 package org.alfresco.mobile.android.api.asynchronous;
 
+import org.alfresco.mobile.android.api.model.ListingContext;
 import org.alfresco.mobile.android.api.model.Node;
 import org.alfresco.mobile.android.api.model.PagingResult;
 import org.alfresco.mobile.android.api.model.Tag;
@@ -67,7 +68,7 @@ public class TagsLoader extends AbstractPagingLoader<LoaderResult<PagingResult<T
     }
 
     @Override
-    public LoaderResult<PagingResult<Tag>> loadInBackground()
+    protected LoaderResult<PagingResult<Tag>> loadPage(ListingContext listingContext)
     {
         LoaderResult<PagingResult<Tag>> result = new LoaderResult<PagingResult<Tag>>();
         PagingResult<Tag> pagingResult = null;
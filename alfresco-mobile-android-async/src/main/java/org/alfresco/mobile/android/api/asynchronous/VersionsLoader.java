@@ -18,6 +18,7 @@
 package org.alfresco.mobile.android.api.asynchronous;
 
 import org.alfresco.mobile.android.api.model.Document;
+import org.alfresco.mobile.android.api.model.ListingContext;
 import org.alfresco.mobile.android.api.model.PagingResult;
 import org.alfresco.mobile.android.api.session.AlfrescoSession;
 
@@ -55,7 +56,7 @@ public class VersionsLoader extends AbstractPagingLoader<LoaderResult<PagingResu
     }
 
     @Override
-    public LoaderResult<PagingResult<Document>> loadInBackground()
+    protected LoaderResult<PagingResult<Document>> loadPage(ListingContext listingContext)
     {
         LoaderResult<PagingResult<Document>> result = new LoaderResult<PagingResult<Document>>();
         PagingResult<Document> pagingResult = null;
@@ -212,6 +212,8 @@ public interface OnPremiseConstant
     String PARAM_PAGESIZE = "pageSize";
 
     String PARAM_REVERSE = "reverse";
+
+    String PARAM_MAXITEMS = "maxItems";
     
     // ERROR
     String CODE_VALUE = "code";
@@ -0,0 +1,46 @@
+/*******************************************************************************
+ * Copyright (C) 2005-2012 Alfresco Software Limited.
+ * 
+ * This file is part of the Alfresco Mobile SDK.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ ******************************************************************************/
+package org.alfresco.mobile.android.api.model;
+
+import java.io.Serializable;
+import java.util.GregorianCalendar;
+
+/**
+ * Like ratings of a node as seen by the current user : number of likes and
+ * like of the current user. </br> Both values come from the same server
+ * response.
+ * 
+ * @author Jean Marie Pascal
+ */
+public interface RatingSummary extends Serializable
+{
+    /**
+     * Returns the number of likes of the node, -1 if unknown.
+     */
+    int getLikeCount();
+
+    /**
+     * Returns true if the current user has liked the node.
+     */
+    boolean isLiked();
+
+    /**
+     * Returns the date the ratings have been retrieved from the server.
+     */
+    GregorianCalendar getLastUpdatedAt();
+}
@@ -17,8 +17,10 @@
  ******************************************************************************/
 package org.alfresco.mobile.android.api.model.impl;
 
+import java.util.Arrays;
 import java.util.GregorianCalendar;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.alfresco.mobile.android.api.constants.CloudConstant;
@@ -64,6 +66,19 @@ public class ActivityEntryImpl implements ActivityEntry
      */
     private Map<String, String> data;
 
+    /**
+     * Raw activity summary (on premise only). Decoded on first access to the
+     * extra data.
+     */
+    private String summary;
+
+    /** Keys of the on premise activity summary exposed as extra data. */
+    private static final List<String> SUMMARY_KEYS = Arrays.asList(OnPremiseConstant.LASTNAME_VALUE,
+            OnPremiseConstant.FIRSTNAME_VALUE, OnPremiseConstant.TITLE_VALUE, OnPremiseConstant.PAGE_VALUE,
+            OnPremiseConstant.NODEREF_VALUE, OnPremiseConstant.MEMBERLASTNAME_VALUE, OnPremiseConstant.ROLE_VALUE,
+            OnPremiseConstant.STATUS_VALUE, OnPremiseConstant.MEMEBERFIRSTNAME_VALUE,
+            OnPremiseConstant.MEMEBERUSERNAME_VALUE);
+
     /**
      * Parse Json Response from Alfresco REST API to create an ActivityEntry.
      * 
@@ -85,38 +100,34 @@ public class ActivityEntryImpl implements ActivityEntry
 
         activityItem.type = JSONConverter.getString(jo, OnPremiseConstant.ACTIVITYTYPE_VALUE);
 
-        String activitySummaryValue = JSONConverter.getString(jo, OnPremiseConstant.SUMMARY_VALUE);
-        Map<String, Object> activitySummary = JsonUtils.parseObject(activitySummaryValue);
+        // The activity summary is a json string : it's decoded only when
+        // extra data are requested.
+        activityItem.summary = JSONConverter.getString(jo, OnPremiseConstant.SUMMARY_VALUE);
 
         activityItem.data = new HashMap<String, String>();
         activityItem.data.put(OnPremiseConstant.FEEDUSERID_VALUE,
                 JSONConverter.getString(jo, OnPremiseConstant.FEEDUSERID_VALUE));
         activityItem.data.put(OnPremiseConstant.FORMAT_VALUE,
                 JSONConverter.getString(jo, OnPremiseConstant.FORMAT_VALUE));
-        activityItem.data.put(OnPremiseConstant.LASTNAME_VALUE,
-                JSONConverter.getString(activitySummary, OnPremiseConstant.LASTNAME_VALUE));
-        activityItem.data.put(OnPremiseConstant.FIRSTNAME_VALUE,
-                JSONConverter.getString(activitySummary, OnPremiseConstant.FIRSTNAME_VALUE));
-        activityItem.data.put(OnPremiseConstant.TITLE_VALUE,
-                JSONConverter.getString(activitySummary, OnPremiseConstant.TITLE_VALUE));
-        activityItem.data.put(OnPremiseConstant.PAGE_VALUE,
-                JSONConverter.getString(activitySummary, OnPremiseConstant.PAGE_VALUE));
-        activityItem.data.put(OnPremiseConstant.NODEREF_VALUE,
-                JSONConverter.getString(activitySummary, OnPremiseConstant.NODEREF_VALUE));
-        activityItem.data.put(OnPremiseConstant.MEMBERLASTNAME_VALUE,
-                JSONConverter.getString(activitySummary, OnPremiseConstant.MEMBERLASTNAME_VALUE));
-        activityItem.data.put(OnPremiseConstant.ROLE_VALUE,
-                JSONConverter.getString(activitySummary, OnPremiseConstant.ROLE_VALUE));
-        activityItem.data.put(OnPremiseConstant.STATUS_VALUE,
-                JSONConverter.getString(activitySummary, OnPremiseConstant.STATUS_VALUE));
-        activityItem.data.put(OnPremiseConstant.MEMEBERFIRSTNAME_VALUE,
-                JSONConverter.getString(activitySummary, OnPremiseConstant.MEMEBERFIRSTNAME_VALUE));
-        activityItem.data.put(OnPremiseConstant.MEMEBERUSERNAME_VALUE,
-                JSONConverter.getString(activitySummary, OnPremiseConstant.MEMEBERUSERNAME_VALUE));
 
         return activityItem;
     }
 
+    /**
+     * Decodes the on premise activity summary into extra data. Only root values
+     * listed in {@link #SUMMARY_KEYS} are read.
+     */
+    private synchronized void decodeSummary()
+    {
+        if (summary == null) { return; }
+        Map<String, String> values = JsonUtils.parseObjectValues(summary, SUMMARY_KEYS);
+        for (String key : SUMMARY_KEYS)
+        {
+            data.put(key, values.get(key));
+        }
+        summary = null;
+    }
+
     @SuppressWarnings("unchecked")
     public static ActivityEntryImpl parsePublicAPIJson(Map<String, Object> jo)
     {
@@ -172,6 +183,7 @@ public class ActivityEntryImpl implements ActivityEntry
      */
     public Map<String, String> getData()
     {
+        decodeSummary();
         return data;
     }
 
@@ -183,6 +195,7 @@ public class ActivityEntryImpl implements ActivityEntry
      */
     public String getData(String key)
     {
+        decodeSummary();
         if (data == null || !data.containsKey(key)) { return null; }
         return data.get(key);
     }
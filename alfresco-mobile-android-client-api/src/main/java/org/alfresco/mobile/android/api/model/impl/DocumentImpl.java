@@ -18,8 +18,10 @@
 package org.alfresco.mobile.android.api.model.impl;
 
 import java.math.BigInteger;
+import java.util.Map;
 
 import org.alfresco.mobile.android.api.model.Document;
+import org.alfresco.mobile.android.api.model.Property;
 import org.apache.chemistry.opencmis.client.api.CmisObject;
 import org.apache.chemistry.opencmis.commons.PropertyIds;
 
@@ -36,11 +38,20 @@ public class DocumentImpl extends NodeImpl implements Document
 
     private static final long serialVersionUID = 2275701740791360906L;
 
+    public DocumentImpl()
+    {
+    }
+
     public DocumentImpl(CmisObject o)
     {
         super(o);
     }
 
+    public DocumentImpl(Map<String, Property> knownProperties, ObjectLoader loader)
+    {
+        super(knownProperties, loader);
+    }
+
     /**
      * @return Returns the content stream length or -1 if the document has no
      *         content
@@ -17,7 +17,10 @@
  ******************************************************************************/
 package org.alfresco.mobile.android.api.model.impl;
 
+import java.util.Map;
+
 import org.alfresco.mobile.android.api.model.Folder;
+import org.alfresco.mobile.android.api.model.Property;
 import org.apache.chemistry.opencmis.client.api.CmisObject;
 
 import android.os.Parcel;
@@ -42,6 +45,11 @@ public class FolderImpl extends NodeImpl implements Folder
         super(o);
     }
 
+    public FolderImpl(Map<String, Property> knownProperties, ObjectLoader loader)
+    {
+        super(knownProperties, loader);
+    }
+
     // ////////////////////////////////////////////////////
     // INTERNAL
     // ////////////////////////////////////////////////////
@@ -0,0 +1,673 @@
+/*******************************************************************************
+ * Copyright (C) 2005-2012 Alfresco Software Limited.
+ * 
+ * This file is part of the Alfresco Mobile SDK.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ ******************************************************************************/
+package org.alfresco.mobile.android.api.model.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.GregorianCalendar;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+import org.alfresco.mobile.android.api.constants.ContentModel;
+import org.alfresco.mobile.android.api.model.Node;
+import org.alfresco.mobile.android.api.model.Property;
+import org.alfresco.mobile.android.api.model.PropertyType;
+import org.apache.chemistry.opencmis.commons.PropertyIds;
+import org.apache.chemistry.opencmis.commons.enums.Action;
+
+/**
+ * Compact binary encoding of nodes. </br> A node is written as :
+ * <ul>
+ * <li>its kind (node, document or folder) and identifier,</li>
+ * <li>its properties : property id, data type and typed values,</li>
+ * <li>its aspects,</li>
+ * <li>its allowable actions as a bitset of action codes, followed by the
+ * names of the actions without code.</li>
+ * </ul>
+ * Property ids, aspects and time zones are interned : well known ids are
+ * written as an index of a static dictionary, other strings are written once
+ * per stream and then referenced by index. Encoding a list of nodes shares
+ * the dictionary between all nodes.</br> The static dictionary and the tables
+ * of data type and action codes are part of the format : they don't depend
+ * on the declaration order of the enums and entries can be added at the end
+ * only.
+ * 
+ * @author Jean Marie Pascal
+ */
+public final class NodeCodec
+{
+    /**
+     * Version of the format. Version 1 used the enum ordinals and is not
+     * read anymore.
+     */
+    private static final int VERSION = 2;
+
+    private static final int KIND_NODE = 0;
+
+    private static final int KIND_DOCUMENT = 1;
+
+    private static final int KIND_FOLDER = 2;
+
+    private static final int VALUE_NULL = 0;
+
+    private static final int VALUE_STRING = 1;
+
+    private static final int VALUE_BOOLEAN = 2;
+
+    private static final int VALUE_LONG = 3;
+
+    private static final int VALUE_BIGINTEGER = 4;
+
+    private static final int VALUE_DECIMAL = 5;
+
+    private static final int VALUE_DATETIME = 6;
+
+    /** Flag of a multi valued property in the data type byte. */
+    private static final int MULTI_VALUED = 0x80;
+
+    /** Dictionary reference announcing a new string. */
+    private static final int NEW_ENTRY = 0xFFFF;
+
+    /** Data type codes : index in the table + 1, 0 for an unknown type. */
+    private static final PropertyType[] TYPES = new PropertyType[] { PropertyType.STRING, PropertyType.ID,
+            PropertyType.INTEGER, PropertyType.DECIMAL, PropertyType.DATETIME, PropertyType.BOOLEAN };
+
+    /** Action codes : index in the table is the bit of the action. */
+    private static final Action[] ACTIONS = new Action[] { Action.CAN_DELETE_OBJECT, Action.CAN_UPDATE_PROPERTIES,
+            Action.CAN_GET_PROPERTIES, Action.CAN_GET_OBJECT_RELATIONSHIPS, Action.CAN_GET_OBJECT_PARENTS,
+            Action.CAN_GET_FOLDER_PARENT, Action.CAN_GET_FOLDER_TREE, Action.CAN_GET_DESCENDANTS,
+            Action.CAN_MOVE_OBJECT, Action.CAN_DELETE_CONTENT_STREAM, Action.CAN_CHECK_OUT,
+            Action.CAN_CANCEL_CHECK_OUT, Action.CAN_CHECK_IN, Action.CAN_SET_CONTENT_STREAM,
+            Action.CAN_GET_ALL_VERSIONS, Action.CAN_ADD_OBJECT_TO_FOLDER, Action.CAN_REMOVE_OBJECT_FROM_FOLDER,
+            Action.CAN_GET_CONTENT_STREAM, Action.CAN_APPLY_POLICY, Action.CAN_GET_APPLIED_POLICIES,
+            Action.CAN_REMOVE_POLICY, Action.CAN_GET_CHILDREN, Action.CAN_CREATE_DOCUMENT, Action.CAN_CREATE_FOLDER,
+            Action.CAN_CREATE_RELATIONSHIP, Action.CAN_DELETE_TREE, Action.CAN_GET_RENDITIONS, Action.CAN_GET_ACL,
+            Action.CAN_APPLY_ACL };
+
+    private static final int ACTION_WORDS = (ACTIONS.length + 63) / 64;
+
+    private static final Map<PropertyType, Integer> TYPE_CODES = new EnumMap<PropertyType, Integer>(
+            PropertyType.class);
+
+    private static final Map<Action, Integer> ACTION_CODES = new EnumMap<Action, Integer>(Action.class);
+    static
+    {
+        for (int i = 0; i < TYPES.length; i++)
+        {
+            TYPE_CODES.put(TYPES[i], i + 1);
+        }
+        for (int i = 0; i < ACTIONS.length; i++)
+        {
+            ACTION_CODES.put(ACTIONS[i], i);
+        }
+    }
+
+    private static final String[] WELL_KNOWN = new String[] { PropertyIds.OBJECT_ID, PropertyIds.NAME,
+            PropertyIds.OBJECT_TYPE_ID, PropertyIds.BASE_TYPE_ID, PropertyIds.CREATED_BY, PropertyIds.CREATION_DATE,
+            PropertyIds.LAST_MODIFIED_BY, PropertyIds.LAST_MODIFICATION_DATE, PropertyIds.CHANGE_TOKEN,
+            PropertyIds.PARENT_ID, PropertyIds.PATH, PropertyIds.ALLOWED_CHILD_OBJECT_TYPE_IDS,
+            PropertyIds.IS_IMMUTABLE, PropertyIds.IS_LATEST_VERSION, PropertyIds.IS_MAJOR_VERSION,
+            PropertyIds.IS_LATEST_MAJOR_VERSION, PropertyIds.VERSION_LABEL, PropertyIds.VERSION_SERIES_ID,
+            PropertyIds.IS_VERSION_SERIES_CHECKED_OUT, PropertyIds.VERSION_SERIES_CHECKED_OUT_BY,
+            PropertyIds.VERSION_SERIES_CHECKED_OUT_ID, PropertyIds.CHECKIN_COMMENT,
+            PropertyIds.CONTENT_STREAM_LENGTH, PropertyIds.CONTENT_STREAM_MIME_TYPE,
+            PropertyIds.CONTENT_STREAM_FILE_NAME, PropertyIds.CONTENT_STREAM_ID, ContentModel.PROP_TITLE,
+            ContentModel.PROP_DESCRIPTION, ContentModel.PROP_AUTHOR, ContentModel.PROP_LATITUDE,
+            ContentModel.PROP_LONGITUDE, "cmis:document", "cmis:folder", "titled", "author", "geographic",
+            "exif:exif", "taggable", "GMT", "UTC" };
+
+    private static final Map<String, Integer> WELL_KNOWN_INDEX = new HashMap<String, Integer>(WELL_KNOWN.length * 2);
+    static
+    {
+        for (int i = 0; i < WELL_KNOWN.length; i++)
+        {
+            WELL_KNOWN_INDEX.put(WELL_KNOWN[i], i);
+        }
+    }
+
+    private NodeCodec()
+    {
+    }
+
+    // ////////////////////////////////////////////////////
+    // PUBLIC API
+    // ////////////////////////////////////////////////////
+    /**
+     * Encodes a node.
+     * 
+     * @param node : node to encode.
+     * @return compact binary representation of the node.
+     */
+    public static byte[] encode(Node node)
+    {
+        List<Node> nodes = new ArrayList<Node>(1);
+        nodes.add(node);
+        return encode(nodes);
+    }
+
+    /**
+     * Encodes a list of nodes sharing the same dictionary.
+     * 
+     * @param nodes : nodes to encode.
+     * @return compact binary representation of the list.
+     */
+    public static byte[] encode(List<? extends Node> nodes)
+    {
+        try
+        {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream(nodes.size() * 512 + 8);
+            DataOutputStream out = new DataOutputStream(bos);
+            out.writeByte(VERSION);
+            out.writeInt(nodes.size());
+            Encoder encoder = new Encoder();
+            for (Node node : nodes)
+            {
+                write((NodeImpl) node, out, encoder);
+            }
+            out.flush();
+            return bos.toByteArray();
+        }
+        catch (IOException e)
+        {
+            // Can't happen with a byte array.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Decodes a node previously encoded by {@link #encode(Node)}.
+     * 
+     * @param data : compact binary representation.
+     * @return node restored. Its values don't depend on a session.
+     * @throws IOException if the data are not a valid representation.
+     */
+    public static Node decode(byte[] data) throws IOException
+    {
+        List<Node> nodes = decodeList(data);
+        if (nodes.size() != 1) { throw new IOException("Expected one node but found " + nodes.size()); }
+        return nodes.get(0);
+    }
+
+    /**
+     * Decodes a list of nodes previously encoded by {@link #encode(List)}.
+     * 
+     * @param data : compact binary representation.
+     * @return nodes restored.
+     * @throws IOException if the data are not a valid representation.
+     */
+    public static List<Node> decodeList(byte[] data) throws IOException
+    {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        int version = in.readUnsignedByte();
+        if (version != VERSION) { throw new IOException("Unsupported node format version " + version); }
+
+        int size = in.readInt();
+        List<Node> nodes = new ArrayList<Node>(size);
+        Decoder decoder = new Decoder();
+        for (int i = 0; i < size; i++)
+        {
+            NodeImpl node;
+            switch (in.readUnsignedByte())
+            {
+                case KIND_DOCUMENT:
+                    node = new DocumentImpl();
+                    break;
+                case KIND_FOLDER:
+                    node = new FolderImpl();
+                    break;
+                case KIND_NODE:
+                    node = new NodeImpl();
+                    break;
+                default:
+                    throw new IOException("Unknown node kind");
+            }
+            readState(node, in, decoder);
+            nodes.add(node);
+        }
+        return nodes;
+    }
+
+    // ////////////////////////////////////////////////////
+    // NODE
+    // ////////////////////////////////////////////////////
+    /**
+     * Writes the kind and the state of a node.
+     */
+    private static void write(NodeImpl node, DataOutput out, Encoder encoder) throws IOException
+    {
+        if (node instanceof DocumentImpl)
+        {
+            out.writeByte(KIND_DOCUMENT);
+        }
+        else if (node instanceof FolderImpl)
+        {
+            out.writeByte(KIND_FOLDER);
+        }
+        else
+        {
+            out.writeByte(KIND_NODE);
+        }
+        writeState(node, out, encoder);
+    }
+
+    /**
+     * Writes the identifier, properties, aspects and allowable actions of a
+     * node. A pending node is written with its known values only.
+     */
+    private static void writeState(NodeImpl source, DataOutput out, Encoder encoder) throws IOException
+    {
+        NodeImpl node = source.getSavedState();
+        writeNullableString(out, node.getIdentifier());
+
+        // Properties
+        Map<String, Property> properties = node.getProperties();
+        if (properties == null)
+        {
+            out.writeShort(0);
+        }
+        else
+        {
+            out.writeShort(properties.size());
+            for (Map.Entry<String, Property> entry : properties.entrySet())
+            {
+                encoder.writeEntry(out, entry.getKey());
+                writeProperty(out, encoder, entry.getValue());
+            }
+        }
+
+        // Aspects
+        List<String> aspects = node.getAspects();
+        if (aspects == null)
+        {
+            out.writeShort(0);
+        }
+        else
+        {
+            out.writeShort(aspects.size());
+            for (String aspect : aspects)
+            {
+                encoder.writeEntry(out, aspect);
+            }
+        }
+
+        // Allowable actions
+        EnumSet<Action> actions = node.getAllowableActionSet();
+        long[] words = toWords(actions);
+        out.writeByte(words.length);
+        for (long word : words)
+        {
+            out.writeLong(word);
+        }
+        List<String> names = new ArrayList<String>(0);
+        if (actions != null)
+        {
+            for (Action action : actions)
+            {
+                if (!ACTION_CODES.containsKey(action))
+                {
+                    names.add(action.value());
+                }
+            }
+        }
+        out.writeShort(names.size());
+        for (String name : names)
+        {
+            encoder.writeEntry(out, name);
+        }
+    }
+
+    /**
+     * Reads the state written by {@link #writeState} into a detached node.
+     */
+    private static void readState(NodeImpl node, DataInput in, Decoder decoder) throws IOException
+    {
+        String identifier = readNullableString(in);
+
+        int size = in.readUnsignedShort();
+        Map<String, Property> properties = new HashMap<String, Property>(size * 4 / 3 + 1);
+        for (int i = 0; i < size; i++)
+        {
+            String id = decoder.readEntry(in);
+            properties.put(id, readProperty(in, decoder));
+        }
+
+        size = in.readUnsignedShort();
+        List<String> aspects = new ArrayList<String>(size);
+        for (int i = 0; i < size; i++)
+        {
+            aspects.add(decoder.readEntry(in));
+        }
+
+        long[] words = new long[in.readUnsignedByte()];
+        for (int w = 0; w < words.length; w++)
+        {
+            words[w] = in.readLong();
+        }
+        EnumSet<Action> actions = fromWords(words);
+        size = in.readUnsignedShort();
+        for (int i = 0; i < size; i++)
+        {
+            String name = decoder.readEntry(in);
+            try
+            {
+                actions.add(Action.fromValue(name));
+            }
+            catch (IllegalArgumentException e)
+            {
+                // Action unknown by this version of OpenCMIS.
+            }
+        }
+
+        node.restore(identifier, properties, aspects, actions);
+    }
+
+    // ////////////////////////////////////////////////////
+    // ALLOWABLE ACTIONS
+    // ////////////////////////////////////////////////////
+    /**
+     * @param actions : allowable actions. Can be null.
+     * @return bitset of the action codes. Actions without code are ignored.
+     */
+    static long[] toWords(EnumSet<Action> actions)
+    {
+        long[] words = new long[ACTION_WORDS];
+        if (actions != null)
+        {
+            for (Action action : actions)
+            {
+                Integer code = ACTION_CODES.get(action);
+                if (code != null)
+                {
+                    words[code >> 6] |= 1L << (code & 63);
+                }
+            }
+        }
+        return words;
+    }
+
+    /**
+     * @param words : bitset of action codes. Unknown codes are ignored.
+     * @return allowable actions.
+     */
+    static EnumSet<Action> fromWords(long[] words)
+    {
+        EnumSet<Action> actions = EnumSet.noneOf(Action.class);
+        for (int w = 0; w < words.length; w++)
+        {
+            long word = words[w];
+            for (int bit = 0; bit < 64 && word != 0; bit++, word >>>= 1)
+            {
+                if ((word & 1L) != 0 && (w << 6) + bit < ACTIONS.length)
+                {
+                    actions.add(ACTIONS[(w << 6) + bit]);
+                }
+            }
+        }
+        return actions;
+    }
+
+    /**
+     * Writes a node as part of java serialization.
+     */
+    static void writeExternal(NodeImpl node, DataOutput out) throws IOException
+    {
+        out.writeByte(VERSION);
+        writeState(node, out, new Encoder());
+    }
+
+    /**
+     * Reads a node as part of java deserialization.
+     */
+    static void readExternal(NodeImpl node, DataInput in) throws IOException
+    {
+        int version = in.readUnsignedByte();
+        if (version != VERSION) { throw new IOException("Unsupported node format version " + version); }
+        readState(node, in, new Decoder());
+    }
+
+    // ////////////////////////////////////////////////////
+    // PROPERTIES
+    // ////////////////////////////////////////////////////
+    private static void writeProperty(DataOutput out, Encoder encoder, Property property) throws IOException
+    {
+        PropertyType type = null;
+        try
+        {
+            type = property.getType();
+        }
+        catch (IllegalArgumentException e)
+        {
+            // Cmis data type without equivalent (uri, html) : kept as string.
+        }
+
+        Integer code = (type == null) ? null : TYPE_CODES.get(type);
+        int flags = (code == null) ? 0 : code;
+        Object value = property.getValue();
+        if (property.isMultiValued() || value instanceof List)
+        {
+            out.writeByte(flags | MULTI_VALUED);
+            if (value == null)
+            {
+                out.writeShort(0);
+            }
+            else
+            {
+                Collection<?> values = (Collection<?>) value;
+                out.writeShort(values.size());
+                for (Object object : values)
+                {
+                    writeValue(out, encoder, object);
+                }
+            }
+        }
+        else
+        {
+            out.writeByte(flags);
+            writeValue(out, encoder, value);
+        }
+    }
+
+    private static Property readProperty(DataInput in, Decoder decoder) throws IOException
+    {
+        int flags = in.readUnsignedByte();
+        int typeIndex = (flags & ~MULTI_VALUED) - 1;
+        PropertyType type = (typeIndex >= 0 && typeIndex < TYPES.length) ? TYPES[typeIndex] : null;
+
+        if ((flags & MULTI_VALUED) != 0)
+        {
+            int size = in.readUnsignedShort();
+            List<Object> values = new ArrayList<Object>(size);
+            for (int i = 0; i < size; i++)
+            {
+                values.add(readValue(in, decoder));
+            }
+            return new PropertyImpl(values, type, true);
+        }
+        return new PropertyImpl(readValue(in, decoder), type, false);
+    }
+
+    private static void writeValue(DataOutput out, Encoder encoder, Object value) throws IOException
+    {
+        if (value == null)
+        {
+            out.writeByte(VALUE_NULL);
+        }
+        else if (value instanceof Boolean)
+        {
+            out.writeByte(VALUE_BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        }
+        else if (value instanceof BigInteger && ((BigInteger) value).bitLength() < 64)
+        {
+            out.writeByte(VALUE_LONG);
+            out.writeLong(((BigInteger) value).longValue());
+        }
+        else if (value instanceof BigInteger)
+        {
+            out.writeByte(VALUE_BIGINTEGER);
+            writeString(out, value.toString());
+        }
+        else if (value instanceof BigDecimal)
+        {
+            out.writeByte(VALUE_DECIMAL);
+            writeString(out, value.toString());
+        }
+        else if (value instanceof GregorianCalendar)
+        {
+            GregorianCalendar calendar = (GregorianCalendar) value;
+            out.writeByte(VALUE_DATETIME);
+            out.writeLong(calendar.getTimeInMillis());
+            encoder.writeEntry(out, calendar.getTimeZone().getID());
+        }
+        else
+        {
+            out.writeByte(VALUE_STRING);
+            writeString(out, value.toString());
+        }
+    }
+
+    private static Object readValue(DataInput in, Decoder decoder) throws IOException
+    {
+        int tag = in.readUnsignedByte();
+        switch (tag)
+        {
+            case VALUE_NULL:
+                return null;
+            case VALUE_BOOLEAN:
+                return in.readBoolean();
+            case VALUE_LONG:
+                return BigInteger.valueOf(in.readLong());
+            case VALUE_BIGINTEGER:
+                return new BigInteger(readString(in));
+            case VALUE_DECIMAL:
+                return new BigDecimal(readString(in));
+            case VALUE_DATETIME:
+                long time = in.readLong();
+                GregorianCalendar calendar = new GregorianCalendar(TimeZone.getTimeZone(decoder.readEntry(in)));
+                calendar.setTimeInMillis(time);
+                return calendar;
+            case VALUE_STRING:
+                return readString(in);
+            default:
+                throw new IOException("Unknown value type " + tag);
+        }
+    }
+
+    // ////////////////////////////////////////////////////
+    // STRINGS
+    // ////////////////////////////////////////////////////
+    private static void writeString(DataOutput out, String value) throws IOException
+    {
+        byte[] bytes = value.getBytes("UTF-8");
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInput in) throws IOException
+    {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, "UTF-8");
+    }
+
+    private static void writeNullableString(DataOutput out, String value) throws IOException
+    {
+        out.writeBoolean(value != null);
+        if (value != null)
+        {
+            writeString(out, value);
+        }
+    }
+
+    private static String readNullableString(DataInput in) throws IOException
+    {
+        return in.readBoolean() ? readString(in) : null;
+    }
+
+    /**
+     * Writes interned strings : index of the static dictionary, index of a
+     * string already written in the stream or the string itself.
+     */
+    static final class Encoder
+    {
+        private final Map<String, Integer> entries = new HashMap<String, Integer>();
+
+        void writeEntry(DataOutput out, String value) throws IOException
+        {
+            Integer index = WELL_KNOWN_INDEX.get(value);
+            if (index == null)
+            {
+                index = entries.get(value);
+            }
+
+            if (index != null)
+            {
+                out.writeShort(index);
+            }
+            else
+            {
+                out.writeShort(NEW_ENTRY);
+                writeString(out, value);
+                if (WELL_KNOWN.length + entries.size() < NEW_ENTRY)
+                {
+                    entries.put(value, WELL_KNOWN.length + entries.size());
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads strings written by {@link Encoder}.
+     */
+    static final class Decoder
+    {
+        private final List<String> entries = new ArrayList<String>();
+
+        String readEntry(DataInput in) throws IOException
+        {
+            int index = in.readUnsignedShort();
+            if (index == NEW_ENTRY)
+            {
+                String value = readString(in);
+                if (WELL_KNOWN.length + entries.size() < NEW_ENTRY)
+                {
+                    entries.add(value);
+                }
+                return value;
+            }
+            else if (index < WELL_KNOWN.length) { return WELL_KNOWN[index]; }
+
+            index -= WELL_KNOWN.length;
+            if (index >= entries.size()) { throw new IOException("Unknown dictionary entry " + index); }
+            return entries.get(index);
+        }
+    }
+}
@@ -17,8 +17,14 @@
  ******************************************************************************/
 package org.alfresco.mobile.android.api.model.impl;
 
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.GregorianCalendar;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -44,7 +50,7 @@ import android.os.Parcelable;
  * 
  * @author Jean Marie Pascal
  */
-public class NodeImpl implements Node
+public class NodeImpl implements Node, Externalizable
 {
     private static final long serialVersionUID = 1L;
 
@@ -57,12 +63,39 @@ public class NodeImpl implements Node
     /** List of Aspects available for this Node. */
     private List<String> aspects;
 
-    /** List of allowable actions. */
-    private List<String> allowableActions;
+    /** Allowable actions decoded once as a bitset of cmis actions. */
+    private volatile EnumSet<Action> allowableActions;
+
+    /** Values of allowable actions. Computed on first access. */
+    private transient Set<String> allowableActionValues;
 
     /** CMIS Object associated to a Node. */
     private transient CmisObject object;
 
+    /** Properties of the CMIS Object wrapped once. Built on first access. */
+    private transient volatile Map<String, Property> propertyTable;
+
+    /** Object type without cmis prefix. Computed on first access. */
+    private transient String type;
+
+    /** Retrieves the CMIS Object of a node created without it. */
+    private transient volatile ObjectLoader loader;
+
+    /** Properties known before the CMIS Object is retrieved. */
+    private transient volatile Map<String, Property> knownProperties;
+
+    /** Returned for properties unknown by the CMIS Object. */
+    private static final Property EMPTY_PROPERTY = new PropertyImpl((Object) null);
+
+    private static final Map<String, Action> ACTIONS_BY_VALUE = new HashMap<String, Action>();
+    static
+    {
+        for (Action action : Action.values())
+        {
+            ACTIONS_BY_VALUE.put(action.value(), action);
+        }
+    }
+
     // ////////////////////////////////////////////////////
     // Constructors
     // ////////////////////////////////////////////////////
@@ -80,6 +113,57 @@ public class NodeImpl implements Node
         this.object = o;
     }
 
+    /**
+     * Constructor of a Node whose CMIS Object is retrieved only when a value
+     * not in knownProperties is requested. Used after an update to avoid an
+     * immediate round trip to the server.
+     * 
+     * @param knownProperties : properties already known (sent to or returned
+     *            by the server).
+     * @param loader : retrieves the CMIS Object of the node.
+     */
+    public NodeImpl(Map<String, Property> knownProperties, ObjectLoader loader)
+    {
+        this.knownProperties = knownProperties;
+        this.loader = loader;
+    }
+
+    /**
+     * Retrieves the CMIS Object of a node created with known properties only.
+     */
+    public interface ObjectLoader
+    {
+        CmisObject load();
+    }
+
+    /**
+     * @return Returns true if the CMIS Object of the node has not been
+     *         retrieved yet.
+     */
+    public boolean isPending()
+    {
+        return loader != null;
+    }
+
+    /**
+     * Retrieves the CMIS Object if the node has been created with known
+     * properties only. Known properties are then replaced by the values of
+     * the server.
+     */
+    private void ensureLoaded()
+    {
+        if (loader == null) { return; }
+        synchronized (this)
+        {
+            if (loader == null) { return; }
+            object = loader.load();
+            propertyTable = null;
+            type = null;
+            knownProperties = null;
+            loader = null;
+        }
+    }
+
     // ////////////////////////////////////////////////////
     // Shortcut and common methods
     // ////////////////////////////////////////////////////
@@ -120,16 +204,24 @@ public class NodeImpl implements Node
      */
     public String getType()
     {
-        if (((String) getPropertyValue(PropertyIds.OBJECT_TYPE_ID))
-                .startsWith(AbstractDocumentFolderServiceImpl.CMISPREFIX_DOCUMENT))
+        if (type == null)
         {
-            return ((String) getPropertyValue(PropertyIds.OBJECT_TYPE_ID)).replaceFirst(
-                    AbstractDocumentFolderServiceImpl.CMISPREFIX_DOCUMENT, "");
+            String objectTypeId = getPropertyValue(PropertyIds.OBJECT_TYPE_ID);
+            if (objectTypeId == null) { return null; }
+            if (objectTypeId.startsWith(AbstractDocumentFolderServiceImpl.CMISPREFIX_DOCUMENT))
+            {
+                type = objectTypeId.substring(AbstractDocumentFolderServiceImpl.CMISPREFIX_DOCUMENT.length());
+            }
+            else if (objectTypeId.startsWith(AbstractDocumentFolderServiceImpl.CMISPREFIX_FOLDER))
+            {
+                type = objectTypeId.substring(AbstractDocumentFolderServiceImpl.CMISPREFIX_FOLDER.length());
+            }
+            else
+            {
+                type = objectTypeId;
+            }
         }
-        else if (((String) getPropertyValue(PropertyIds.OBJECT_TYPE_ID))
-                .startsWith(AbstractDocumentFolderServiceImpl.CMISPREFIX_FOLDER)) { return ((String) getPropertyValue(PropertyIds.OBJECT_TYPE_ID))
-                .replaceFirst(AbstractDocumentFolderServiceImpl.CMISPREFIX_FOLDER, ""); }
-        return getPropertyValue(PropertyIds.OBJECT_TYPE_ID);
+        return type;
     }
 
     /**
@@ -192,15 +284,10 @@ public class NodeImpl implements Node
      */
     public Map<String, Property> getProperties()
     {
+        ensureLoaded();
         if (object != null)
         {
-            List<org.apache.chemistry.opencmis.client.api.Property<?>> props = object.getProperties();
-            Map<String, Property> s = new HashMap<String, Property>(props.size());
-            for (org.apache.chemistry.opencmis.client.api.Property<?> property : props)
-            {
-                s.put(property.getId(), new PropertyImpl(property));
-            }
-            return s;
+            return new HashMap<String, Property>(getPropertyTable());
         }
         else if (properties != null) { return properties; }
         return null;
@@ -215,7 +302,8 @@ public class NodeImpl implements Node
     @SuppressWarnings("unchecked")
     public <T> T getPropertyValue(String name)
     {
-        if (getProp(name) != null) { return (T) getProp(name).getValue(); }
+        Property prop = getProp(name);
+        if (prop != null) { return (T) prop.getValue(); }
         return null;
     }
 
@@ -231,9 +319,13 @@ public class NodeImpl implements Node
      */
     private Property getProp(String name)
     {
+        Map<String, Property> known = knownProperties;
+        if (known != null && known.containsKey(name)) { return known.get(name); }
+        ensureLoaded();
         if (object != null)
         {
-            return new PropertyImpl(object.getProperty(name));
+            Property prop = getPropertyTable().get(name);
+            return (prop != null) ? prop : EMPTY_PROPERTY;
         }
         else if (properties != null)
         {
@@ -245,6 +337,29 @@ public class NodeImpl implements Node
         }
     }
 
+    /**
+     * Wraps all properties of the CMIS Object the first time they are
+     * requested. Nodes are never modified once created : every getter then
+     * reuses the same Property objects.
+     * 
+     * @return map of properties by cmis property id.
+     */
+    private Map<String, Property> getPropertyTable()
+    {
+        Map<String, Property> table = propertyTable;
+        if (table == null)
+        {
+            List<org.apache.chemistry.opencmis.client.api.Property<?>> props = object.getProperties();
+            table = new HashMap<String, Property>(props.size() * 4 / 3 + 1);
+            for (org.apache.chemistry.opencmis.client.api.Property<?> property : props)
+            {
+                table.put(property.getId(), new PropertyImpl(property));
+            }
+            propertyTable = table;
+        }
+        return table;
+    }
+
     /**
      * Determines if the node has the specified aspect.
      * 
@@ -258,6 +373,7 @@ public class NodeImpl implements Node
         {
             tmpAspectName = AbstractDocumentFolderServiceImpl.CMISPREFIX_ASPECTS + aspectName;
         }
+        ensureLoaded();
         if (object != null)
         {
             AlfrescoAspects alf = (AlfrescoAspects) object;
@@ -265,7 +381,9 @@ public class NodeImpl implements Node
         }
         else if (aspects != null)
         {
-            return aspects.contains(tmpAspectName);
+            // Saved aspects don't have the cmis prefix (see getAspects).
+            return aspects.contains(tmpAspectName.substring(AbstractDocumentFolderServiceImpl.CMISPREFIX_ASPECTS
+                    .length()));
         }
         else
         {
@@ -280,6 +398,9 @@ public class NodeImpl implements Node
      */
     public List<String> getAspects()
     {
+        ensureLoaded();
+        if (object == null) { return aspects; }
+
         AlfrescoAspects alf = (AlfrescoAspects) object;
         Collection<ObjectType> c = alf.getAspects();
         ArrayList<String> list = new ArrayList<String>(c.size());
@@ -325,18 +446,8 @@ public class NodeImpl implements Node
      */
     public boolean hasAllowableAction(Action action)
     {
-        if (object != null && object.getAllowableActions() != null)
-        {
-            return object.getAllowableActions().getAllowableActions().contains(action);
-        }
-        else if (allowableActions != null)
-        {
-            return allowableActions.contains(action.value());
-        }
-        else
-        {
-            return false;
-        }
+        EnumSet<Action> actions = getAllowableActionSet();
+        return actions != null && actions.contains(action);
     }
 
     /**
@@ -346,44 +457,54 @@ public class NodeImpl implements Node
      */
     public boolean hasAllowableAction(String action)
     {
-        if (object != null && object.getAllowableActions() != null)
-        {
-            for (Action c : Action.values())
-            {
-                if (c.value().equals(action)) { return true; }
-            }
-            return false;
-        }
-        else if (allowableActions != null)
-        {
-            return allowableActions.contains(action);
-        }
-        else
-        {
-            return false;
-        }
+        Action c = ACTIONS_BY_VALUE.get(action);
+        return c != null && hasAllowableAction(c);
     }
 
     /**
-     * @return Returns a set of all available allowable actions.
+     * @return Returns a read only set of all available allowable actions.
      */
     public Set<String> getAllowableActions()
     {
-        Set<String> s = null;
-        if (object.getAllowableActions() != null && object.getAllowableActions().getAllowableActions() != null)
+        Set<String> s = allowableActionValues;
+        if (s == null)
         {
-            Set<Action> actions = object.getAllowableActions().getAllowableActions();
-            s = new HashSet<String>(actions.size());
+            EnumSet<Action> actions = getAllowableActionSet();
+            if (actions == null) { return null; }
+            s = new HashSet<String>(actions.size() * 4 / 3 + 1);
             for (Action action : actions)
             {
                 s.add(action.value());
             }
+            s = Collections.unmodifiableSet(s);
+            allowableActionValues = s;
         }
-        else if (allowableActions != null)
+        return s;
+    }
+
+    /**
+     * Allowable actions of the CMIS Object are decoded the first time they
+     * are requested.
+     * 
+     * @return Returns the set of allowable actions or null if unknown.
+     */
+    EnumSet<Action> getAllowableActionSet()
+    {
+        EnumSet<Action> actions = allowableActions;
+        if (actions == null)
         {
-            s = new HashSet<String>(allowableActions);
+            ensureLoaded();
         }
-        return s;
+        if (actions == null && object != null)
+        {
+            actions = EnumSet.noneOf(Action.class);
+            if (object.getAllowableActions() != null && object.getAllowableActions().getAllowableActions() != null)
+            {
+                actions.addAll(object.getAllowableActions().getAllowableActions());
+            }
+            allowableActions = actions;
+        }
+        return actions;
     }
 
     // ////////////////////////////////////////////////////
@@ -400,6 +521,57 @@ public class NodeImpl implements Node
     // ////////////////////////////////////////////////////
     // Save State - serialization / deserialization
     // ////////////////////////////////////////////////////
+    /**
+     * Java serialization uses the compact format of {@link NodeCodec} : the
+     * node is restored as a detached node holding all its values.
+     */
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException
+    {
+        NodeCodec.writeExternal(this, out);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException
+    {
+        NodeCodec.readExternal(this, in);
+    }
+
+    /**
+     * Replaces the state of the node by values previously saved.
+     */
+    void restore(String identifier, Map<String, Property> properties, List<String> aspects,
+            EnumSet<Action> allowableActions)
+    {
+        this.object = null;
+        this.loader = null;
+        this.knownProperties = null;
+        this.propertyTable = null;
+        this.type = null;
+        this.allowableActionValues = null;
+        this.identifier = identifier;
+        this.properties = properties;
+        this.aspects = aspects;
+        this.allowableActions = allowableActions;
+    }
+
+    /**
+     * A pending node is saved as a detached node holding its known properties
+     * : the CMIS Object is not retrieved. Its aspects are unknown.
+     * 
+     * @return Returns the node whose values are saved.
+     */
+    NodeImpl getSavedState()
+    {
+        Map<String, Property> known = knownProperties;
+        if (known == null) { return this; }
+        Property id = known.get(PropertyIds.OBJECT_ID);
+        NodeImpl state = new NodeImpl();
+        state.restore((id != null) ? (String) id.getValue() : null, new HashMap<String, Property>(known),
+                new ArrayList<String>(0), allowableActions);
+        return state;
+    }
+
     @Override
     public int describeContents()
     {
@@ -422,18 +594,11 @@ public class NodeImpl implements Node
     public void writeToParcel(Parcel dest, int arg1)
     {
         // Transform to parcel
-        if (object != null)
-        {
-            identifier = getIdentifier();
-            properties = getProperties();
-            aspects = getAspects();
-            allowableActions = new ArrayList<String>(getAllowableActions());
-        }
-
-        dest.writeString(identifier);
-        dest.writeMap(properties);
-        dest.writeList(aspects);
-        dest.writeList(allowableActions);
+        NodeImpl state = getSavedState();
+        dest.writeString(state.getIdentifier());
+        dest.writeMap(state.getProperties());
+        dest.writeList(state.getAspects());
+        dest.writeLongArray(NodeCodec.toWords(state.getAllowableActionSet()));
     }
 
     /**
@@ -475,7 +640,6 @@ public class NodeImpl implements Node
         o.readMap(this.properties, getClass().getClassLoader());
         this.aspects = new ArrayList<String>();
         o.readList(this.aspects, getClass().getClassLoader());
-        this.allowableActions = new ArrayList<String>();
-        o.readList(this.allowableActions, getClass().getClassLoader());
+        this.allowableActions = NodeCodec.fromWords(o.createLongArray());
     }
 }
@@ -39,6 +39,12 @@ public class PropertyImpl implements Property
     /** Simple representation of property value. */
     private Object value;
 
+    /** Data type of the simple value. */
+    private PropertyType type;
+
+    /** True if the simple value is a list of values. */
+    private boolean multiValued;
+
     /**
      * Use by default for creating property object that wraps an OpenCMIS
      * Property.
@@ -61,13 +67,28 @@ public class PropertyImpl implements Property
         this.value = value;
     }
 
+    /**
+     * Constructor of a simple property object that keeps the data type of
+     * the value.
+     * 
+     * @param value : default value for the specific property
+     * @param type : data type of the value. Can be null if unknown.
+     * @param multiValued : true if the value is a list of values.
+     */
+    public PropertyImpl(Object value, PropertyType type, boolean multiValued)
+    {
+        this.value = value;
+        this.type = type;
+        this.multiValued = multiValued;
+    }
+
     /**
      * @return Returns if the property is a multi-value property.
      */
     public boolean isMultiValued()
     {
         if (prop != null) { return prop.isMultiValued(); }
-        return false;
+        return multiValued;
     }
 
     /**
@@ -76,7 +97,7 @@ public class PropertyImpl implements Property
     public PropertyType getType()
     {
         if (prop != null) { return PropertyType.fromValue(prop.getType().value()); }
-        return null;
+        return type;
     }
 
     /**
@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * Copyright (C) 2005-2012 Alfresco Software Limited.
+ * 
+ * This file is part of the Alfresco Mobile SDK.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ ******************************************************************************/
+package org.alfresco.mobile.android.api.model.impl;
+
+import java.util.GregorianCalendar;
+
+import org.alfresco.mobile.android.api.model.RatingSummary;
+
+/**
+ * RatingSummaryImpl
+ * 
+ * @author Jean Marie Pascal
+ */
+public class RatingSummaryImpl implements RatingSummary
+{
+    private static final long serialVersionUID = 1L;
+
+    /** Number of likes. */
+    private final int likeCount;
+
+    /** Like of the current user. */
+    private final boolean liked;
+
+    /** Retrieval time in milliseconds. */
+    private final long lastUpdated;
+
+    /**
+     * @param likeCount : number of likes or -1 if unknown.
+     * @param liked : true if the current user has liked the node.
+     */
+    public RatingSummaryImpl(int likeCount, boolean liked)
+    {
+        this.likeCount = likeCount;
+        this.liked = liked;
+        this.lastUpdated = System.currentTimeMillis();
+    }
+
+    /** {@inheritDoc} */
+    public int getLikeCount()
+    {
+        return likeCount;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isLiked()
+    {
+        return liked;
+    }
+
+    /** {@inheritDoc} */
+    public GregorianCalendar getLastUpdatedAt()
+    {
+        GregorianCalendar g = new GregorianCalendar();
+        g.setTimeInMillis(lastUpdated);
+        return g;
+    }
+
+    /**
+     * @return Returns the retrieval time in milliseconds.
+     */
+    public long getLastUpdated()
+    {
+        return lastUpdated;
+    }
+}
@@ -0,0 +1,652 @@
+/*******************************************************************************
+ * Copyright (C) 2005-2012 Alfresco Software Limited.
+ * 
+ * This file is part of the Alfresco Mobile SDK.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ ******************************************************************************/
+package org.alfresco.mobile.android.api.services;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.alfresco.mobile.android.api.exceptions.AlfrescoServiceException;
+import org.alfresco.mobile.android.api.exceptions.ErrorCodeRegistry;
+import org.alfresco.mobile.android.api.model.ContentFile;
+import org.alfresco.mobile.android.api.model.Document;
+import org.alfresco.mobile.android.api.model.Folder;
+import org.alfresco.mobile.android.api.model.Node;
+import org.alfresco.mobile.android.api.model.impl.ContentFileImpl;
+
+/**
+ * Uploads a list of files or a local directory into a folder. </br> Documents
+ * are created in parallel by a bounded number of threads. Subfolders of a
+ * local directory are created first, in breadth first order, and the files
+ * of a subfolder are uploaded as soon as its folder exists. </br> Progress is
+ * reported for each file and for the whole upload : the fileReadCallback of
+ * each ContentFile is still called. A failure never stops the upload, it's
+ * reported in the result of the item.
+ * 
+ * <pre>
+ * BulkUploader uploader = new BulkUploader(docfolderService, 3);
+ * BulkUploader.Report report = uploader.upload(folder, localDirectory);
+ * for (BulkUploader.Result result : report.getResults())
+ * {
+ *     if (!result.isSuccess())
+ *     {
+ *         retry(result.getFile());
+ *     }
+ * }
+ * </pre>
+ * 
+ * @author Jean Marie Pascal
+ */
+public class BulkUploader
+{
+    /** Default number of documents created in parallel. */
+    public static final int DEFAULT_PARALLELISM = 3;
+
+    private static final int KEEP_ALIVE = 30;
+
+    /**
+     * Receives progress of the upload. Methods are called from the upload
+     * threads.
+     */
+    public interface Listener
+    {
+        /**
+         * @param file : file being uploaded.
+         * @param bytesRead : number of bytes of the file already read.
+         * @param totalBytesRead : number of bytes of all files already read.
+         * @param totalLength : length of all files.
+         */
+        void onProgress(ContentFile file, long bytesRead, long totalBytesRead, long totalLength);
+
+        /**
+         * @param result : result of a file or a folder.
+         */
+        void onItemCompleted(Result result);
+    }
+
+    /**
+     * Result of the upload of one file or of the creation of one folder.
+     */
+    public static class Result
+    {
+        private final ContentFile file;
+
+        private final String path;
+
+        private final Node node;
+
+        private final Exception error;
+
+        private final boolean cancelled;
+
+        private final long duration;
+
+        Result(ContentFile file, String path, Node node, Exception error, boolean cancelled, long duration)
+        {
+            this.file = file;
+            this.path = path;
+            this.node = node;
+            this.error = error;
+            this.cancelled = cancelled;
+            this.duration = duration;
+        }
+
+        /**
+         * @return Returns the uploaded file or null for a folder.
+         */
+        public ContentFile getFile()
+        {
+            return file;
+        }
+
+        /**
+         * @return Returns the path of the item relative to the target folder.
+         */
+        public String getPath()
+        {
+            return path;
+        }
+
+        /**
+         * @return Returns the created document or folder, null if the upload
+         *         failed.
+         */
+        public Node getNode()
+        {
+            return node;
+        }
+
+        /**
+         * @return Returns the reason of the failure or null. Items of a local
+         *         directory whose folder failed report the failure of the
+         *         folder.
+         */
+        public Exception getError()
+        {
+            return error;
+        }
+
+        /**
+         * @return Returns true if the upload was cancelled before the item.
+         */
+        public boolean isCancelled()
+        {
+            return cancelled;
+        }
+
+        public boolean isSuccess()
+        {
+            return node != null;
+        }
+
+        /**
+         * @return Returns the duration of the request in milliseconds.
+         */
+        public long getDuration()
+        {
+            return duration;
+        }
+    }
+
+    /**
+     * Results of all items of an upload.
+     */
+    public static class Report
+    {
+        private final List<Result> results;
+
+        private final long bytes;
+
+        private final long duration;
+
+        Report(List<Result> results, long bytes, long duration)
+        {
+            this.results = Collections.unmodifiableList(results);
+            this.bytes = bytes;
+            this.duration = duration;
+        }
+
+        /**
+         * @return Returns the results of folders first, then of files.
+         */
+        public List<Result> getResults()
+        {
+            return results;
+        }
+
+        public int getSuccessCount()
+        {
+            int count = 0;
+            for (Result result : results)
+            {
+                if (result.isSuccess())
+                {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        public int getFailureCount()
+        {
+            return results.size() - getSuccessCount();
+        }
+
+        /**
+         * @return Returns the number of bytes read from the files.
+         */
+        public long getBytes()
+        {
+            return bytes;
+        }
+
+        /**
+         * @return Returns the duration of the whole upload in milliseconds.
+         */
+        public long getDuration()
+        {
+            return duration;
+        }
+
+        /**
+         * @return Returns the number of bytes uploaded per second.
+         */
+        public long getThroughput()
+        {
+            return (duration > 0) ? bytes * 1000 / duration : bytes;
+        }
+    }
+
+    private final DocumentFolderService docFolderService;
+
+    private final int parallelism;
+
+    private Listener listener;
+
+    private volatile boolean cancelled;
+
+    private final AtomicLong totalBytesRead = new AtomicLong();
+
+    private long totalLength;
+
+    /**
+     * @param docFolderService : service used to create documents and folders.
+     * @param parallelism : maximum number of documents created in parallel.
+     */
+    public BulkUploader(DocumentFolderService docFolderService, int parallelism)
+    {
+        if (docFolderService == null) { throw new IllegalArgumentException("docFolderService"); }
+        if (parallelism <= 0) { throw new IllegalArgumentException("parallelism <= 0"); }
+        this.docFolderService = docFolderService;
+        this.parallelism = parallelism;
+    }
+
+    public BulkUploader(DocumentFolderService docFolderService)
+    {
+        this(docFolderService, DEFAULT_PARALLELISM);
+    }
+
+    public void setListener(Listener listener)
+    {
+        this.listener = listener;
+    }
+
+    /**
+     * Files not yet uploaded are reported as cancelled. Uploads in progress
+     * are completed.
+     */
+    public void cancel()
+    {
+        cancelled = true;
+    }
+
+    // ////////////////////////////////////////////////////
+    // UPLOAD
+    // ////////////////////////////////////////////////////
+    /**
+     * Uploads files into a folder. Blocks until all files are uploaded.
+     * 
+     * @param folder : target folder.
+     * @param files : files to upload. Each file keeps its name.
+     * @return Returns the result of each file.
+     */
+    public Report upload(Folder folder, List<ContentFile> files)
+    {
+        if (folder == null) { throw new IllegalArgumentException("folder"); }
+        if (files == null) { throw new IllegalArgumentException("files"); }
+
+        long start = System.currentTimeMillis();
+        start(files);
+        ThreadPoolExecutor executor = createExecutor();
+        List<UploadTask> tasks = new ArrayList<UploadTask>(files.size());
+        try
+        {
+            for (ContentFile file : files)
+            {
+                submit(executor, new UploadTask(folder, file, file.getFileName()), tasks);
+            }
+            List<Result> results = new ArrayList<Result>(files.size());
+            collect(tasks, results);
+            return new Report(results, totalBytesRead.get(), System.currentTimeMillis() - start);
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Uploads the content of a local directory into a folder. Subfolders are
+     * created or reused if they already exist. Blocks until all files are
+     * uploaded.
+     * 
+     * @param folder : target folder.
+     * @param directory : local directory. The directory itself is not
+     *            created, only its content.
+     * @return Returns the result of each folder and file.
+     */
+    public Report upload(Folder folder, File directory)
+    {
+        if (folder == null) { throw new IllegalArgumentException("folder"); }
+        if (directory == null || !directory.isDirectory()) { throw new IllegalArgumentException("directory"); }
+
+        long start = System.currentTimeMillis();
+
+        // Lists the whole tree first to know the total length.
+        List<File> directories = new ArrayList<File>();
+        List<ContentFile> files = new ArrayList<ContentFile>();
+        LinkedList<File> queue = new LinkedList<File>();
+        queue.add(directory);
+        while (!queue.isEmpty())
+        {
+            File dir = queue.removeFirst();
+            File[] children = dir.listFiles();
+            if (children == null)
+            {
+                continue;
+            }
+            for (File child : children)
+            {
+                if (child.isDirectory())
+                {
+                    directories.add(child);
+                    queue.add(child);
+                }
+                else if (child.isFile())
+                {
+                    files.add(new ContentFileImpl(child));
+                }
+            }
+        }
+        start(files);
+
+        List<Result> results = new ArrayList<Result>(directories.size() + files.size());
+        List<UploadTask> tasks = new ArrayList<UploadTask>(files.size());
+        ThreadPoolExecutor executor = createExecutor();
+        try
+        {
+            // Folders are created breadth first : the folder of a parent
+            // directory always exists before its children.
+            Map<File, Folder> folders = new HashMap<File, Folder>();
+            Map<File, Exception> failures = new HashMap<File, Exception>();
+            folders.put(directory, folder);
+            submitFiles(executor, directory, directory, folder, tasks);
+            for (File dir : directories)
+            {
+                Folder parent = folders.get(dir.getParentFile());
+                String path = getRelativePath(directory, dir);
+                Exception parentError = failures.get(dir.getParentFile());
+                if (parentError != null)
+                {
+                    // Parent folder failed : nothing to create inside.
+                    failures.put(dir, parentError);
+                    Result result = new Result(null, path, null, parentError, false, 0);
+                    results.add(result);
+                    notifyCompleted(result);
+                    continue;
+                }
+                if (parent == null || cancelled)
+                {
+                    results.add(new Result(null, path, null, null, true, 0));
+                    continue;
+                }
+                long begin = System.currentTimeMillis();
+                Folder child = null;
+                Exception error = null;
+                try
+                {
+                    child = getOrCreateFolder(parent, dir.getName());
+                }
+                catch (Exception e)
+                {
+                    error = e;
+                }
+                Result result = new Result(null, path, child, error, false, System.currentTimeMillis() - begin);
+                results.add(result);
+                notifyCompleted(result);
+                if (child != null)
+                {
+                    folders.put(dir, child);
+                    submitFiles(executor, directory, dir, child, tasks);
+                }
+                else
+                {
+                    failures.put(dir, error);
+                }
+            }
+
+            // Files of failed or cancelled folders are not submitted.
+            for (ContentFile file : files)
+            {
+                File dir = file.getFile().getParentFile();
+                if (folders.containsKey(dir))
+                {
+                    continue;
+                }
+                Exception parentError = failures.get(dir);
+                Result result = new Result(file, getRelativePath(directory, file.getFile()), null, parentError,
+                        parentError == null, 0);
+                results.add(result);
+                if (parentError != null)
+                {
+                    notifyCompleted(result);
+                }
+            }
+            collect(tasks, results);
+            return new Report(results, totalBytesRead.get(), System.currentTimeMillis() - start);
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    // ////////////////////////////////////////////////////
+    // INTERNAL
+    // ////////////////////////////////////////////////////
+    private void start(List<ContentFile> files)
+    {
+        cancelled = false;
+        totalBytesRead.set(0);
+        long length = 0;
+        for (ContentFile file : files)
+        {
+            length += file.getLength();
+        }
+        totalLength = length;
+    }
+
+    private ThreadPoolExecutor createExecutor()
+    {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(parallelism, parallelism, KEEP_ALIVE, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory()
+                {
+                    private final AtomicInteger count = new AtomicInteger(1);
+
+                    public Thread newThread(Runnable r)
+                    {
+                        Thread thread = new Thread(r, "BulkUploader #" + count.getAndIncrement());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private void submitFiles(ThreadPoolExecutor executor, File root, File dir, Folder folder, List<UploadTask> tasks)
+    {
+        File[] children = dir.listFiles();
+        if (children == null) { return; }
+        for (File child : children)
+        {
+            if (child.isFile())
+            {
+                submit(executor, new UploadTask(folder, new ContentFileImpl(child), getRelativePath(root, child)),
+                        tasks);
+            }
+        }
+    }
+
+    private static void submit(ThreadPoolExecutor executor, UploadTask task, List<UploadTask> tasks)
+    {
+        task.future = executor.submit(task);
+        tasks.add(task);
+    }
+
+    private Folder getOrCreateFolder(Folder parent, String name)
+    {
+        try
+        {
+            return docFolderService.createFolder(parent, name, null);
+        }
+        catch (AlfrescoServiceException e)
+        {
+            if (e.getErrorCode() != ErrorCodeRegistry.DOCFOLDER_NODE_ALREADY_EXIST) { throw e; }
+            Node node = docFolderService.getChildByPath(parent, name);
+            if (node instanceof Folder) { return (Folder) node; }
+            throw e;
+        }
+    }
+
+    /**
+     * Waits for the results of the tasks. Once interrupted, tasks not yet
+     * completed are reported as cancelled.
+     */
+    private void collect(List<UploadTask> tasks, List<Result> results)
+    {
+        boolean interrupted = false;
+        for (UploadTask task : tasks)
+        {
+            if (interrupted && !task.future.isDone())
+            {
+                results.add(task.getCancelledResult());
+                continue;
+            }
+            try
+            {
+                results.add(task.future.get());
+            }
+            catch (InterruptedException e)
+            {
+                cancelled = true;
+                interrupted = true;
+                results.add(task.getCancelledResult());
+            }
+            catch (ExecutionException e)
+            {
+                // UploadTask catches all exceptions.
+                throw new AlfrescoServiceException(ErrorCodeRegistry.GENERAL_GENERIC, e.getCause());
+            }
+        }
+        if (interrupted)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void notifyCompleted(Result result)
+    {
+        Listener l = listener;
+        if (l != null)
+        {
+            l.onItemCompleted(result);
+        }
+    }
+
+    private static String getRelativePath(File root, File file)
+    {
+        String path = file.getAbsolutePath().substring(root.getAbsolutePath().length());
+        return path.replace(File.separatorChar, '/');
+    }
+
+    /**
+     * Creates one document. Progress of the original file is tracked by a
+     * wrapper which forwards the callbacks.
+     */
+    private class UploadTask implements Callable<Result>
+    {
+        private final Folder folder;
+
+        private final ContentFile file;
+
+        private final String path;
+
+        private Future<Result> future;
+
+        UploadTask(Folder folder, ContentFile file, String path)
+        {
+            this.folder = folder;
+            this.file = file;
+            this.path = path;
+        }
+
+        Result getCancelledResult()
+        {
+            return new Result(file, path, null, null, true, 0);
+        }
+
+        public Result call()
+        {
+            if (cancelled) { return getCancelledResult(); }
+
+            long begin = System.currentTimeMillis();
+            Document doc = null;
+            Exception error = null;
+            try
+            {
+                doc = docFolderService.createDocument(folder, file.getFileName(), null, new TrackedContentFile(file));
+            }
+            catch (Exception e)
+            {
+                error = e;
+            }
+            Result result = new Result(file, path, doc, error, false, System.currentTimeMillis() - begin);
+            notifyCompleted(result);
+            return result;
+        }
+    }
+
+    private class TrackedContentFile extends ContentFileImpl
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final ContentFile source;
+
+        private long bytesRead;
+
+        TrackedContentFile(ContentFile source)
+        {
+            super(source.getFile(), source.getFileName(), source.getMimeType());
+            this.length = source.getLength();
+            this.source = source;
+        }
+
+        @Override
+        public void fileReadCallback(int nBytes)
+        {
+            source.fileReadCallback(nBytes);
+            bytesRead += nBytes;
+            long total = totalBytesRead.addAndGet(nBytes);
+            Listener l = listener;
+            if (l != null)
+            {
+                l.onProgress(source, bytesRead, total, totalLength);
+            }
+        }
+
+        @Override
+        public void fileWriteCallback(int nBytes)
+        {
+            source.fileWriteCallback(nBytes);
+        }
+    }
+}
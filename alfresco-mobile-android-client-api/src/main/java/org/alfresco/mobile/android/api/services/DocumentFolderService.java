@@ -130,6 +130,26 @@ public interface DocumentFolderService
      */
     Node getNodeByIdentifier(String identifier);
 
+    /**
+     * Gets several node objects in a few requests. Identifiers are grouped in
+     * batches resolved by cmis queries in parallel. The size of a batch can be
+     * defined with the session parameter
+     * {@link org.alfresco.mobile.android.api.session.AlfrescoSession#NODES_BATCH_SIZE
+     * NODES_BATCH_SIZE}. </br> Like {@link #getNodeByIdentifier(String)}, an
+     * identifier with a version label returns this version. Queries only
+     * return the latest version : each identifier of a previous version and
+     * each identifier not found by the queries (recently created node, node
+     * which does not exist or is not accessible) costs one extra request.
+     * 
+     * @param identifiers : list of node identifiers.
+     * @return Returns a list of the same size and order than identifiers. An
+     *         element is null if its node does not exist or is not accessible
+     *         by the current user.
+     * @throws AlfrescoServiceException : if network or internal problems occur
+     *             during the process.
+     */
+    List<Node> getNodesByIdentifiers(List<String> identifiers);
+
     /**
      * Lists all immediate child documents of the given context node </br>Note:
      * this could be a long list
@@ -288,6 +308,22 @@ public interface DocumentFolderService
      */
     ContentStream getContentStream(Document document);
 
+    /**
+     * Downloads the content for the given document from a byte offset. Used
+     * to resume an interrupted download. If the server doesn't support
+     * ranges, the whole content is requested and the bytes before the offset
+     * are skipped.
+     * 
+     * @param document : Document object
+     * @param offset : number of bytes already downloaded.
+     * @return the content stream starting at the offset. Its length is the
+     *         number of remaining bytes.
+     * @throws AlfrescoServiceException : if network or internal problems occur
+     *             during the process.
+     * @see org.alfresco.mobile.android.api.utils.PartialDownload
+     */
+    ContentStream getContentStream(Document document, long offset);
+
     /**
      * @param node
      * @return Returns a Permissions object representing the allowed actions for
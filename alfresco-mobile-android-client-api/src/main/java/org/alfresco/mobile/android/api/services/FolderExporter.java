@@ -0,0 +1,633 @@
+/*******************************************************************************
+ * Copyright (C) 2005-2012 Alfresco Software Limited.
+ * 
+ * This file is part of the Alfresco Mobile SDK.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ ******************************************************************************/
+package org.alfresco.mobile.android.api.services;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.GregorianCalendar;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.alfresco.mobile.android.api.exceptions.AlfrescoServiceException;
+import org.alfresco.mobile.android.api.exceptions.ErrorCodeRegistry;
+import org.alfresco.mobile.android.api.model.ContentStream;
+import org.alfresco.mobile.android.api.model.Document;
+import org.alfresco.mobile.android.api.model.Folder;
+import org.alfresco.mobile.android.api.model.Node;
+import org.alfresco.mobile.android.api.utils.IOUtils;
+import org.alfresco.mobile.android.api.utils.PartialDownload;
+
+/**
+ * Exports a folder and all its subfolders into a local directory. </br> The
+ * tree is walked breadth first, page by page, and documents are downloaded
+ * in parallel by a bounded number of threads while the walk goes on. </br> A
+ * document is not downloaded again if its local copy has the same size and
+ * modification date. As some file systems can't change the modification
+ * date of a file, the export keeps a manifest of the documents it
+ * downloaded inside the local directory : an export cancelled or
+ * interrupted is resumed by exporting the same folder into the same
+ * directory. </br> Downloads are written in a partial file renamed once
+ * complete, so a local file is never partially written. An interrupted
+ * download resumes where it stopped.
+ * 
+ * <pre>
+ * FolderExporter exporter = new FolderExporter(docfolderService, 3);
+ * FolderExporter.Report report = exporter.export(folder, localDirectory);
+ * </pre>
+ * 
+ * @author Jean Marie Pascal
+ * @see PartialDownload
+ */
+public class FolderExporter
+{
+    /** Default number of documents downloaded in parallel. */
+    public static final int DEFAULT_PARALLELISM = 3;
+
+    /** Default number of children requested per page. */
+    public static final int DEFAULT_PAGE_SIZE = 50;
+
+    /** Name of the manifest inside the local directory. */
+    public static final String MANIFEST_NAME = ".export-manifest";
+
+    private static final String SEPARATOR = "\t";
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final int KEEP_ALIVE = 30;
+
+    /**
+     * Receives progress of the export. Methods are called from the download
+     * threads.
+     */
+    public interface Listener
+    {
+        /**
+         * @param document : document being downloaded.
+         * @param bytesWritten : number of bytes of the document already
+         *            written.
+         * @param totalBytesWritten : number of bytes of all documents already
+         *            written.
+         */
+        void onProgress(Document document, long bytesWritten, long totalBytesWritten);
+
+        /**
+         * @param result : result of a document.
+         */
+        void onItemCompleted(Result result);
+    }
+
+    /** State of a document at the end of the export. */
+    public enum Status
+    {
+        DOWNLOADED, SKIPPED, FAILED, CANCELLED
+    }
+
+    /**
+     * Result of the export of one document.
+     */
+    public static class Result
+    {
+        private final Document document;
+
+        private final String path;
+
+        private final Status status;
+
+        private final Exception error;
+
+        Result(Document document, String path, Status status, Exception error)
+        {
+            this.document = document;
+            this.path = path;
+            this.status = status;
+            this.error = error;
+        }
+
+        public Document getDocument()
+        {
+            return document;
+        }
+
+        /**
+         * @return Returns the path of the local file relative to the local
+         *         directory.
+         */
+        public String getPath()
+        {
+            return path;
+        }
+
+        public Status getStatus()
+        {
+            return status;
+        }
+
+        /**
+         * @return Returns the reason of the failure or null.
+         */
+        public Exception getError()
+        {
+            return error;
+        }
+    }
+
+    /**
+     * Results of all documents of an export.
+     */
+    public static class Report
+    {
+        private final List<Result> results;
+
+        private final int folderCount;
+
+        private final long bytes;
+
+        private final long duration;
+
+        Report(List<Result> results, int folderCount, long bytes, long duration)
+        {
+            this.results = Collections.unmodifiableList(results);
+            this.folderCount = folderCount;
+            this.bytes = bytes;
+            this.duration = duration;
+        }
+
+        public List<Result> getResults()
+        {
+            return results;
+        }
+
+        /**
+         * @return Returns the number of documents with the specified status.
+         */
+        public int getCount(Status status)
+        {
+            int count = 0;
+            for (Result result : results)
+            {
+                if (result.getStatus() == status)
+                {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        /**
+         * @return Returns the number of folders walked, the exported folder
+         *         included.
+         */
+        public int getFolderCount()
+        {
+            return folderCount;
+        }
+
+        /**
+         * @return Returns the number of bytes downloaded.
+         */
+        public long getBytes()
+        {
+            return bytes;
+        }
+
+        /**
+         * @return Returns the duration of the whole export in milliseconds.
+         */
+        public long getDuration()
+        {
+            return duration;
+        }
+    }
+
+    private final DocumentFolderService docFolderService;
+
+    private final int parallelism;
+
+    private final int pageSize;
+
+    private Listener listener;
+
+    private volatile boolean cancelled;
+
+    private final AtomicLong totalBytesWritten = new AtomicLong();
+
+    /** Modification date and size of downloaded documents by identifier. */
+    private final Map<String, String> manifest = new HashMap<String, String>();
+
+    private Writer manifestWriter;
+
+    /**
+     * @param docFolderService : service used to list folders and download
+     *            documents.
+     * @param parallelism : maximum number of documents downloaded in
+     *            parallel.
+     * @param pageSize : number of children requested per page.
+     */
+    public FolderExporter(DocumentFolderService docFolderService, int parallelism, int pageSize)
+    {
+        if (docFolderService == null) { throw new IllegalArgumentException("docFolderService"); }
+        if (parallelism <= 0) { throw new IllegalArgumentException("parallelism <= 0"); }
+        if (pageSize <= 0) { throw new IllegalArgumentException("pageSize <= 0"); }
+        this.docFolderService = docFolderService;
+        this.parallelism = parallelism;
+        this.pageSize = pageSize;
+    }
+
+    public FolderExporter(DocumentFolderService docFolderService, int parallelism)
+    {
+        this(docFolderService, parallelism, DEFAULT_PAGE_SIZE);
+    }
+
+    public FolderExporter(DocumentFolderService docFolderService)
+    {
+        this(docFolderService, DEFAULT_PARALLELISM, DEFAULT_PAGE_SIZE);
+    }
+
+    public void setListener(Listener listener)
+    {
+        this.listener = listener;
+    }
+
+    /**
+     * Stops the walk and the downloads in progress. Documents not yet
+     * downloaded are reported as cancelled. Bytes already downloaded are kept
+     * in a {@link PartialDownload#PART_SUFFIX .part} file : the next export of
+     * the same folder into the same directory resumes the download.
+     */
+    public void cancel()
+    {
+        cancelled = true;
+    }
+
+    // ////////////////////////////////////////////////////
+    // EXPORT
+    // ////////////////////////////////////////////////////
+    /**
+     * Exports the content of a folder into a local directory. Blocks until
+     * all documents are downloaded or the export is cancelled.
+     * 
+     * @param folder : folder to export.
+     * @param directory : local directory. Created if it doesn't exist. The
+     *            folder itself is not created, only its content.
+     * @return Returns the result of each document.
+     */
+    public Report export(Folder folder, File directory)
+    {
+        if (folder == null) { throw new IllegalArgumentException("folder"); }
+        if (directory == null) { throw new IllegalArgumentException("directory"); }
+        if (!directory.isDirectory() && !directory.mkdirs()) { throw new AlfrescoServiceException(
+                ErrorCodeRegistry.GENERAL_IO, "Unable to create " + directory); }
+
+        long start = System.currentTimeMillis();
+        cancelled = false;
+        totalBytesWritten.set(0);
+        openManifest(directory);
+
+        List<Result> results = new ArrayList<Result>();
+        List<Future<Result>> futures = new ArrayList<Future<Result>>();
+        ThreadPoolExecutor executor = createExecutor();
+        int folderCount = 0;
+        try
+        {
+            LinkedList<Folder> folders = new LinkedList<Folder>();
+            LinkedList<File> dirs = new LinkedList<File>();
+            folders.add(folder);
+            dirs.add(directory);
+            while (!folders.isEmpty() && !cancelled)
+            {
+                Folder current = folders.removeFirst();
+                File dir = dirs.removeFirst();
+                folderCount++;
+                PagingIterator<Node> it = PagingIterator.children(docFolderService, current, pageSize, true);
+                try
+                {
+                    while (!cancelled && it.hasNext())
+                    {
+                        Node node = it.next();
+                        File file = new File(dir, node.getName());
+                        if (node.isFolder())
+                        {
+                            file.mkdirs();
+                            folders.add((Folder) node);
+                            dirs.add(file);
+                        }
+                        else if (node.isDocument())
+                        {
+                            Document doc = (Document) node;
+                            String path = getRelativePath(directory, file);
+                            if (isUpToDate(doc, file))
+                            {
+                                Result result = new Result(doc, path, Status.SKIPPED, null);
+                                results.add(result);
+                                notifyCompleted(result);
+                            }
+                            else
+                            {
+                                futures.add(executor.submit(new DownloadTask(doc, file, path)));
+                            }
+                        }
+                    }
+                }
+                finally
+                {
+                    it.close();
+                }
+            }
+            collect(futures, results);
+            return new Report(results, folderCount, totalBytesWritten.get(), System.currentTimeMillis() - start);
+        }
+        finally
+        {
+            executor.shutdownNow();
+            closeManifest();
+        }
+    }
+
+    // ////////////////////////////////////////////////////
+    // MANIFEST
+    // ////////////////////////////////////////////////////
+    /**
+     * Manifest entry of a document. Any change of the document on the server
+     * changes its entry.
+     */
+    private static String createEntry(Document doc)
+    {
+        GregorianCalendar modifiedAt = doc.getModifiedAt();
+        return ((modifiedAt != null) ? modifiedAt.getTimeInMillis() : 0) + SEPARATOR + doc.getContentStreamLength();
+    }
+
+    private boolean isUpToDate(Document doc, File file)
+    {
+        if (!file.isFile()) { return false; }
+        long length = Math.max(doc.getContentStreamLength(), 0);
+        if (file.length() != length) { return false; }
+
+        GregorianCalendar modifiedAt = doc.getModifiedAt();
+        if (modifiedAt != null && file.lastModified() == modifiedAt.getTimeInMillis()) { return true; }
+        synchronized (manifest)
+        {
+            return createEntry(doc).equals(manifest.get(doc.getIdentifier()));
+        }
+    }
+
+    private void openManifest(File directory)
+    {
+        File file = new File(directory, MANIFEST_NAME);
+        synchronized (manifest)
+        {
+            manifest.clear();
+            if (file.isFile())
+            {
+                BufferedReader reader = null;
+                try
+                {
+                    reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+                    String line;
+                    while ((line = reader.readLine()) != null)
+                    {
+                        // identifier, modification date, size
+                        int index = line.indexOf(SEPARATOR);
+                        if (index > 0)
+                        {
+                            manifest.put(line.substring(0, index), line.substring(index + 1));
+                        }
+                    }
+                }
+                catch (IOException e)
+                {
+                    // A corrupted manifest only means more downloads.
+                }
+                finally
+                {
+                    IOUtils.closeStream(reader);
+                }
+            }
+
+            try
+            {
+                manifestWriter = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true), "UTF-8"));
+            }
+            catch (IOException e)
+            {
+                throw new AlfrescoServiceException(ErrorCodeRegistry.GENERAL_IO, e);
+            }
+        }
+    }
+
+    private void addToManifest(Document doc)
+    {
+        String entry = createEntry(doc);
+        synchronized (manifest)
+        {
+            manifest.put(doc.getIdentifier(), entry);
+            if (manifestWriter == null) { return; }
+            try
+            {
+                manifestWriter.write(doc.getIdentifier() + SEPARATOR + entry + "\n");
+                manifestWriter.flush();
+            }
+            catch (IOException e)
+            {
+                // The document will be checked by date and size only.
+            }
+        }
+    }
+
+    private void closeManifest()
+    {
+        synchronized (manifest)
+        {
+            IOUtils.closeStream(manifestWriter);
+            manifestWriter = null;
+        }
+    }
+
+    // ////////////////////////////////////////////////////
+    // INTERNAL
+    // ////////////////////////////////////////////////////
+    private ThreadPoolExecutor createExecutor()
+    {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(parallelism, parallelism, KEEP_ALIVE, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory()
+                {
+                    private final AtomicInteger count = new AtomicInteger(1);
+
+                    public Thread newThread(Runnable r)
+                    {
+                        Thread thread = new Thread(r, "FolderExporter #" + count.getAndIncrement());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private void collect(List<Future<Result>> futures, List<Result> results)
+    {
+        for (Future<Result> future : futures)
+        {
+            try
+            {
+                results.add(future.get());
+            }
+            catch (InterruptedException e)
+            {
+                cancelled = true;
+                Thread.currentThread().interrupt();
+            }
+            catch (ExecutionException e)
+            {
+                // DownloadTask catches all exceptions.
+                throw new AlfrescoServiceException(ErrorCodeRegistry.GENERAL_GENERIC, e.getCause());
+            }
+        }
+    }
+
+    private void notifyCompleted(Result result)
+    {
+        Listener l = listener;
+        if (l != null)
+        {
+            l.onItemCompleted(result);
+        }
+    }
+
+    private static String getRelativePath(File root, File file)
+    {
+        String path = file.getAbsolutePath().substring(root.getAbsolutePath().length());
+        return path.replace(File.separatorChar, '/');
+    }
+
+    /**
+     * Downloads one document into a partial file renamed once complete.
+     */
+    private class DownloadTask implements Callable<Result>
+    {
+        private final Document document;
+
+        private final File file;
+
+        private final String path;
+
+        DownloadTask(Document document, File file, String path)
+        {
+            this.document = document;
+            this.file = file;
+            this.path = path;
+        }
+
+        public Result call()
+        {
+            Result result;
+            if (cancelled)
+            {
+                result = new Result(document, path, Status.CANCELLED, null);
+            }
+            else
+            {
+                // An interrupted download is kept to be resumed.
+                PartialDownload download = new PartialDownload(document, file);
+                try
+                {
+                    if (download(download))
+                    {
+                        download.complete();
+                        GregorianCalendar modifiedAt = document.getModifiedAt();
+                        if (modifiedAt != null)
+                        {
+                            file.setLastModified(modifiedAt.getTimeInMillis());
+                        }
+                        addToManifest(document);
+                        result = new Result(document, path, Status.DOWNLOADED, null);
+                    }
+                    else
+                    {
+                        result = new Result(document, path, Status.CANCELLED, null);
+                    }
+                }
+                catch (Exception e)
+                {
+                    result = new Result(document, path, Status.FAILED, e);
+                }
+            }
+            notifyCompleted(result);
+            return result;
+        }
+
+        /**
+         * @return false if the export has been cancelled during the download.
+         */
+        private boolean download(PartialDownload download) throws IOException
+        {
+            long offset = download.getOffset();
+            ContentStream contentStream = docFolderService.getContentStream(document, offset);
+            InputStream in = (contentStream != null) ? contentStream.getInputStream() : null;
+            OutputStream out = null;
+            try
+            {
+                out = download.openOutputStream(offset);
+                if (in == null) { return true; }
+
+                byte[] buffer = new byte[BUFFER_SIZE];
+                long bytesWritten = offset;
+                int count;
+                while ((count = in.read(buffer)) != -1)
+                {
+                    if (cancelled) { return false; }
+                    out.write(buffer, 0, count);
+                    bytesWritten += count;
+                    long total = totalBytesWritten.addAndGet(count);
+                    Listener l = listener;
+                    if (l != null)
+                    {
+                        l.onProgress(document, bytesWritten, total);
+                    }
+                }
+                return true;
+            }
+            finally
+            {
+                IOUtils.closeStream(in);
+                IOUtils.closeStream(out);
+            }
+        }
+    }
+}
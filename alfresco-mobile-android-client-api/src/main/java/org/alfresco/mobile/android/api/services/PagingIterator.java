@@ -0,0 +1,517 @@
+/*******************************************************************************
+ * Copyright (C) 2005-2012 Alfresco Software Limited.
+ * 
+ * This file is part of the Alfresco Mobile SDK.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ ******************************************************************************/
+package org.alfresco.mobile.android.api.services;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.alfresco.mobile.android.api.exceptions.AlfrescoServiceException;
+import org.alfresco.mobile.android.api.exceptions.ErrorCodeRegistry;
+import org.alfresco.mobile.android.api.model.ActivityEntry;
+import org.alfresco.mobile.android.api.model.Comment;
+import org.alfresco.mobile.android.api.model.Document;
+import org.alfresco.mobile.android.api.model.Folder;
+import org.alfresco.mobile.android.api.model.KeywordSearchOptions;
+import org.alfresco.mobile.android.api.model.ListingContext;
+import org.alfresco.mobile.android.api.model.Node;
+import org.alfresco.mobile.android.api.model.PagingResult;
+import org.alfresco.mobile.android.api.model.SearchLanguage;
+import org.alfresco.mobile.android.api.model.Site;
+import org.alfresco.mobile.android.api.model.Tag;
+
+/**
+ * Iterates over all items of a paged listing. Pages are requested only when
+ * the items of the previous page have been consumed, so only one page (two
+ * with read ahead) is kept in memory whatever the size of the listing.
+ * </br> The skip count is advanced by the number of items the server really
+ * returned and the iteration stops on the first empty page or when the
+ * server reports no more items and the total number of items is reached.
+ * </br> With read ahead, the next page is requested in background while the
+ * current one is consumed. In this case the iterator must be closed if it's
+ * not iterated until the end.
+ * 
+ * <pre>
+ * PagingIterator&lt;Node&gt; it = PagingIterator.children(docfolderService, folder, 100, true);
+ * try
+ * {
+ *     while (it.hasNext())
+ *     {
+ *         process(it.next());
+ *     }
+ * }
+ * finally
+ * {
+ *     it.close();
+ * }
+ * </pre>
+ * 
+ * @author Jean Marie Pascal
+ */
+public class PagingIterator<T> implements Iterator<T>
+{
+    /** Loads one page of a listing. */
+    public interface PageLoader<T>
+    {
+        /**
+         * @param listingContext : skipCount, maxItems and sorting of the page.
+         * @return the page.
+         */
+        PagingResult<T> loadPage(ListingContext listingContext);
+    }
+
+    private static final ExecutorService READ_AHEAD_EXECUTOR = Executors.newCachedThreadPool(new ThreadFactory()
+    {
+        public Thread newThread(Runnable r)
+        {
+            Thread thread = new Thread(r, "PagingIterator");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private final PageLoader<T> loader;
+
+    private final int pageSize;
+
+    private final boolean readAhead;
+
+    private final String sortProperty;
+
+    private final boolean sortAscending;
+
+    private List<T> page;
+
+    private int index;
+
+    private int skipCount;
+
+    private boolean hasMorePages = true;
+
+    private Future<PagingResult<T>> nextPage;
+
+    private volatile int pageCount;
+
+    /**
+     * @param loader : loads the pages.
+     * @param pageSize : number of items requested per page.
+     * @param readAhead : true to request the next page in background.
+     * @param listingContext : sorting and first skip count to apply. Can be
+     *            null.
+     */
+    public PagingIterator(PageLoader<T> loader, int pageSize, boolean readAhead, ListingContext listingContext)
+    {
+        if (loader == null) { throw new IllegalArgumentException("loader"); }
+        if (pageSize <= 0) { throw new IllegalArgumentException("pageSize <= 0"); }
+        this.loader = loader;
+        this.pageSize = pageSize;
+        this.readAhead = readAhead;
+        if (listingContext != null)
+        {
+            this.sortProperty = listingContext.getSortProperty();
+            this.sortAscending = listingContext.isSortAscending();
+            this.skipCount = listingContext.getSkipCount();
+        }
+        else
+        {
+            this.sortProperty = null;
+            this.sortAscending = true;
+        }
+    }
+
+    public PagingIterator(PageLoader<T> loader, int pageSize, boolean readAhead)
+    {
+        this(loader, pageSize, readAhead, null);
+    }
+
+    // ////////////////////////////////////////////////////
+    // ITERATOR
+    // ////////////////////////////////////////////////////
+    public boolean hasNext()
+    {
+        while (page == null || index >= page.size())
+        {
+            if (!hasMorePages) { return false; }
+            fetch();
+        }
+        return true;
+    }
+
+    public T next()
+    {
+        if (!hasNext()) { throw new NoSuchElementException(); }
+        T item = page.get(index);
+        // Release the reference as soon as the item is consumed.
+        page.set(index++, null);
+        return item;
+    }
+
+    public void remove()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Cancels the page requested in background and ends the iteration.
+     */
+    public void close()
+    {
+        hasMorePages = false;
+        page = null;
+        if (nextPage != null)
+        {
+            nextPage.cancel(true);
+            nextPage = null;
+        }
+    }
+
+    /**
+     * @return Returns the number of pages requested to the server.
+     */
+    public int getPageCount()
+    {
+        return pageCount;
+    }
+
+    // ////////////////////////////////////////////////////
+    // INTERNAL
+    // ////////////////////////////////////////////////////
+    private void fetch()
+    {
+        PagingResult<T> result;
+        if (nextPage != null)
+        {
+            result = await(nextPage);
+            nextPage = null;
+        }
+        else
+        {
+            result = load(skipCount);
+        }
+
+        List<T> items = (result != null) ? result.getList() : null;
+        if (items == null || items.isEmpty())
+        {
+            close();
+            return;
+        }
+
+        // Pages returned by services can be views of a shared list.
+        page = new ArrayList<T>(items);
+        index = 0;
+        skipCount += page.size();
+        hasMorePages = result.hasMoreItems() || (result.getTotalItems() > 0 && skipCount < result.getTotalItems());
+
+        if (readAhead && hasMorePages)
+        {
+            final int nextSkipCount = skipCount;
+            nextPage = READ_AHEAD_EXECUTOR.submit(new Callable<PagingResult<T>>()
+            {
+                public PagingResult<T> call()
+                {
+                    return load(nextSkipCount);
+                }
+            });
+        }
+    }
+
+    private PagingResult<T> load(int skip)
+    {
+        pageCount++;
+        return loader.loadPage(new ListingContext(sortProperty, pageSize, skip, sortAscending));
+    }
+
+    private PagingResult<T> await(Future<PagingResult<T>> future)
+    {
+        try
+        {
+            return future.get();
+        }
+        catch (InterruptedException e)
+        {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new AlfrescoServiceException(ErrorCodeRegistry.GENERAL_GENERIC, e);
+        }
+        catch (ExecutionException e)
+        {
+            if (e.getCause() instanceof RuntimeException) { throw (RuntimeException) e.getCause(); }
+            throw new AlfrescoServiceException(ErrorCodeRegistry.GENERAL_GENERIC, e.getCause());
+        }
+    }
+
+    // ////////////////////////////////////////////////////
+    // DOCUMENT FOLDER SERVICE
+    // ////////////////////////////////////////////////////
+    /**
+     * Iterates over the children of a folder.
+     * 
+     * @see DocumentFolderService#getChildren(Folder, ListingContext)
+     */
+    public static PagingIterator<Node> children(final DocumentFolderService service, final Folder folder,
+            int pageSize, boolean readAhead)
+    {
+        return new PagingIterator<Node>(new PageLoader<Node>()
+        {
+            public PagingResult<Node> loadPage(ListingContext listingContext)
+            {
+                return service.getChildren(folder, listingContext);
+            }
+        }, pageSize, readAhead);
+    }
+
+    /**
+     * Iterates over the documents of a folder.
+     * 
+     * @see DocumentFolderService#getDocuments(Folder, ListingContext)
+     */
+    public static PagingIterator<Document> documents(final DocumentFolderService service, final Folder folder,
+            int pageSize, boolean readAhead)
+    {
+        return new PagingIterator<Document>(new PageLoader<Document>()
+        {
+            public PagingResult<Document> loadPage(ListingContext listingContext)
+            {
+                return service.getDocuments(folder, listingContext);
+            }
+        }, pageSize, readAhead);
+    }
+
+    /**
+     * Iterates over the subfolders of a folder.
+     * 
+     * @see DocumentFolderService#getFolders(Folder, ListingContext)
+     */
+    public static PagingIterator<Folder> folders(final DocumentFolderService service, final Folder folder,
+            int pageSize, boolean readAhead)
+    {
+        return new PagingIterator<Folder>(new PageLoader<Folder>()
+        {
+            public PagingResult<Folder> loadPage(ListingContext listingContext)
+            {
+                return service.getFolders(folder, listingContext);
+            }
+        }, pageSize, readAhead);
+    }
+
+    // ////////////////////////////////////////////////////
+    // SEARCH SERVICE
+    // ////////////////////////////////////////////////////
+    /**
+     * Iterates over the results of a query.
+     * 
+     * @see SearchService#search(String, SearchLanguage, ListingContext)
+     */
+    public static PagingIterator<Node> search(final SearchService service, final String statement,
+            final SearchLanguage language, int pageSize, boolean readAhead)
+    {
+        return new PagingIterator<Node>(new PageLoader<Node>()
+        {
+            public PagingResult<Node> loadPage(ListingContext listingContext)
+            {
+                return service.search(statement, language, listingContext);
+            }
+        }, pageSize, readAhead);
+    }
+
+    /**
+     * Iterates over the results of a keyword search.
+     * 
+     * @see SearchService#keywordSearch(String, KeywordSearchOptions,
+     *      ListingContext)
+     */
+    public static PagingIterator<Node> keywordSearch(final SearchService service, final String keywords,
+            final KeywordSearchOptions options, int pageSize, boolean readAhead)
+    {
+        return new PagingIterator<Node>(new PageLoader<Node>()
+        {
+            public PagingResult<Node> loadPage(ListingContext listingContext)
+            {
+                return service.keywordSearch(keywords, options, listingContext);
+            }
+        }, pageSize, readAhead);
+    }
+
+    // ////////////////////////////////////////////////////
+    // COMMENT SERVICE
+    // ////////////////////////////////////////////////////
+    /**
+     * Iterates over the comments of a node.
+     * 
+     * @see CommentService#getComments(Node, ListingContext)
+     */
+    public static PagingIterator<Comment> comments(final CommentService service, final Node node, int pageSize,
+            boolean readAhead)
+    {
+        return new PagingIterator<Comment>(new PageLoader<Comment>()
+        {
+            public PagingResult<Comment> loadPage(ListingContext listingContext)
+            {
+                return service.getComments(node, listingContext);
+            }
+        }, pageSize, readAhead);
+    }
+
+    // ////////////////////////////////////////////////////
+    // SITE SERVICE
+    // ////////////////////////////////////////////////////
+    /**
+     * Iterates over all sites available.
+     * 
+     * @see SiteService#getAllSites(ListingContext)
+     */
+    public static PagingIterator<Site> allSites(final SiteService service, int pageSize, boolean readAhead)
+    {
+        return new PagingIterator<Site>(new PageLoader<Site>()
+        {
+            public PagingResult<Site> loadPage(ListingContext listingContext)
+            {
+                return service.getAllSites(listingContext);
+            }
+        }, pageSize, readAhead);
+    }
+
+    /**
+     * Iterates over the sites the current user is member of.
+     * 
+     * @see SiteService#getSites(ListingContext)
+     */
+    public static PagingIterator<Site> sites(final SiteService service, int pageSize, boolean readAhead)
+    {
+        return new PagingIterator<Site>(new PageLoader<Site>()
+        {
+            public PagingResult<Site> loadPage(ListingContext listingContext)
+            {
+                return service.getSites(listingContext);
+            }
+        }, pageSize, readAhead);
+    }
+
+    /**
+     * Iterates over the favorite sites of the current user.
+     * 
+     * @see SiteService#getFavoriteSites(ListingContext)
+     */
+    public static PagingIterator<Site> favoriteSites(final SiteService service, int pageSize, boolean readAhead)
+    {
+        return new PagingIterator<Site>(new PageLoader<Site>()
+        {
+            public PagingResult<Site> loadPage(ListingContext listingContext)
+            {
+                return service.getFavoriteSites(listingContext);
+            }
+        }, pageSize, readAhead);
+    }
+
+    // ////////////////////////////////////////////////////
+    // ACTIVITY STREAM SERVICE
+    // ////////////////////////////////////////////////////
+    /**
+     * Iterates over the activity stream of the current user.
+     * 
+     * @see ActivityStreamService#getActivityStream(ListingContext)
+     */
+    public static PagingIterator<ActivityEntry> activityStream(final ActivityStreamService service, int pageSize,
+            boolean readAhead)
+    {
+        return new PagingIterator<ActivityEntry>(new PageLoader<ActivityEntry>()
+        {
+            public PagingResult<ActivityEntry> loadPage(ListingContext listingContext)
+            {
+                return service.getActivityStream(listingContext);
+            }
+        }, pageSize, readAhead);
+    }
+
+    /**
+     * Iterates over the activity stream of a user.
+     * 
+     * @see ActivityStreamService#getActivityStream(String, ListingContext)
+     */
+    public static PagingIterator<ActivityEntry> activityStream(final ActivityStreamService service,
+            final String personIdentifier, int pageSize, boolean readAhead)
+    {
+        return new PagingIterator<ActivityEntry>(new PageLoader<ActivityEntry>()
+        {
+            public PagingResult<ActivityEntry> loadPage(ListingContext listingContext)
+            {
+                return service.getActivityStream(personIdentifier, listingContext);
+            }
+        }, pageSize, readAhead);
+    }
+
+    /**
+     * Iterates over the activity stream of a site.
+     * 
+     * @see ActivityStreamService#getSiteActivityStream(String, ListingContext)
+     */
+    public static PagingIterator<ActivityEntry> siteActivityStream(final ActivityStreamService service,
+            final String siteName, int pageSize, boolean readAhead)
+    {
+        return new PagingIterator<ActivityEntry>(new PageLoader<ActivityEntry>()
+        {
+            public PagingResult<ActivityEntry> loadPage(ListingContext listingContext)
+            {
+                return service.getSiteActivityStream(siteName, listingContext);
+            }
+        }, pageSize, readAhead);
+    }
+
+    // ////////////////////////////////////////////////////
+    // TAGGING SERVICE
+    // ////////////////////////////////////////////////////
+    /**
+     * Iterates over all tags of the repository.
+     * 
+     * @see TaggingService#getAllTags(ListingContext)
+     */
+    public static PagingIterator<Tag> allTags(final TaggingService service, int pageSize, boolean readAhead)
+    {
+        return new PagingIterator<Tag>(new PageLoader<Tag>()
+        {
+            public PagingResult<Tag> loadPage(ListingContext listingContext)
+            {
+                return service.getAllTags(listingContext);
+            }
+        }, pageSize, readAhead);
+    }
+
+    /**
+     * Iterates over the tags of a node.
+     * 
+     * @see TaggingService#getTags(Node, ListingContext)
+     */
+    public static PagingIterator<Tag> tags(final TaggingService service, final Node node, int pageSize,
+            boolean readAhead)
+    {
+        return new PagingIterator<Tag>(new PageLoader<Tag>()
+        {
+            public PagingResult<Tag> loadPage(ListingContext listingContext)
+            {
+                return service.getTags(node, listingContext);
+            }
+        }, pageSize, readAhead);
+    }
+}
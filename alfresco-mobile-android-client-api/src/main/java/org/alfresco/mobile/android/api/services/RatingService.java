@@ -17,7 +17,11 @@
  ******************************************************************************/
 package org.alfresco.mobile.android.api.services;
 
+import java.util.List;
+import java.util.Map;
+
 import org.alfresco.mobile.android.api.model.Node;
+import org.alfresco.mobile.android.api.model.RatingSummary;
 
 /**
  * The RatingsService can be used to manage like (as ratings) on any content
@@ -64,4 +68,51 @@ public interface RatingService
      */
     boolean isLiked(Node node);
 
+    /**
+     * Retrieves the number of likes and the like of the current user in one
+     * request. </br> The summary is kept by the service for a short time and
+     * discarded when the node is liked or unliked by the service.
+     * 
+     * @param node : Node object (Folder or Document).
+     * @return Returns the like ratings of the node.
+     * @throws AlfrescoServiceException : if network or internal problems occur
+     *             during the process.
+     */
+    RatingSummary getRatingSummary(Node node);
+
+    /**
+     * Retrieves the rating summaries of several nodes. Summaries not kept by
+     * the service are requested in parallel.
+     * 
+     * @param nodes : list of Node objects (Folder or Document).
+     * @return Returns the like ratings by node identifier.
+     * @throws AlfrescoServiceException : if network or internal problems occur
+     *             during the process.
+     * @see #getRatingSummary(Node)
+     */
+    Map<String, RatingSummary> getRatingSummaries(List<Node> nodes);
+
+    /**
+     * Retrieves the number of likes of several nodes. The ratings of the
+     * nodes are requested in parallel.
+     * 
+     * @param nodes : list of Node objects (Folder or Document).
+     * @return Returns the number of likes by node identifier.
+     * @throws AlfrescoServiceException : if network or internal problems occur
+     *             during the process.
+     */
+    Map<String, Integer> getLikeCounts(List<Node> nodes);
+
+    /**
+     * Determine which nodes the current user has liked. The ratings of the
+     * nodes are requested in parallel.
+     * 
+     * @param nodes : list of Node objects (Folder or Document).
+     * @return Returns true by node identifier if the current user has liked
+     *         the node.
+     * @throws AlfrescoServiceException : if network or internal problems occur
+     *             during the process.
+     */
+    Map<String, Boolean> getLikedStates(List<Node> nodes);
+
 }
@@ -17,17 +17,30 @@
  ******************************************************************************/
 package org.alfresco.mobile.android.api.services.impl;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Serializable;
 import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.alfresco.mobile.android.api.constants.ContentModel;
 import org.alfresco.mobile.android.api.constants.OnPremiseConstant;
@@ -40,9 +53,16 @@ import org.alfresco.mobile.android.api.model.ListingContext;
 import org.alfresco.mobile.android.api.model.Node;
 import org.alfresco.mobile.android.api.model.PagingResult;
 import org.alfresco.mobile.android.api.model.Permissions;
+import org.alfresco.mobile.android.api.model.Property;
+import org.alfresco.mobile.android.api.model.PropertyType;
+import org.alfresco.mobile.android.api.model.impl.ContentFileImpl;
 import org.alfresco.mobile.android.api.model.impl.ContentStreamImpl;
+import org.alfresco.mobile.android.api.model.impl.DocumentImpl;
+import org.alfresco.mobile.android.api.model.impl.FolderImpl;
+import org.alfresco.mobile.android.api.model.impl.NodeImpl;
 import org.alfresco.mobile.android.api.model.impl.PagingResultImpl;
 import org.alfresco.mobile.android.api.model.impl.PermissionsImpl;
+import org.alfresco.mobile.android.api.model.impl.PropertyImpl;
 import org.alfresco.mobile.android.api.model.impl.RepositoryVersionHelper;
 import org.alfresco.mobile.android.api.services.DocumentFolderService;
 import org.alfresco.mobile.android.api.session.AlfrescoSession;
@@ -51,7 +71,9 @@ import org.alfresco.mobile.android.api.utils.IOUtils;
 import org.alfresco.mobile.android.api.utils.JsonDataWriter;
 import org.alfresco.mobile.android.api.utils.NodeRefUtils;
 import org.alfresco.mobile.android.api.utils.OnPremiseUrlRegistry;
+import org.alfresco.mobile.android.api.utils.PartialDownload;
 import org.alfresco.mobile.android.api.utils.messages.Messagesl18n;
+import org.apache.chemistry.opencmis.client.api.CmisObject;
 import org.apache.chemistry.opencmis.client.api.ObjectFactory;
 import org.apache.chemistry.opencmis.client.api.OperationContext;
 import org.apache.chemistry.opencmis.client.api.Session;
@@ -65,14 +87,25 @@ import org.apache.chemistry.opencmis.commons.data.ContentStream;
 import org.apache.chemistry.opencmis.commons.data.ObjectData;
 import org.apache.chemistry.opencmis.commons.data.ObjectInFolderData;
 import org.apache.chemistry.opencmis.commons.data.ObjectInFolderList;
+import org.apache.chemistry.opencmis.commons.data.ObjectList;
+import org.apache.chemistry.opencmis.commons.data.Properties;
+import org.apache.chemistry.opencmis.commons.data.PropertyBoolean;
+import org.apache.chemistry.opencmis.commons.data.PropertyData;
+import org.apache.chemistry.opencmis.commons.data.PropertyDateTime;
+import org.apache.chemistry.opencmis.commons.data.PropertyDecimal;
+import org.apache.chemistry.opencmis.commons.data.PropertyId;
+import org.apache.chemistry.opencmis.commons.data.PropertyInteger;
+import org.apache.chemistry.opencmis.commons.data.PropertyString;
 import org.apache.chemistry.opencmis.commons.enums.BaseTypeId;
 import org.apache.chemistry.opencmis.commons.enums.Updatability;
 import org.apache.chemistry.opencmis.commons.enums.VersioningState;
 import org.apache.chemistry.opencmis.commons.exceptions.CmisConstraintException;
 import org.apache.chemistry.opencmis.commons.exceptions.CmisInvalidArgumentException;
 import org.apache.chemistry.opencmis.commons.exceptions.CmisObjectNotFoundException;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisPermissionDeniedException;
 import org.apache.chemistry.opencmis.commons.impl.UrlBuilder;
 import org.apache.chemistry.opencmis.commons.impl.json.JSONObject;
+import org.apache.chemistry.opencmis.commons.spi.DiscoveryService;
 import org.apache.chemistry.opencmis.commons.spi.Holder;
 import org.apache.chemistry.opencmis.commons.spi.NavigationService;
 import org.apache.chemistry.opencmis.commons.spi.ObjectService;
@@ -273,6 +306,90 @@ public abstract class AbstractDocumentFolderServiceImpl extends AlfrescoService
         return null;
     }
 
+    /** {@inheritDoc} */
+    public List<Node> getNodesByIdentifiers(List<String> identifiers)
+    {
+        if (isObjectNull(identifiers)) { throw new IllegalArgumentException(String.format(
+                Messagesl18n.getString("ErrorCodeRegistry.GENERAL_INVALID_ARG_NULL"), "identifiers")); }
+
+        try
+        {
+            // Queries return the latest version : each node is queried once,
+            // whatever its version label.
+            Set<String> requestedIdentifiers = new LinkedHashSet<String>(identifiers.size());
+            Set<String> uniqueIdentifiers = new LinkedHashSet<String>(identifiers.size());
+            for (String identifier : identifiers)
+            {
+                if (!isStringNull(identifier))
+                {
+                    requestedIdentifiers.add(identifier);
+                    uniqueIdentifiers.add(NodeRefUtils.getCleanIdentifier(identifier));
+                }
+            }
+
+            int batchSize = getBatchSize();
+            List<Future<Map<String, Node>>> batches = new ArrayList<Future<Map<String, Node>>>();
+            List<String> batch = new ArrayList<String>(batchSize);
+            for (String identifier : uniqueIdentifiers)
+            {
+                batch.add(identifier);
+                if (batch.size() == batchSize)
+                {
+                    batches.add(submitBatch(batch));
+                    batch = new ArrayList<String>(batchSize);
+                }
+            }
+            if (!batch.isEmpty())
+            {
+                batches.add(submitBatch(batch));
+            }
+
+            Map<String, Node> latestNodes = new HashMap<String, Node>(uniqueIdentifiers.size());
+            for (Future<Map<String, Node>> future : batches)
+            {
+                latestNodes.putAll(getBatchResult(future));
+            }
+
+            // Query results may lag behind the repository and an identifier
+            // can request a previous version : those nodes are requested
+            // directly, like getNodeByIdentifier does.
+            Map<String, Node> nodes = new HashMap<String, Node>(requestedIdentifiers.size());
+            List<Future<Map<String, Node>>> lookups = new ArrayList<Future<Map<String, Node>>>();
+            for (String identifier : requestedIdentifiers)
+            {
+                Node node = latestNodes.get(NodeRefUtils.getCleanIdentifier(identifier));
+                if (node != null && isSameVersion(identifier, node.getIdentifier()))
+                {
+                    nodes.put(identifier, node);
+                }
+                else
+                {
+                    lookups.add(submitLookup(identifier));
+                }
+            }
+            for (Future<Map<String, Node>> future : lookups)
+            {
+                nodes.putAll(getBatchResult(future));
+            }
+
+            List<Node> result = new ArrayList<Node>(identifiers.size());
+            for (String identifier : identifiers)
+            {
+                result.add(isStringNull(identifier) ? null : nodes.get(identifier));
+            }
+            return result;
+        }
+        catch (AlfrescoServiceException e)
+        {
+            throw e;
+        }
+        catch (Exception e)
+        {
+            convertException(e);
+        }
+        return null;
+    }
+
     /** {@inheritDoc} */
     public Folder getRootFolder()
     {
@@ -416,12 +533,18 @@ public abstract class AbstractDocumentFolderServiceImpl extends AlfrescoService
             ObjectService objectService = cmisSession.getBinding().getObjectService();
             ObjectFactory objectFactory = cmisSession.getObjectFactory();
 
-            String newId = objectService.createFolder(session.getRepositoryInfo().getIdentifier(),
-                    objectFactory.convertProperties(tmpProperties, null, CREATE_UPDATABILITY),
+            Properties cmisProperties = objectFactory.convertProperties(tmpProperties, null, CREATE_UPDATABILITY);
+            String newId = objectService.createFolder(session.getRepositoryInfo().getIdentifier(), cmisProperties,
                     parentFolder.getIdentifier(), null, null, null, null);
 
             if (newId == null) { return null; }
 
+            if (isLazyRefresh())
+            {
+                return (Folder) createPendingNode(newId, newId, BaseTypeId.CMIS_FOLDER,
+                        getKnownProperties(cmisProperties), null);
+            }
+
             n = getChildById(newId);
 
             if (!(n instanceof Folder)) { throw new AlfrescoServiceException(
@@ -455,6 +578,7 @@ public abstract class AbstractDocumentFolderServiceImpl extends AlfrescoService
             }
 
             tmpProperties.put(ContentModel.PROP_NAME, documentName);
+            boolean tagged = tmpProperties.containsKey(ContentModel.PROP_TAGS);
 
             convertProps(tmpProperties, BaseTypeId.CMIS_DOCUMENT.value());
 
@@ -468,27 +592,60 @@ public abstract class AbstractDocumentFolderServiceImpl extends AlfrescoService
                         IOUtils.getContentFileInputStream(contentFile));
             }
 
-            String newId = objectService.createDocument(session.getRepositoryInfo().getIdentifier(),
-                    objectFactory.convertProperties(tmpProperties, null, CREATE_UPDATABILITY),
+            Properties cmisProperties = objectFactory.convertProperties(tmpProperties, null, CREATE_UPDATABILITY);
+            String newId = objectService.createDocument(session.getRepositoryInfo().getIdentifier(), cmisProperties,
                     parentFolder.getIdentifier(), c, VersioningState.MAJOR, null, null, null, null);
 
-            // EXTRACT METADATA + Generate Thumbnails
+            if (newId == null) { return null; }
+
+            // EXTRACT METADATA + Generate Thumbnails in background
             if (RepositoryVersionHelper.isAlfrescoProduct(session))
             {
-                Log.d("ExtractMetadata", "ExtractMetadata");
+                final String identifier = newId;
                 if (session.getParameter(AlfrescoSession.EXTRACT_METADATA) != null
                         && (Boolean) session.getParameter(AlfrescoSession.EXTRACT_METADATA))
                 {
-                    extractMetadata(newId);
+                    getPostProcessingQueue().enqueue(identifier, PostProcessingQueue.EXTRACT_METADATA,
+                            new PostProcessingQueue.Request()
+                            {
+                                public int execute()
+                                {
+                                    return extractMetadata(identifier);
+                                }
+                            });
                 }
                 if (session.getParameter(AlfrescoSession.CREATE_THUMBNAIL) != null
                         && (Boolean) session.getParameter(AlfrescoSession.CREATE_THUMBNAIL))
                 {
-                    generateThumbnail(newId);
+                    getPostProcessingQueue().enqueue(identifier, PostProcessingQueue.GENERATE_THUMBNAIL,
+                            new PostProcessingQueue.Request()
+                            {
+                                public int execute()
+                                {
+                                    return generateThumbnail(identifier);
+                                }
+                            });
                 }
             }
 
-            if (newId == null) { return null; }
+            // Repository tags listing changed.
+            if (tagged)
+            {
+                getSnapshotCache().invalidate(new UrlBuilder(OnPremiseUrlRegistry.getTagsUrl(session)).toString());
+            }
+
+            if (isLazyRefresh())
+            {
+                Map<String, Property> known = getKnownProperties(cmisProperties);
+                if (contentFile != null)
+                {
+                    known.put(PropertyIds.CONTENT_STREAM_MIME_TYPE, new PropertyImpl(contentFile.getMimeType(),
+                            PropertyType.STRING, false));
+                    known.put(PropertyIds.CONTENT_STREAM_LENGTH, new PropertyImpl(BigInteger.valueOf(contentFile
+                            .getLength()), PropertyType.INTEGER, false));
+                }
+                return (Document) createPendingNode(newId, newId, BaseTypeId.CMIS_DOCUMENT, known, null);
+            }
 
             Node n = getChildById(newId);
 
@@ -505,86 +662,70 @@ public abstract class AbstractDocumentFolderServiceImpl extends AlfrescoService
     }
 
     /**
-     * Force metadata extraction for a specific node identifier.
+     * Force metadata extraction for a specific node identifier. Called from the
+     * post processing queue.
      * 
-     * @param identifier : unique identifier of a node (Document) @ : if network
-     *            or internal problems occur during the process.
+     * @param identifier : unique identifier of a node (Document)
+     * @return http status code of the response.
      */
-    private void extractMetadata(String identifier)
+    private int extractMetadata(String identifier)
     {
-
         if (isStringNull(identifier)) { throw new IllegalArgumentException(String.format(
                 Messagesl18n.getString("ErrorCodeRegistry.GENERAL_INVALID_ARG_NULL"), "Nodeidentifier")); }
 
-        try
-        {
-            UrlBuilder url = new UrlBuilder(OnPremiseUrlRegistry.getActionQueue(session));
-            url.addParameter(OnPremiseConstant.PARAM_ASYNC, true);
-            Log.d("URL", url.toString());
-
-            // prepare json data
-            JSONObject jo = new JSONObject();
-            jo.put(OnPremiseConstant.ACTIONEDUPONNODE_VALUE, NodeRefUtils.getCleanIdentifier(identifier));
-            jo.put(OnPremiseConstant.ACTIONDEFINITIONNAME_VALUE, OnPremiseConstant.ACTION_EXTRACTMETADATA_VALUE);
+        UrlBuilder url = new UrlBuilder(OnPremiseUrlRegistry.getActionQueue(session));
+        url.addParameter(OnPremiseConstant.PARAM_ASYNC, true);
+        Log.d("URL", url.toString());
 
-            final JsonDataWriter formData = new JsonDataWriter(jo);
+        // prepare json data
+        JSONObject jo = new JSONObject();
+        jo.put(OnPremiseConstant.ACTIONEDUPONNODE_VALUE, NodeRefUtils.getCleanIdentifier(identifier));
+        jo.put(OnPremiseConstant.ACTIONDEFINITIONNAME_VALUE, OnPremiseConstant.ACTION_EXTRACTMETADATA_VALUE);
 
-            // send and parse
-            Response response = post(url, formData.getContentType(), new HttpUtils.Output()
-            {
-                public void write(OutputStream out) throws IOException
-                {
-                    formData.write(out);
-                }
-            }, ErrorCodeRegistry.DOCFOLDER_GENERIC);
-
-            if (response.getResponseCode() == HttpStatus.SC_OK)
-            {
-                Log.d(TAG, "Metadata extraction : ok");
-            }
-        }
-        catch (Exception e)
-        {
-            convertException(e);
-        }
+        return postAction(url, jo);
     }
 
     /**
-     * Force creation of the doclib thumbnail.
+     * Force creation of the doclib thumbnail. Called from the post processing
+     * queue.
      * 
-     * @param identifier : unique identifier of a node (Document) @ : if network
-     *            or internal problems occur during the process.
+     * @param identifier : unique identifier of a node (Document)
+     * @return http status code of the response.
      */
-    private void generateThumbnail(String identifier)
+    private int generateThumbnail(String identifier)
     {
         if (isStringNull(identifier)) { throw new IllegalArgumentException(String.format(
                 Messagesl18n.getString("ErrorCodeRegistry.GENERAL_INVALID_ARG_NULL"), "Nodeidentifier")); }
 
-        try
-        {
-            UrlBuilder url = new UrlBuilder(OnPremiseUrlRegistry.getThumbnailUrl(session, identifier));
-            url.addParameter(OnPremiseConstant.PARAM_AS, true);
-            Log.d("URL", url.toString());
+        UrlBuilder url = new UrlBuilder(OnPremiseUrlRegistry.getThumbnailUrl(session, identifier));
+        url.addParameter(OnPremiseConstant.PARAM_AS, true);
+        Log.d("URL", url.toString());
 
-            // prepare json data
-            JSONObject jo = new JSONObject();
-            jo.put(OnPremiseConstant.THUMBNAILNAME_VALUE, RENDITION_THUMBNAIL);
+        // prepare json data
+        JSONObject jo = new JSONObject();
+        jo.put(OnPremiseConstant.THUMBNAILNAME_VALUE, RENDITION_THUMBNAIL);
 
-            final JsonDataWriter formData = new JsonDataWriter(jo);
+        return postAction(url, jo);
+    }
 
-            // send and parse
-            post(url, formData.getContentType(), new HttpUtils.Output()
-            {
-                public void write(OutputStream out) throws IOException
+    /**
+     * Sends a json request without checking the response code : the post
+     * processing queue decides if the request must be retried.
+     * 
+     * @return http status code of the response.
+     */
+    private int postAction(UrlBuilder url, JSONObject jo)
+    {
+        final JsonDataWriter formData = new JsonDataWriter(jo);
+        Response response = org.alfresco.mobile.android.api.utils.HttpUtils.invokePOST(url,
+                formData.getContentType(), new HttpUtils.Output()
                 {
-                    formData.write(out);
-                }
-            }, ErrorCodeRegistry.DOCFOLDER_GENERIC);
-        }
-        catch (Exception e)
-        {
-            convertException(e);
-        }
+                    public void write(OutputStream out) throws IOException
+                    {
+                        formData.write(out);
+                    }
+                }, getSessionHttp());
+        return response.getResponseCode();
     }
 
     // ////////////////////////////////////////////////////
@@ -689,9 +830,22 @@ public abstract class AbstractDocumentFolderServiceImpl extends AlfrescoService
             }
 
             // it's time to update
+            Properties cmisProperties = objectFactory.convertProperties(properties,
+                    cmisSession.getTypeDefinition(node.getType()), updatebility);
             objectService.updateProperties(session.getRepositoryInfo().getIdentifier(), objectIdHolder,
-                    changeTokenHolder, objectFactory.convertProperties(properties,
-                            cmisSession.getTypeDefinition(node.getType()), updatebility), null);
+                    changeTokenHolder, cmisProperties, null);
+
+            if (isLazyRefresh())
+            {
+                Map<String, Property> known = getKnownProperties(cmisProperties);
+                if (!known.containsKey(PropertyIds.NAME))
+                {
+                    known.put(PropertyIds.NAME, node.getProperty(PropertyIds.NAME));
+                }
+                String newId = (objectIdHolder.getValue() != null) ? objectIdHolder.getValue() : objectId;
+                return createPendingNode(newId, newId, node.isFolder() ? BaseTypeId.CMIS_FOLDER
+                        : BaseTypeId.CMIS_DOCUMENT, known, changeTokenHolder);
+            }
 
             return getChildById(objectId);
         }
@@ -740,7 +894,42 @@ public abstract class AbstractDocumentFolderServiceImpl extends AlfrescoService
             objectService.setContentStream(session.getRepositoryInfo().getIdentifier(), objectIdHolder, true,
                     changeTokenHolder, c, null);
 
-            newContent = (Document) getNodeByIdentifier(content.getIdentifier());
+            // A new version has been created.
+            if (content.getProperty(PropertyIds.VERSION_SERIES_ID) != null)
+            {
+                getSnapshotCache().invalidate(
+                        VersionServiceImpl.getVersionsUrl((String) content.getProperty(PropertyIds.VERSION_SERIES_ID)
+                                .getValue()));
+            }
+
+            if (isLazyRefresh())
+            {
+                Map<String, Property> known = new HashMap<String, Property>();
+                known.put(PropertyIds.NAME, content.getProperty(PropertyIds.NAME));
+                if (contentFile != null)
+                {
+                    known.put(PropertyIds.CONTENT_STREAM_MIME_TYPE, new PropertyImpl(
+                            content.getContentStreamMimeType(), PropertyType.STRING, false));
+                    known.put(PropertyIds.CONTENT_STREAM_LENGTH, new PropertyImpl(BigInteger.valueOf(contentFile
+                            .getLength()), PropertyType.INTEGER, false));
+                }
+                // A new version may have a new identifier.
+                String newId = objectIdHolder.getValue();
+                if (newId != null && !newId.equals(content.getIdentifier()))
+                {
+                    newContent = (Document) createPendingNode(newId, newId, BaseTypeId.CMIS_DOCUMENT, known,
+                            changeTokenHolder);
+                }
+                else
+                {
+                    newContent = (Document) createPendingNode(null, content.getIdentifier(),
+                            BaseTypeId.CMIS_DOCUMENT, known, changeTokenHolder);
+                }
+            }
+            else
+            {
+                newContent = (Document) getNodeByIdentifier(content.getIdentifier());
+            }
 
         }
         catch (Exception e)
@@ -760,8 +949,15 @@ public abstract class AbstractDocumentFolderServiceImpl extends AlfrescoService
 
         try
         {
-            return saveContentStream(getContentStream(document),
-                    NodeRefUtils.getNodeIdentifier(document.getIdentifier()), CONTENT_CACHE);
+            if (document.getContentStreamLength() <= 0) { return null; }
+
+            // Resumes a previous download of the same version.
+            File f = new File(getCacheFolder(CONTENT_CACHE), NodeRefUtils.getNodeIdentifier(document.getIdentifier()));
+            PartialDownload download = new PartialDownload(document, f);
+            long offset = download.getOffset();
+            org.alfresco.mobile.android.api.model.ContentStream contentStream = getContentStream(document, offset);
+            IOUtils.copyStream(contentStream.getInputStream(), download.openOutputStream(offset));
+            return new ContentFileImpl(download.complete(), document.getName(), document.getContentStreamMimeType());
         }
         catch (Exception e)
         {
@@ -796,6 +992,101 @@ public abstract class AbstractDocumentFolderServiceImpl extends AlfrescoService
         return null;
     }
 
+    /** {@inheritDoc} */
+    public org.alfresco.mobile.android.api.model.ContentStream getContentStream(Document document, long offset)
+    {
+        if (isObjectNull(document)) { throw new IllegalArgumentException(String.format(
+                Messagesl18n.getString("ErrorCodeRegistry.GENERAL_INVALID_ARG_NULL"), "document")); }
+
+        if (offset < 0) { throw new IllegalArgumentException("offset < 0"); }
+
+        if (offset == 0) { return getContentStream(document); }
+
+        try
+        {
+            long length = document.getContentStreamLength();
+            if (length <= 0) { return null; }
+            if (offset >= length) { return new ContentStreamImpl(document.getName(), new ByteArrayInputStream(
+                    new byte[0]), document.getContentStreamMimeType(), 0); }
+
+            UrlBuilder url = new UrlBuilder(getDownloadUrl(document));
+            Response resp = org.alfresco.mobile.android.api.utils.HttpUtils.invokeGET(url, getSessionHttp(),
+                    BigInteger.valueOf(offset), null);
+
+            InputStream stream;
+            if (resp.getResponseCode() == HttpStatus.SC_PARTIAL_CONTENT
+                    && offset == getRangeStart(resp.getHeader("Content-Range")))
+            {
+                stream = resp.getStream();
+            }
+            else if (resp.getResponseCode() == HttpStatus.SC_OK)
+            {
+                // Range ignored : the whole content is sent.
+                stream = resp.getStream();
+                skipFully(stream, offset);
+            }
+            else if (resp.getResponseCode() == HttpStatus.SC_PARTIAL_CONTENT)
+            {
+                // Missing or unexpected range : the whole content is
+                // requested again.
+                IOUtils.closeStream(resp.getStream());
+                stream = getContentStream(document).getInputStream();
+                skipFully(stream, offset);
+            }
+            else
+            {
+                if (resp.getStream() != null)
+                {
+                    IOUtils.closeStream(resp.getStream());
+                }
+                convertStatusCode(resp, ErrorCodeRegistry.DOCFOLDER_GENERIC);
+                return null;
+            }
+            return new ContentStreamImpl(document.getName(), stream, document.getContentStreamMimeType(), length
+                    - offset);
+        }
+        catch (Exception e)
+        {
+            convertException(e);
+        }
+        return null;
+    }
+
+    private static void skipFully(InputStream stream, long offset) throws IOException
+    {
+        long skipped = 0;
+        while (skipped < offset)
+        {
+            long n = stream.skip(offset - skipped);
+            if (n <= 0)
+            {
+                if (stream.read() == -1) { throw new IOException("Unexpected end of content"); }
+                n = 1;
+            }
+            skipped += n;
+        }
+    }
+
+    /**
+     * @param contentRange : header value like "bytes 100-199/200"
+     * @return the first byte of the range or -1 if unknown.
+     */
+    private static long getRangeStart(String contentRange)
+    {
+        if (contentRange == null) { return -1; }
+        int start = contentRange.indexOf(' ') + 1;
+        int end = contentRange.indexOf('-', start);
+        if (end < 0) { return -1; }
+        try
+        {
+            return Long.parseLong(contentRange.substring(start, end).trim());
+        }
+        catch (NumberFormatException e)
+        {
+            return -1;
+        }
+    }
+
     /** {@inheritDoc} */
     public org.alfresco.mobile.android.api.model.ContentStream downloadContentStream(String identifier)
     {
@@ -890,6 +1181,261 @@ public abstract class AbstractDocumentFolderServiceImpl extends AlfrescoService
         return result;
     }
 
+    /**
+     * @param identifier : Unique identifier to a node object.
+     * @return the node object or null if it does not exist or is not
+     *         accessible by the current user.
+     */
+    private Node getChildByIdIfExists(String identifier)
+    {
+        try
+        {
+            return getChildById(identifier);
+        }
+        catch (CmisObjectNotFoundException e)
+        {
+            return null;
+        }
+        catch (CmisInvalidArgumentException e)
+        {
+            return null;
+        }
+        catch (CmisPermissionDeniedException e)
+        {
+            return null;
+        }
+    }
+
+    // ////////////////////////////////////////////////////
+    // PENDING NODES
+    // ////////////////////////////////////////////////////
+    /**
+     * @return true if nodes returned by create and update methods are
+     *         retrieved from the server only when a value not sent by the
+     *         client is requested.
+     */
+    private boolean isLazyRefresh()
+    {
+        Serializable value = session.getParameter(AlfrescoSession.LAZY_NODE_REFRESH);
+        return value instanceof Boolean && (Boolean) value;
+    }
+
+    /**
+     * Creates a node from the values known after a create or update request.
+     * The object is retrieved from the server the first time an other value
+     * is requested.
+     * 
+     * @param identifier : identifier returned by the server. Can be null if
+     *            unknown.
+     * @param loadIdentifier : identifier used to retrieve the object.
+     * @param baseTypeId : base type of the node.
+     * @param known : properties sent to the server.
+     * @param changeTokenHolder : change token returned by the server. Can be
+     *            null.
+     * @return Document or Folder object.
+     */
+    private Node createPendingNode(String identifier, final String loadIdentifier, BaseTypeId baseTypeId,
+            Map<String, Property> known, Holder<String> changeTokenHolder)
+    {
+        if (identifier != null)
+        {
+            known.put(PropertyIds.OBJECT_ID, new PropertyImpl(identifier, PropertyType.ID, false));
+        }
+        known.put(PropertyIds.BASE_TYPE_ID, new PropertyImpl(baseTypeId.value(), PropertyType.ID, false));
+
+        // Aspects are added to the object type id : keep the primary type.
+        Property objectTypeId = known.get(PropertyIds.OBJECT_TYPE_ID);
+        if (objectTypeId != null && objectTypeId.getValue() != null)
+        {
+            String value = objectTypeId.getValue();
+            int index = value.indexOf(',');
+            known.put(PropertyIds.OBJECT_TYPE_ID, new PropertyImpl((index < 0) ? value : value.substring(0, index)
+                    .trim(), PropertyType.ID, false));
+        }
+
+        if (changeTokenHolder != null && changeTokenHolder.getValue() != null)
+        {
+            known.put(PropertyIds.CHANGE_TOKEN, new PropertyImpl(changeTokenHolder.getValue(), PropertyType.STRING,
+                    false));
+        }
+        else
+        {
+            known.remove(PropertyIds.CHANGE_TOKEN);
+        }
+
+        NodeImpl.ObjectLoader loader = new NodeImpl.ObjectLoader()
+        {
+            public CmisObject load()
+            {
+                try
+                {
+                    return cmisSession.getObject(loadIdentifier);
+                }
+                catch (Exception e)
+                {
+                    convertException(e);
+                }
+                return null;
+            }
+        };
+
+        if (baseTypeId == BaseTypeId.CMIS_FOLDER) { return new FolderImpl(known, loader); }
+        return new DocumentImpl(known, loader);
+    }
+
+    /**
+     * Single value properties sent to the server. Their values have the same
+     * type as the values returned by the server.
+     * 
+     * @param cmisProperties : properties sent to the server.
+     * @return map of properties by cmis property id.
+     */
+    private static Map<String, Property> getKnownProperties(Properties cmisProperties)
+    {
+        Map<String, Property> known = new HashMap<String, Property>();
+        if (cmisProperties == null || cmisProperties.getPropertyList() == null) { return known; }
+        for (PropertyData<?> data : cmisProperties.getPropertyList())
+        {
+            PropertyType type = getPropertyType(data);
+            if (type == null || data.getValues() == null || data.getValues().size() != 1)
+            {
+                continue;
+            }
+            known.put(data.getId(), new PropertyImpl(data.getFirstValue(), type, false));
+        }
+        return known;
+    }
+
+    private static PropertyType getPropertyType(PropertyData<?> data)
+    {
+        if (data instanceof PropertyId) { return PropertyType.ID; }
+        if (data instanceof PropertyString) { return PropertyType.STRING; }
+        if (data instanceof PropertyInteger) { return PropertyType.INTEGER; }
+        if (data instanceof PropertyDecimal) { return PropertyType.DECIMAL; }
+        if (data instanceof PropertyDateTime) { return PropertyType.DATETIME; }
+        if (data instanceof PropertyBoolean) { return PropertyType.BOOLEAN; }
+        return null;
+    }
+
+    /** Default number of identifiers resolved by one query. */
+    private static final int DEFAULT_BATCH_SIZE = 50;
+
+    /** Maximum number of queries running in parallel for all sessions. */
+    private static final int BATCH_POOL_SIZE = 4;
+
+    private static final ThreadPoolExecutor BATCH_EXECUTOR = new ThreadPoolExecutor(BATCH_POOL_SIZE,
+            BATCH_POOL_SIZE, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory()
+            {
+                private final AtomicInteger count = new AtomicInteger(1);
+
+                public Thread newThread(Runnable r)
+                {
+                    Thread thread = new Thread(r, "NodesBatch #" + count.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
+    static
+    {
+        BATCH_EXECUTOR.allowCoreThreadTimeOut(true);
+    }
+
+    private static final String QUERY_BY_IDENTIFIERS = "SELECT * FROM %s WHERE cmis:objectId IN (%s)";
+
+    private int getBatchSize()
+    {
+        Serializable value = session.getParameter(AlfrescoSession.NODES_BATCH_SIZE);
+        if (value instanceof Integer && (Integer) value > 0) { return (Integer) value; }
+        return DEFAULT_BATCH_SIZE;
+    }
+
+    private Future<Map<String, Node>> submitBatch(final List<String> identifiers)
+    {
+        return BATCH_EXECUTOR.submit(new Callable<Map<String, Node>>()
+        {
+            public Map<String, Node> call()
+            {
+                StringBuilder values = new StringBuilder(identifiers.size() * 64);
+                for (String identifier : identifiers)
+                {
+                    if (values.length() > 0)
+                    {
+                        values.append(',');
+                    }
+                    values.append('\'').append(identifier.replace("\\", "\\\\").replace("'", "\\'"))
+                            .append('\'');
+                }
+
+                Map<String, Node> nodes = new HashMap<String, Node>(identifiers.size());
+                queryByIdentifiers(BaseTypeId.CMIS_DOCUMENT.value(), values.toString(), identifiers.size(), nodes);
+                if (nodes.size() < identifiers.size())
+                {
+                    queryByIdentifiers(BaseTypeId.CMIS_FOLDER.value(), values.toString(), identifiers.size(), nodes);
+                }
+                return nodes;
+            }
+        });
+    }
+
+    /**
+     * @return Returns true if the identifier has no version label or the
+     *         label of the node.
+     */
+    private static boolean isSameVersion(String identifier, String nodeIdentifier)
+    {
+        int index = identifier.lastIndexOf(';');
+        if (index == -1) { return true; }
+        return nodeIdentifier != null && nodeIdentifier.endsWith(identifier.substring(index));
+    }
+
+    private Future<Map<String, Node>> submitLookup(final String identifier)
+    {
+        return BATCH_EXECUTOR.submit(new Callable<Map<String, Node>>()
+        {
+            public Map<String, Node> call()
+            {
+                return Collections.singletonMap(identifier, getChildByIdIfExists(identifier));
+            }
+        });
+    }
+
+    private void queryByIdentifiers(String typeId, String values, int maxItems, Map<String, Node> nodes)
+    {
+        DiscoveryService discoveryService = cmisSession.getBinding().getDiscoveryService();
+        OperationContext ctxt = cmisSession.getDefaultContext();
+        ObjectFactory objectFactory = cmisSession.getObjectFactory();
+
+        ObjectList resultList = discoveryService.query(session.getRepositoryInfo().getIdentifier(),
+                String.format(QUERY_BY_IDENTIFIERS, typeId, values), false, ctxt.isIncludeAllowableActions(),
+                ctxt.getIncludeRelationships(), ctxt.getRenditionFilterString(), BigInteger.valueOf(maxItems),
+                BigInteger.ZERO, null);
+
+        if (resultList.getObjects() == null) { return; }
+        for (ObjectData objectData : resultList.getObjects())
+        {
+            if (objectData == null)
+            {
+                continue;
+            }
+            Node node = convertNode(objectFactory.convertObject(objectData, ctxt));
+            nodes.put(NodeRefUtils.getCleanIdentifier(node.getIdentifier()), node);
+        }
+    }
+
+    private static Map<String, Node> getBatchResult(Future<Map<String, Node>> future) throws Exception
+    {
+        try
+        {
+            return future.get();
+        }
+        catch (ExecutionException e)
+        {
+            if (e.getCause() instanceof Exception) { throw (Exception) e.getCause(); }
+            throw e;
+        }
+    }
+
     /** Static Map of all sorting possibility for DocumentFolderService. */
     @SuppressWarnings("serial")
     private static Map<String, String> sortingMap = new HashMap<String, String>()
@@ -19,9 +19,25 @@ package org.alfresco.mobile.android.api.services.impl;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.alfresco.mobile.android.api.exceptions.ErrorCodeRegistry;
 import org.alfresco.mobile.android.api.model.Node;
+import org.alfresco.mobile.android.api.model.RatingSummary;
+import org.alfresco.mobile.android.api.model.impl.RatingSummaryImpl;
 import org.alfresco.mobile.android.api.services.RatingService;
 import org.alfresco.mobile.android.api.session.AlfrescoSession;
 import org.alfresco.mobile.android.api.utils.JsonDataWriter;
@@ -89,6 +105,10 @@ public abstract class AbstractRatingsService extends AlfrescoService implements
         {
             convertException(e);
         }
+        finally
+        {
+            invalidate(node);
+        }
     }
 
     /**
@@ -114,6 +134,10 @@ public abstract class AbstractRatingsService extends AlfrescoService implements
         {
             convertException(e);
         }
+        finally
+        {
+            invalidate(node);
+        }
     }
 
     /** {@inheritDoc} */
@@ -124,7 +148,7 @@ public abstract class AbstractRatingsService extends AlfrescoService implements
         
         try
         {
-            return computeRatingsCount(getRatingsUrl(node));
+            return refresh(node).getLikeCount();
         }
         catch (Exception e)
         {
@@ -141,7 +165,7 @@ public abstract class AbstractRatingsService extends AlfrescoService implements
         
         try
         {
-            return computeIsRated(getRatingsUrl(node));
+            return refresh(node).isLiked();
         }
         catch (Exception e)
         {
@@ -150,25 +174,239 @@ public abstract class AbstractRatingsService extends AlfrescoService implements
         return false;
     }
 
+    /** {@inheritDoc} */
+    public RatingSummary getRatingSummary(Node node)
+    {
+        if (isObjectNull(node)) { throw new IllegalArgumentException(String.format(
+                Messagesl18n.getString("ErrorCodeRegistry.GENERAL_INVALID_ARG_NULL"), "node")); }
+
+        try
+        {
+            RatingSummary summary = getCachedSummary(node.getIdentifier());
+            return (summary != null) ? summary : refresh(node);
+        }
+        catch (Exception e)
+        {
+            convertException(e);
+        }
+        return null;
+    }
+
+    /** {@inheritDoc} */
+    public Map<String, RatingSummary> getRatingSummaries(List<Node> nodes)
+    {
+        if (isObjectNull(nodes)) { throw new IllegalArgumentException(String.format(
+                Messagesl18n.getString("ErrorCodeRegistry.GENERAL_INVALID_ARG_NULL"), "nodes")); }
+
+        Map<String, RatingSummary> summaries = new HashMap<String, RatingSummary>(nodes.size());
+        List<Node> missingNodes = new ArrayList<Node>(nodes.size());
+        for (Node node : nodes)
+        {
+            if (isObjectNull(node) || summaries.containsKey(node.getIdentifier()))
+            {
+                continue;
+            }
+            RatingSummary summary = getCachedSummary(node.getIdentifier());
+            summaries.put(node.getIdentifier(), summary);
+            if (summary == null)
+            {
+                missingNodes.add(node);
+            }
+        }
+
+        if (!missingNodes.isEmpty())
+        {
+            summaries.putAll(refresh(missingNodes));
+        }
+        return summaries;
+    }
+
+    /** {@inheritDoc} */
+    public Map<String, Integer> getLikeCounts(List<Node> nodes)
+    {
+        Map<String, RatingSummary> summaries = getRatingSummaries(nodes);
+        Map<String, Integer> result = new HashMap<String, Integer>(summaries.size());
+        for (Map.Entry<String, RatingSummary> entry : summaries.entrySet())
+        {
+            result.put(entry.getKey(), entry.getValue().getLikeCount());
+        }
+        return result;
+    }
+
+    /** {@inheritDoc} */
+    public Map<String, Boolean> getLikedStates(List<Node> nodes)
+    {
+        Map<String, RatingSummary> summaries = getRatingSummaries(nodes);
+        Map<String, Boolean> result = new HashMap<String, Boolean>(summaries.size());
+        for (Map.Entry<String, RatingSummary> entry : summaries.entrySet())
+        {
+            result.put(entry.getKey(), entry.getValue().isLiked());
+        }
+        return result;
+    }
+
     // ////////////////////////////////////////////////////////////////////////////////////
     // / INTERNAL
     // ////////////////////////////////////////////////////////////////////////////////////
     /**
      * Internal method to compute data from server and retrieve the number of
-     * "like".
+     * "like" and if the user has liked the node. Both values come from the
+     * same response.
      * 
-     * @param url : Alfresco REST API activity url
-     * @return the number of ratings 'like' on this node.
+     * @param url : Alfresco REST API ratings url
+     * @return ratings of the node.
      */
-    protected abstract int computeRatingsCount(UrlBuilder url);
+    protected abstract RatingSummaryImpl computeRatings(UrlBuilder url);
+
+    /** Maximum number of ratings requests running in parallel. */
+    private static final int RATINGS_POOL_SIZE = 4;
+
+    private static final ThreadPoolExecutor RATINGS_EXECUTOR = new ThreadPoolExecutor(RATINGS_POOL_SIZE,
+            RATINGS_POOL_SIZE, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory()
+            {
+                private final AtomicInteger count = new AtomicInteger(1);
+
+                public Thread newThread(Runnable r)
+                {
+                    Thread thread = new Thread(r, "Ratings #" + count.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
+    static
+    {
+        RATINGS_EXECUTOR.allowCoreThreadTimeOut(true);
+    }
 
     /**
-     * Internal method to compute data from server and retrieve if the user has
-     * rate this node.
+     * Requests the ratings of each node once, in parallel, and keeps them in
+     * the cache.
      * 
-     * @param url : Alfresco REST API activity url
-     * @return true if the current logged user has like the node.
+     * @param nodes : list of distinct Node objects.
+     * @return ratings by node identifier.
+     */
+    private Map<String, RatingSummary> refresh(List<Node> nodes)
+    {
+        int generation = getGeneration();
+        Map<String, Future<RatingSummaryImpl>> futures = new LinkedHashMap<String, Future<RatingSummaryImpl>>(
+                nodes.size());
+        for (Node node : nodes)
+        {
+            final UrlBuilder url = getRatingsUrl(node);
+            futures.put(node.getIdentifier(), RATINGS_EXECUTOR.submit(new Callable<RatingSummaryImpl>()
+            {
+                public RatingSummaryImpl call()
+                {
+                    return computeRatings(url);
+                }
+            }));
+        }
+
+        Map<String, RatingSummary> ratings = new HashMap<String, RatingSummary>(futures.size());
+        try
+        {
+            for (Map.Entry<String, Future<RatingSummaryImpl>> entry : futures.entrySet())
+            {
+                RatingSummaryImpl summary = entry.getValue().get();
+                putSummary(entry.getKey(), summary, generation);
+                ratings.put(entry.getKey(), summary);
+            }
+        }
+        catch (ExecutionException e)
+        {
+            cancel(futures.values());
+            convertException(e.getCause() instanceof Exception ? (Exception) e.getCause() : e);
+        }
+        catch (Exception e)
+        {
+            cancel(futures.values());
+            convertException(e);
+        }
+        return ratings;
+    }
+
+    private static void cancel(Collection<Future<RatingSummaryImpl>> futures)
+    {
+        for (Future<RatingSummaryImpl> future : futures)
+        {
+            future.cancel(true);
+        }
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////
+    // / CACHE
+    // ////////////////////////////////////////////////////////////////////////////////////
+    /** Time to live of a rating summary in milliseconds. */
+    private static final long SUMMARY_TTL = 60000;
+
+    /** Maximum number of rating summaries kept by the service. */
+    private static final int SUMMARY_CACHE_SIZE = 200;
+
+    /** Rating summaries by node identifier, the least recently used first. */
+    @SuppressWarnings("serial")
+    private final Map<String, RatingSummaryImpl> summaryCache = new LinkedHashMap<String, RatingSummaryImpl>(16,
+            0.75f, true)
+    {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, RatingSummaryImpl> eldest)
+        {
+            return size() > SUMMARY_CACHE_SIZE;
+        }
+    };
+
+    /** Incremented by each like/unlike to discard summaries requested before. */
+    private int generation;
+
+    /**
+     * Requests the ratings of a node and keeps them in the cache.
      */
-    protected abstract boolean computeIsRated(UrlBuilder url);
+    private RatingSummary refresh(Node node)
+    {
+        int currentGeneration = getGeneration();
+        RatingSummaryImpl summary = computeRatings(getRatingsUrl(node));
+        putSummary(node.getIdentifier(), summary, currentGeneration);
+        return summary;
+    }
 
+    private RatingSummary getCachedSummary(String identifier)
+    {
+        synchronized (summaryCache)
+        {
+            RatingSummaryImpl summary = summaryCache.get(identifier);
+            if (summary != null && System.currentTimeMillis() - summary.getLastUpdated() > SUMMARY_TTL)
+            {
+                summaryCache.remove(identifier);
+                summary = null;
+            }
+            return summary;
+        }
+    }
+
+    private int getGeneration()
+    {
+        synchronized (summaryCache)
+        {
+            return generation;
+        }
+    }
+
+    private void putSummary(String identifier, RatingSummaryImpl summary, int requestGeneration)
+    {
+        synchronized (summaryCache)
+        {
+            // A like or unlike happened during the request.
+            if (requestGeneration != generation) { return; }
+            summaryCache.put(identifier, summary);
+        }
+    }
+
+    private void invalidate(Node node)
+    {
+        synchronized (summaryCache)
+        {
+            generation++;
+            summaryCache.remove(node.getIdentifier());
+        }
+    }
 }
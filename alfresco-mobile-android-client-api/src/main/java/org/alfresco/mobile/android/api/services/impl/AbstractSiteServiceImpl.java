@@ -118,7 +118,7 @@ public abstract class AbstractSiteServiceImpl extends AlfrescoService implements
         {
             UrlBuilder url = getSiteUrl(siteIdentifier);
             Log.d("URL", url.toString());
-            HttpUtils.Response resp = HttpUtils.invokeGET(url, getSessionHttp());
+            HttpUtils.Response resp = org.alfresco.mobile.android.api.utils.HttpUtils.invokeGET(url, getSessionHttp());
 
             // check response code
             if (resp.getResponseCode() == HttpStatus.SC_NOT_FOUND)
@@ -38,8 +38,6 @@ import org.alfresco.mobile.android.api.session.impl.AbstractAlfrescoSessionImpl;
 import org.alfresco.mobile.android.api.utils.IOUtils;
 import org.alfresco.mobile.android.api.utils.messages.Messagesl18n;
 import org.apache.chemistry.opencmis.client.api.CmisObject;
-import org.apache.chemistry.opencmis.client.bindings.impl.CmisBindingsHelper;
-import org.apache.chemistry.opencmis.client.bindings.impl.SessionImpl;
 import org.apache.chemistry.opencmis.client.bindings.spi.BindingSession;
 import org.apache.chemistry.opencmis.client.bindings.spi.http.HttpUtils;
 import org.apache.chemistry.opencmis.commons.impl.UrlBuilder;
@@ -93,7 +91,7 @@ public abstract class AlfrescoService
     protected HttpUtils.Response read(UrlBuilder url, int errorCode)
     {
         Log.d("URL", url.toString());
-        HttpUtils.Response resp = HttpUtils.invokeGET(url, getSessionHttp());
+        HttpUtils.Response resp = org.alfresco.mobile.android.api.utils.HttpUtils.invokeGET(url, getSessionHttp());
 
         // check response code
         if (resp.getResponseCode() != HttpStatus.SC_OK)
@@ -111,7 +109,8 @@ public abstract class AlfrescoService
     protected HttpUtils.Response post(UrlBuilder url, String contentType, HttpUtils.Output writer, int errorCode)
     {
         // make the call
-        HttpUtils.Response resp = HttpUtils.invokePOST(url, contentType, writer, getSessionHttp());
+        HttpUtils.Response resp = org.alfresco.mobile.android.api.utils.HttpUtils.invokePOST(url,
+                contentType, writer, getSessionHttp());
 
         // check response code
         if (resp.getResponseCode() != HttpStatus.SC_OK && resp.getResponseCode() != HttpStatus.SC_CREATED)
@@ -129,7 +128,7 @@ public abstract class AlfrescoService
     protected void delete(UrlBuilder url, int errorCode)
     {
         // make the call
-        HttpUtils.Response resp = HttpUtils.invokeDELETE(url, getSessionHttp());
+        HttpUtils.Response resp = org.alfresco.mobile.android.api.utils.HttpUtils.invokeDELETE(url, getSessionHttp());
 
         // check response code
         if (resp.getResponseCode() != HttpStatus.SC_NO_CONTENT && resp.getResponseCode() != HttpStatus.SC_OK)
@@ -146,7 +145,8 @@ public abstract class AlfrescoService
     protected HttpUtils.Response put(UrlBuilder url, String contentType, Map<String, String> headers,
             HttpUtils.Output writer, int errorCode)
     {
-        HttpUtils.Response resp = HttpUtils.invokePUT(url, contentType, headers, writer, getSessionHttp());
+        HttpUtils.Response resp = org.alfresco.mobile.android.api.utils.HttpUtils.invokePUT(url,
+                contentType, headers, writer, getSessionHttp());
 
         // check response code
         if ((resp.getResponseCode() < HttpStatus.SC_OK) || (resp.getResponseCode() > 299))
@@ -159,14 +159,38 @@ public abstract class AlfrescoService
 
     /**
      * @return Binding session for passing the authenticationProvider to execute
-     *         the http request.
+     *         the http request. The binding session is shared by all services
+     *         of the session.
      */
     protected BindingSession getSessionHttp()
     {
-        BindingSession s = new SessionImpl();
-        s.put(CmisBindingsHelper.AUTHENTICATION_PROVIDER_OBJECT,
-                ((AbstractAlfrescoSessionImpl) session).getPassthruAuthenticationProvider());
-        return s;
+        return ((AbstractAlfrescoSessionImpl) session).getHttpSession();
+    }
+
+    /**
+     * @return Complete listings kept by the session to serve following pages
+     *         of API without server side paging.
+     */
+    protected PagedSnapshotCache getSnapshotCache()
+    {
+        return ((AbstractAlfrescoSessionImpl) session).getPagedSnapshotCache();
+    }
+
+    /**
+     * @return Requests sent in background after document creations.
+     */
+    protected PostProcessingQueue getPostProcessingQueue()
+    {
+        return ((AbstractAlfrescoSessionImpl) session).getPostProcessingQueue();
+    }
+
+    /**
+     * @param url : url of the listing without paging parameters.
+     * @return key of the listing snapshot for the session user.
+     */
+    protected String getSnapshotKey(String url)
+    {
+        return PagedSnapshotCache.createKey(url, session.getPersonIdentifier());
     }
 
     // //////////////////////////////////////////////////////////////////////////////////////////
@@ -276,6 +300,27 @@ public abstract class AlfrescoService
 
     protected static final int CONTENT_CACHE = 2;
 
+    /**
+     * @param storageType : Determine in which subfolders the content is stored
+     * @return Returns the path of the cache folder of the storage type.
+     */
+    protected String getCacheFolder(int storageType)
+    {
+        String folderName = (String) session.getParameter(AlfrescoSession.CACHE_FOLDER);
+        switch (storageType)
+        {
+            case RENDITION_CACHE:
+                folderName += "/rendition";
+                break;
+            case CONTENT_CACHE:
+                folderName += "/content";
+                break;
+            default:
+                break;
+        }
+        return folderName;
+    }
+
     /**
      * Allow to save a contentStream inside the devices file system. The content
      * is saved as cache file inside a cache folder. It's possible to determine
@@ -293,20 +338,7 @@ public abstract class AlfrescoService
 
         try
         {
-            String folderName = (String) session.getParameter(AlfrescoSession.CACHE_FOLDER);
-            switch (storageType)
-            {
-                case RENDITION_CACHE:
-                    folderName += "/rendition";
-                    break;
-                case CONTENT_CACHE:
-                    folderName += "/content";
-                    break;
-                default:
-                    break;
-            }
-
-            File f = new File(folderName, cacheFileName);
+            File f = new File(getCacheFolder(storageType), cacheFileName);
             IOUtils.ensureOrCreatePathAndFile(f);
             IOUtils.copyFile(contentStream.getInputStream(), f);
             return new ContentFileImpl(f, contentStream.getFileName(), contentStream.getMimeType());
@@ -0,0 +1,321 @@
+/*******************************************************************************
+ * Copyright (C) 2005-2012 Alfresco Software Limited.
+ * 
+ * This file is part of the Alfresco Mobile SDK.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ ******************************************************************************/
+package org.alfresco.mobile.android.api.services.impl;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.alfresco.mobile.android.api.model.ListingContext;
+import org.alfresco.mobile.android.api.model.PagingResult;
+import org.alfresco.mobile.android.api.model.impl.PagingResultImpl;
+
+/**
+ * Session scoped store of complete listings returned by API that don't
+ * support server side paging. </br> The first page of a listing fetches the
+ * full list from the server and keeps it as a snapshot. Following pages
+ * (skipCount > 0) are served from this snapshot while it's younger than the
+ * time to live instead of downloading and parsing the whole list again.
+ * </br> Snapshots are bounded by a memory budget : least recently used
+ * snapshots are evicted first. Services must invalidate the listings a write
+ * operation modifies.
+ * 
+ * @author Jean Marie Pascal
+ */
+public class PagedSnapshotCache
+{
+    /** Default time to live of a snapshot in milliseconds. */
+    public static final long DEFAULT_TTL = 60000;
+
+    /** Default memory budget of all snapshots in bytes. */
+    public static final long DEFAULT_MEMORY_BUDGET = 1024 * 1024;
+
+    /** Estimated size of an object whose content is unknown. */
+    public static final int DEFAULT_OBJECT_SIZE = 512;
+
+    private static final String KEY_SEPARATOR = "|";
+
+    private final long ttl;
+
+    private final long memoryBudget;
+
+    private final Map<String, Snapshot> snapshots = new LinkedHashMap<String, Snapshot>(16, 0.75f, true);
+
+    private long memorySize;
+
+    private int hitCount;
+
+    private int missCount;
+
+    private int evictionCount;
+
+    public PagedSnapshotCache()
+    {
+        this(DEFAULT_TTL, DEFAULT_MEMORY_BUDGET);
+    }
+
+    /**
+     * @param ttl : time to live of a snapshot in milliseconds.
+     * @param memoryBudget : estimated size in bytes all snapshots can use.
+     */
+    public PagedSnapshotCache(long ttl, long memoryBudget)
+    {
+        this.ttl = ttl;
+        this.memoryBudget = memoryBudget;
+    }
+
+    /**
+     * Creates the key associated to a listing.
+     * 
+     * @param url : url of the listing without paging parameters.
+     * @param personIdentifier : user who requested the listing.
+     * @return key of the snapshot.
+     */
+    public static String createKey(String url, String personIdentifier)
+    {
+        return url + KEY_SEPARATOR + personIdentifier;
+    }
+
+    /**
+     * Returns the snapshot associated to the key.
+     * 
+     * @param key : key of the listing.
+     * @return the complete listing or null if there's no valid snapshot.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized <T> List<T> get(String key)
+    {
+        Snapshot snapshot = snapshots.get(key);
+        if (snapshot != null && System.currentTimeMillis() - snapshot.timestamp > ttl)
+        {
+            remove(key);
+            snapshot = null;
+        }
+
+        if (snapshot == null)
+        {
+            missCount++;
+            return null;
+        }
+
+        hitCount++;
+        return (List<T>) snapshot.values;
+    }
+
+    /**
+     * Stores the complete listing associated to the key. The size of the
+     * listing is estimated by walking its values.
+     * 
+     * @param key : key of the listing.
+     * @param values : complete listing.
+     */
+    public void put(String key, List<?> values)
+    {
+        put(key, values, estimateSize(values));
+    }
+
+    /**
+     * Stores the complete listing associated to the key. A listing bigger
+     * than the memory budget is not stored.
+     * 
+     * @param key : key of the listing.
+     * @param values : complete listing.
+     * @param size : estimated size in bytes of the listing.
+     */
+    public synchronized void put(String key, List<?> values, long size)
+    {
+        remove(key);
+        if (size > memoryBudget) { return; }
+
+        snapshots.put(key, new Snapshot(values, size, System.currentTimeMillis()));
+        memorySize += size;
+
+        // Least recently used snapshots come first.
+        Iterator<Map.Entry<String, Snapshot>> it = snapshots.entrySet().iterator();
+        while (memorySize > memoryBudget && it.hasNext())
+        {
+            memorySize -= it.next().getValue().size;
+            it.remove();
+            evictionCount++;
+        }
+    }
+
+    /**
+     * Removes snapshots of a listing for all users.
+     * 
+     * @param url : url of the listing without paging parameters.
+     */
+    public synchronized void invalidate(String url)
+    {
+        String prefix = url + KEY_SEPARATOR;
+        Iterator<Map.Entry<String, Snapshot>> it = snapshots.entrySet().iterator();
+        while (it.hasNext())
+        {
+            Map.Entry<String, Snapshot> entry = it.next();
+            if (entry.getKey().startsWith(prefix))
+            {
+                memorySize -= entry.getValue().size;
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Removes all snapshots.
+     */
+    public synchronized void clear()
+    {
+        snapshots.clear();
+        memorySize = 0;
+    }
+
+    /**
+     * @return Returns the estimated size in bytes of all snapshots.
+     */
+    public synchronized long getMemorySize()
+    {
+        return memorySize;
+    }
+
+    /**
+     * @return Returns the number of snapshots evicted to respect the memory
+     *         budget.
+     */
+    public synchronized int getEvictionCount()
+    {
+        return evictionCount;
+    }
+
+    /**
+     * @return Returns the number of pages served from a snapshot.
+     */
+    public synchronized int getHitCount()
+    {
+        return hitCount;
+    }
+
+    /**
+     * @return Returns the number of pages which required a server request.
+     */
+    public synchronized int getMissCount()
+    {
+        return missCount;
+    }
+
+    /**
+     * Extracts the page defined by the listing context from a complete
+     * listing.
+     * 
+     * @param values : complete listing.
+     * @param listingContext : skipCount and maxItems to apply. If null the
+     *            complete listing is returned.
+     * @return Paging Result of the window.
+     */
+    public static <T> PagingResult<T> page(List<T> values, ListingContext listingContext)
+    {
+        int size = values.size();
+        boolean hasMoreItems = false;
+        if (listingContext != null)
+        {
+            int fromIndex = (listingContext.getSkipCount() > size) ? size : listingContext.getSkipCount();
+
+            // Case if skipCount > result size
+            if (listingContext.getMaxItems() + fromIndex >= size)
+            {
+                values = values.subList(fromIndex, size);
+            }
+            else
+            {
+                values = values.subList(fromIndex, listingContext.getMaxItems() + fromIndex);
+                hasMoreItems = true;
+            }
+        }
+        return new PagingResultImpl<T>(values, hasMoreItems, size);
+    }
+
+    /**
+     * Estimates the memory used by a value parsed from a json response.
+     * 
+     * @param value : String, Number, Boolean, Map or Collection of them.
+     * @return estimated size in bytes.
+     */
+    public static long estimateSize(Object value)
+    {
+        if (value == null)
+        {
+            return 0;
+        }
+        else if (value instanceof String)
+        {
+            return 40 + 2 * ((String) value).length();
+        }
+        else if (value instanceof Number || value instanceof Boolean)
+        {
+            return 16;
+        }
+        else if (value instanceof Map)
+        {
+            long size = 48;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet())
+            {
+                size += 32 + estimateSize(entry.getKey()) + estimateSize(entry.getValue());
+            }
+            return size;
+        }
+        else if (value instanceof Collection)
+        {
+            long size = 32;
+            for (Object object : (Collection<?>) value)
+            {
+                size += 8 + estimateSize(object);
+            }
+            return size;
+        }
+        return DEFAULT_OBJECT_SIZE;
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////
+    // / INTERNAL
+    // ////////////////////////////////////////////////////////////////////////////////////
+    private void remove(String key)
+    {
+        Snapshot snapshot = snapshots.remove(key);
+        if (snapshot != null)
+        {
+            memorySize -= snapshot.size;
+        }
+    }
+
+    private static final class Snapshot
+    {
+        private final List<?> values;
+
+        private final long size;
+
+        private final long timestamp;
+
+        private Snapshot(List<?> values, long size, long timestamp)
+        {
+            this.values = values;
+            this.size = size;
+            this.timestamp = timestamp;
+        }
+    }
+}
@@ -0,0 +1,330 @@
+/*******************************************************************************
+ * Copyright (C) 2005-2012 Alfresco Software Limited.
+ * 
+ * This file is part of the Alfresco Mobile SDK.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ ******************************************************************************/
+package org.alfresco.mobile.android.api.services.impl;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.alfresco.mobile.android.api.exceptions.AlfrescoServiceException;
+import org.alfresco.mobile.android.api.exceptions.ErrorCodeRegistry;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisConnectionException;
+
+import android.util.Log;
+
+/**
+ * Session scoped queue of the requests sent to the repository after a
+ * document creation (metadata extraction, thumbnail generation). </br>
+ * Requests run in background so the creation returns as soon as the document
+ * exists. Requests are delayed a short time to gather those of a batch of
+ * uploads : a request already waiting for the same node and the same action
+ * is not added twice. Requests failing because of the network or of a
+ * temporary server error are retried with an increasing delay.
+ * 
+ * @author Jean Marie Pascal
+ */
+public class PostProcessingQueue
+{
+    private static final String TAG = "PostProcessingQueue";
+
+    /** Action : metadata extraction. */
+    public static final int EXTRACT_METADATA = 1;
+
+    /** Action : doclib thumbnail generation. */
+    public static final int GENERATE_THUMBNAIL = 2;
+
+    /** Delay in milliseconds before a request is sent. */
+    public static final long DEFAULT_BATCH_DELAY = 500;
+
+    /** Number of attempts before a request is reported as failed. */
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+    /** Delay in milliseconds before the first retry. Doubled for each retry. */
+    public static final long DEFAULT_RETRY_DELAY = 2000;
+
+    private static final int WORKERS = 2;
+
+    /** Request sent to the repository. */
+    public interface Request
+    {
+        /**
+         * @return the http status code of the response.
+         * @throws Exception if the request can't be sent.
+         */
+        int execute() throws Exception;
+    }
+
+    /** Receives the result of the requests. Called from a background thread. */
+    public interface Listener
+    {
+        /**
+         * @param identifier : node identifier.
+         * @param action : {@link #EXTRACT_METADATA} or
+         *            {@link #GENERATE_THUMBNAIL}
+         */
+        void onPostProcessingCompleted(String identifier, int action);
+
+        /**
+         * @param identifier : node identifier.
+         * @param action : {@link #EXTRACT_METADATA} or
+         *            {@link #GENERATE_THUMBNAIL}
+         * @param e : last error.
+         */
+        void onPostProcessingFailed(String identifier, int action, Exception e);
+    }
+
+    private final ScheduledThreadPoolExecutor executor;
+
+    /** Requests waiting to be sent by key. */
+    private final Map<String, Task> pending = new HashMap<String, Task>();
+
+    private Listener listener;
+
+    /** Requests waiting or running. */
+    private int activeCount;
+
+    private int completedCount;
+
+    private int failedCount;
+
+    private int retryCount;
+
+    private int coalescedCount;
+
+    public PostProcessingQueue()
+    {
+        executor = new ScheduledThreadPoolExecutor(WORKERS, new ThreadFactory()
+        {
+            private final AtomicInteger count = new AtomicInteger(1);
+
+            public Thread newThread(Runnable r)
+            {
+                Thread thread = new Thread(r, TAG + " #" + count.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    public synchronized void setListener(Listener listener)
+    {
+        this.listener = listener;
+    }
+
+    /**
+     * Adds a request to the queue unless the same action is already waiting
+     * for the node.
+     * 
+     * @param identifier : node identifier.
+     * @param action : {@link #EXTRACT_METADATA} or {@link #GENERATE_THUMBNAIL}
+     * @param request : request to send.
+     */
+    public synchronized void enqueue(String identifier, int action, Request request)
+    {
+        if (executor.isShutdown()) { return; }
+        String key = identifier + "|" + action;
+        if (pending.containsKey(key))
+        {
+            coalescedCount++;
+            return;
+        }
+        Task task = new Task(key, identifier, action, request);
+        pending.put(key, task);
+        activeCount++;
+        executor.schedule(task, DEFAULT_BATCH_DELAY, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Waits until all requests have been sent.
+     * 
+     * @param timeout : maximum time to wait in milliseconds.
+     * @return true if the queue is empty, false if the timeout elapsed.
+     * @throws InterruptedException
+     */
+    public synchronized boolean awaitIdle(long timeout) throws InterruptedException
+    {
+        long end = System.currentTimeMillis() + timeout;
+        while (activeCount > 0)
+        {
+            long remaining = end - System.currentTimeMillis();
+            if (remaining <= 0) { return false; }
+            wait(remaining);
+        }
+        return true;
+    }
+
+    /**
+     * Cancels all requests. The queue can't be used anymore.
+     */
+    public synchronized void shutdown()
+    {
+        executor.shutdownNow();
+        pending.clear();
+        activeCount = 0;
+        notifyAll();
+    }
+
+    /**
+     * @return Returns the number of requests waiting or running.
+     */
+    public synchronized int getActiveCount()
+    {
+        return activeCount;
+    }
+
+    /**
+     * @return Returns the number of requests successfully sent.
+     */
+    public synchronized int getCompletedCount()
+    {
+        return completedCount;
+    }
+
+    /**
+     * @return Returns the number of requests failed after all attempts.
+     */
+    public synchronized int getFailedCount()
+    {
+        return failedCount;
+    }
+
+    /**
+     * @return Returns the number of retries.
+     */
+    public synchronized int getRetryCount()
+    {
+        return retryCount;
+    }
+
+    /**
+     * @return Returns the number of requests not added because already
+     *         waiting.
+     */
+    public synchronized int getCoalescedCount()
+    {
+        return coalescedCount;
+    }
+
+    // ////////////////////////////////////////////////////
+    // INTERNAL
+    // ////////////////////////////////////////////////////
+    private static boolean isTransient(int status)
+    {
+        return status == 408 || status == 429 || status >= 500;
+    }
+
+    private static boolean isTransient(Throwable e)
+    {
+        for (Throwable t = e; t != null; t = t.getCause())
+        {
+            if (t instanceof IOException || t instanceof CmisConnectionException) { return true; }
+        }
+        return false;
+    }
+
+    private final class Task implements Runnable
+    {
+        private final String key;
+
+        private final String identifier;
+
+        private final int action;
+
+        private final Request request;
+
+        private int attempts;
+
+        private Task(String key, String identifier, int action, Request request)
+        {
+            this.key = key;
+            this.identifier = identifier;
+            this.action = action;
+            this.request = request;
+        }
+
+        public void run()
+        {
+            synchronized (PostProcessingQueue.this)
+            {
+                // From now, a new request for the same node is a new task.
+                if (pending.get(key) != this) { return; }
+                pending.remove(key);
+            }
+
+            attempts++;
+            Exception error = null;
+            boolean retry = false;
+            try
+            {
+                int status = request.execute();
+                if (status < 200 || status >= 300)
+                {
+                    retry = isTransient(status);
+                    error = new AlfrescoServiceException(ErrorCodeRegistry.DOCFOLDER_GENERIC, "HTTP " + status);
+                }
+            }
+            catch (Exception e)
+            {
+                retry = isTransient(e);
+                error = e;
+            }
+
+            Listener currentListener;
+            synchronized (PostProcessingQueue.this)
+            {
+                if (executor.isShutdown()) { return; }
+                if (error != null && retry && attempts < DEFAULT_MAX_ATTEMPTS && !pending.containsKey(key))
+                {
+                    retryCount++;
+                    pending.put(key, this);
+                    executor.schedule(this, DEFAULT_RETRY_DELAY << (attempts - 1), TimeUnit.MILLISECONDS);
+                    return;
+                }
+                if (error != null)
+                {
+                    failedCount++;
+                }
+                else
+                {
+                    completedCount++;
+                }
+                activeCount--;
+                PostProcessingQueue.this.notifyAll();
+                currentListener = listener;
+            }
+
+            if (error != null)
+            {
+                Log.w(TAG, "Action " + action + " failed for " + identifier + " : " + error.getMessage());
+            }
+            if (currentListener == null) { return; }
+            if (error != null)
+            {
+                currentListener.onPostProcessingFailed(identifier, action, error);
+            }
+            else
+            {
+                currentListener.onPostProcessingCompleted(identifier, action);
+            }
+        }
+    }
+}
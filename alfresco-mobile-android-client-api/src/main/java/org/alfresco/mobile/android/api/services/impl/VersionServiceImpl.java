@@ -45,6 +45,8 @@ import org.apache.chemistry.opencmis.commons.spi.VersioningService;
  */
 public class VersionServiceImpl extends AlfrescoService implements VersionService
 {
+    /** Estimated size in bytes of a version kept in a listing snapshot. */
+    private static final int VERSION_ESTIMATED_SIZE = 8 * PagedSnapshotCache.DEFAULT_OBJECT_SIZE;
 
     /**
      * Default constructor for service. </br> Used by the
@@ -73,6 +75,18 @@ public class VersionServiceImpl extends AlfrescoService implements VersionServic
     // ////////////////////////////////////////////////////////////////////////////////////
     // / INTERNAL
     // ////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Versions are retrieved by the cmis binding : the listing snapshot is
+     * identified by the version series.
+     * 
+     * @param versionSeriesId : version series of a document.
+     * @return identifier of the versions listing in snapshots.
+     */
+    static String getVersionsUrl(String versionSeriesId)
+    {
+        return "versions:" + versionSeriesId;
+    }
+
     /**
      * Internal method to compute data from server and transform it as high
      * level object.
@@ -95,45 +109,39 @@ public class VersionServiceImpl extends AlfrescoService implements VersionServic
             OperationContext ctxt = cmisSession.getDefaultContext();
             ObjectFactory objectFactory = cmisSession.getObjectFactory();
 
-            List<ObjectData> versions = versioningService.getAllVersions(session.getRepositoryInfo().getIdentifier(),
-                    document.getIdentifier(), (String) document.getProperty(PropertyIds.VERSION_SERIES_ID).getValue(),
-                    ctxt.getFilterString(), ctxt.isIncludeAllowableActions(), null);
-
-            int size = (versions != null) ? versions.size() : 0;
-
-            Boolean hasMoreItems = false;
-            // Define Listing Context
-            if (listingContext != null && versions != null)
+            String versionSeriesId = (String) document.getProperty(PropertyIds.VERSION_SERIES_ID).getValue();
+            String key = getSnapshotKey(getVersionsUrl(versionSeriesId));
+            List<ObjectData> versions = null;
+            if (listingContext != null && listingContext.getSkipCount() > 0)
             {
-                int fromIndex = (listingContext.getSkipCount() > size) ? size : listingContext.getSkipCount();
+                versions = getSnapshotCache().get(key);
+            }
 
-                // Case if skipCount > result size
-                if (listingContext.getMaxItems() + fromIndex >= size)
-                {
-                    versions = versions.subList(fromIndex, size);
-                    hasMoreItems = false;
-                }
-                else
+            if (versions == null)
+            {
+                versions = versioningService.getAllVersions(session.getRepositoryInfo().getIdentifier(),
+                        document.getIdentifier(), versionSeriesId, ctxt.getFilterString(),
+                        ctxt.isIncludeAllowableActions(), null);
+                if (versions == null)
                 {
-                    versions = versions.subList(fromIndex, listingContext.getMaxItems() + fromIndex);
-                    hasMoreItems = true;
+                    versions = new ArrayList<ObjectData>(0);
                 }
+                getSnapshotCache().put(key, versions, (long) versions.size() * VERSION_ESTIMATED_SIZE);
             }
 
+            PagingResult<ObjectData> page = PagedSnapshotCache.page(versions, listingContext);
+
             // Create list
-            List<Document> result = new ArrayList<Document>();
-            if (versions != null)
+            List<Document> result = new ArrayList<Document>(page.getList().size());
+            for (ObjectData objectData : page.getList())
             {
-                for (ObjectData objectData : versions)
+                Node doc = convertNode(objectFactory.convertObject(objectData, ctxt));
+                if (!(doc instanceof Document))
                 {
-                    Node doc = convertNode(objectFactory.convertObject(objectData, ctxt));
-                    if (!(doc instanceof Document))
-                    {
-                        // should not happen...
-                        continue;
-                    }
-                    result.add((Document) doc);
+                    // should not happen...
+                    continue;
                 }
+                result.add((Document) doc);
             }
 
             if (listingContext != null)
@@ -142,7 +150,7 @@ public class VersionServiceImpl extends AlfrescoService implements VersionServic
                         new NodeComparator(listingContext.isSortAscending(), listingContext.getSortProperty()));
             }
 
-            return new PagingResultImpl<Document>(result, hasMoreItems, size);
+            return new PagingResultImpl<Document>(result, page.hasMoreItems(), page.getTotalItems());
         }
         catch (Exception e)
         {
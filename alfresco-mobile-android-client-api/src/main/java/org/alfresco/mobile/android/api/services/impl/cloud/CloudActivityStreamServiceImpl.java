@@ -17,8 +17,6 @@
  ******************************************************************************/
 package org.alfresco.mobile.android.api.services.impl.cloud;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Map;
 
 import org.alfresco.mobile.android.api.constants.CloudConstant;
@@ -27,12 +25,12 @@ import org.alfresco.mobile.android.api.model.ActivityEntry;
 import org.alfresco.mobile.android.api.model.ListingContext;
 import org.alfresco.mobile.android.api.model.PagingResult;
 import org.alfresco.mobile.android.api.model.impl.ActivityEntryImpl;
-import org.alfresco.mobile.android.api.model.impl.PagingResultImpl;
 import org.alfresco.mobile.android.api.services.impl.AbstractActivityStreamService;
 import org.alfresco.mobile.android.api.session.AlfrescoSession;
 import org.alfresco.mobile.android.api.session.CloudSession;
 import org.alfresco.mobile.android.api.utils.CloudUrlRegistry;
 import org.alfresco.mobile.android.api.utils.PublicAPIResponse;
+import org.alfresco.mobile.android.api.utils.PublicAPIResponse.EntryDecoder;
 import org.apache.chemistry.opencmis.client.bindings.spi.http.HttpUtils;
 import org.apache.chemistry.opencmis.commons.impl.UrlBuilder;
 
@@ -104,21 +102,18 @@ public class CloudActivityStreamServiceImpl extends AbstractActivityStreamServic
      * @param listingContext : listing context to apply to the paging result.
      * @return Paging Result of activity entry.
      */
-    @SuppressWarnings("unchecked")
     protected PagingResult<ActivityEntry> computeActivities(UrlBuilder url, ListingContext listingContext)
     {
         // read and parse
         HttpUtils.Response resp = read(url, ErrorCodeRegistry.ACTIVITISTREAM_GENERIC);
-        PublicAPIResponse response = new PublicAPIResponse(resp);
+        return PublicAPIResponse.parseList(resp, ACTIVITY_DECODER);
+    }
 
-        List<ActivityEntry> result = new ArrayList<ActivityEntry>();
-        Map<String, Object> data = null;
-        for (Object entry : response.getEntries())
+    private static final EntryDecoder<ActivityEntry> ACTIVITY_DECODER = new EntryDecoder<ActivityEntry>()
+    {
+        public ActivityEntry decode(Map<String, Object> entry)
         {
-            data = (Map<String, Object>) ((Map<String, Object>) entry).get(CloudConstant.ENTRY_VALUE);
-            result.add(ActivityEntryImpl.parsePublicAPIJson(data));
+            return ActivityEntryImpl.parsePublicAPIJson(entry);
         }
-
-        return new PagingResultImpl<ActivityEntry>(result, response.getHasMoreItems(), response.getSize());
-    }
+    };
 }
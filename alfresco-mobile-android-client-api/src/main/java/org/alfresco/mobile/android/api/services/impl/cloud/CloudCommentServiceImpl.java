@@ -17,8 +17,6 @@
  ******************************************************************************/
 package org.alfresco.mobile.android.api.services.impl.cloud;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Map;
 
 import org.alfresco.mobile.android.api.constants.CloudConstant;
@@ -28,11 +26,11 @@ import org.alfresco.mobile.android.api.model.ListingContext;
 import org.alfresco.mobile.android.api.model.Node;
 import org.alfresco.mobile.android.api.model.PagingResult;
 import org.alfresco.mobile.android.api.model.impl.CommentImpl;
-import org.alfresco.mobile.android.api.model.impl.PagingResultImpl;
 import org.alfresco.mobile.android.api.services.impl.AbstractCommentService;
 import org.alfresco.mobile.android.api.session.CloudSession;
 import org.alfresco.mobile.android.api.utils.CloudUrlRegistry;
 import org.alfresco.mobile.android.api.utils.PublicAPIResponse;
+import org.alfresco.mobile.android.api.utils.PublicAPIResponse.EntryDecoder;
 import org.alfresco.mobile.android.api.utils.messages.Messagesl18n;
 import org.apache.chemistry.opencmis.client.bindings.spi.http.HttpUtils;
 import org.apache.chemistry.opencmis.commons.impl.UrlBuilder;
@@ -93,16 +91,14 @@ public class CloudCommentServiceImpl extends AbstractCommentService
     {
         // read and parse
         HttpUtils.Response resp = read(url, ErrorCodeRegistry.COMMENT_GENERIC);
-        PublicAPIResponse response = new PublicAPIResponse(resp);
+        return PublicAPIResponse.parseList(resp, COMMENT_DECODER);
+    }
 
-        List<Comment> result = new ArrayList<Comment>();
-        Map<String, Object> data = null;
-        for (Object entry : response.getEntries())
+    private static final EntryDecoder<Comment> COMMENT_DECODER = new EntryDecoder<Comment>()
+    {
+        public Comment decode(Map<String, Object> entry)
         {
-            data = (Map<String, Object>) ((Map<String, Object>) entry).get(CloudConstant.ENTRY_VALUE);
-            result.add(CommentImpl.parsePublicAPIJson(data));
+            return CommentImpl.parsePublicAPIJson(entry);
         }
-
-        return new PagingResultImpl<Comment>(result, response.getHasMoreItems(), response.getSize());
-    }
+    };
 }
@@ -71,7 +71,7 @@ public class CloudDocumentFolderServiceImpl extends AbstractDocumentFolderServic
             // Second getData
             UrlBuilder url = new UrlBuilder(CloudUrlRegistry.getThumbnailUrl((CloudSession) session, identifier,
                     renditionIdentifier));
-            HttpUtils.Response resp = HttpUtils.invokeGET(url, getSessionHttp());
+            HttpUtils.Response resp = org.alfresco.mobile.android.api.utils.HttpUtils.invokeGET(url, getSessionHttp());
             if (resp.getResponseCode() == HttpStatus.SC_NOT_FOUND)
             {
                 cf = null;
@@ -92,7 +92,7 @@ public class CloudPersonServiceImpl extends AbstractPersonService
     protected Person computePerson(UrlBuilder url)
     {
         Log.d("URL", url.toString());
-        HttpUtils.Response resp = HttpUtils.invokeGET(url, getSessionHttp());
+        HttpUtils.Response resp = org.alfresco.mobile.android.api.utils.HttpUtils.invokeGET(url, getSessionHttp());
 
         // check response code
         if (resp.getResponseCode() == HttpStatus.SC_INTERNAL_SERVER_ERROR)
@@ -22,6 +22,7 @@ import java.util.Map;
 import org.alfresco.mobile.android.api.constants.CloudConstant;
 import org.alfresco.mobile.android.api.exceptions.ErrorCodeRegistry;
 import org.alfresco.mobile.android.api.model.Node;
+import org.alfresco.mobile.android.api.model.impl.RatingSummaryImpl;
 import org.alfresco.mobile.android.api.services.impl.AbstractRatingsService;
 import org.alfresco.mobile.android.api.session.AlfrescoSession;
 import org.alfresco.mobile.android.api.session.CloudSession;
@@ -78,7 +79,7 @@ public class CloudRatingsServiceImpl extends AbstractRatingsService
     // ////////////////////////////////////////////////////////////////////////////////////
     /** {@inheritDoc} */
     @SuppressWarnings("unchecked")
-    protected int computeRatingsCount(UrlBuilder url)
+    protected RatingSummaryImpl computeRatings(UrlBuilder url)
     {
         // read and parse
         HttpUtils.Response resp = read(url, ErrorCodeRegistry.RATING_GENERIC);
@@ -89,35 +90,19 @@ public class CloudRatingsServiceImpl extends AbstractRatingsService
         {
             data = (Map<String, Object>) ((Map<String, Object>) entry).get(CloudConstant.ENTRY_VALUE);
             if (data.containsKey(CloudConstant.ID_VALUE)
-                    && CloudConstant.LIKES_VALUE.equals(data.get(CloudConstant.ID_VALUE))
-                    && data.containsKey(CloudConstant.AGGREGATE_VALUE)) { return JSONConverter.getInteger(
-                    (Map<String, Object>) data.get(CloudConstant.AGGREGATE_VALUE), CloudConstant.NUMBEROFRATINGS_VALUE)
-                    .intValue();
-
+                    && CloudConstant.LIKES_VALUE.equals(data.get(CloudConstant.ID_VALUE)))
+            {
+                int count = -1;
+                if (data.containsKey(CloudConstant.AGGREGATE_VALUE))
+                {
+                    count = JSONConverter.getInteger((Map<String, Object>) data.get(CloudConstant.AGGREGATE_VALUE),
+                            CloudConstant.NUMBEROFRATINGS_VALUE).intValue();
+                }
+                return new RatingSummaryImpl(count, data.containsKey(CloudConstant.MYRATING_VALUE));
             }
         }
 
-        return -1;
-    }
-    
-    /** {@inheritDoc} */
-    @SuppressWarnings("unchecked")
-    protected boolean computeIsRated(UrlBuilder url)
-    {
-        // read and parse
-        HttpUtils.Response resp = read(url, ErrorCodeRegistry.RATING_GENERIC);
-        PublicAPIResponse response = new PublicAPIResponse(resp);
-
-        Map<String, Object> data = null;
-        for (Object entry : response.getEntries())
-        {
-            data = (Map<String, Object>) ((Map<String, Object>) entry).get(CloudConstant.ENTRY_VALUE);
-            if (data.containsKey(CloudConstant.ID_VALUE)
-                    && CloudConstant.LIKES_VALUE.equals(data.get(CloudConstant.ID_VALUE))
-                    && data.containsKey(CloudConstant.MYRATING_VALUE)) { return true; }
-        }
-
-        return false;
+        return new RatingSummaryImpl(-1, false);
     }
 
 }
@@ -17,7 +17,6 @@
  ******************************************************************************/
 package org.alfresco.mobile.android.api.services.impl.cloud;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -26,12 +25,12 @@ import org.alfresco.mobile.android.api.exceptions.ErrorCodeRegistry;
 import org.alfresco.mobile.android.api.model.ListingContext;
 import org.alfresco.mobile.android.api.model.PagingResult;
 import org.alfresco.mobile.android.api.model.Site;
-import org.alfresco.mobile.android.api.model.impl.PagingResultImpl;
 import org.alfresco.mobile.android.api.model.impl.SiteImpl;
 import org.alfresco.mobile.android.api.services.impl.AbstractSiteServiceImpl;
 import org.alfresco.mobile.android.api.session.CloudSession;
 import org.alfresco.mobile.android.api.utils.CloudUrlRegistry;
 import org.alfresco.mobile.android.api.utils.PublicAPIResponse;
+import org.alfresco.mobile.android.api.utils.PublicAPIResponse.EntryDecoder;
 import org.apache.chemistry.opencmis.client.bindings.spi.http.HttpUtils;
 import org.apache.chemistry.opencmis.commons.impl.UrlBuilder;
 
@@ -136,28 +135,28 @@ public class CloudSiteServiceImpl extends AbstractSiteServiceImpl
     // ////////////////////////////////////////////////////////////////////////////////////
     // / INTERNAL
     // ////////////////////////////////////////////////////////////////////////////////////
-    @SuppressWarnings("unchecked")
     protected PagingResult<Site> computeSites(UrlBuilder url, boolean isAllSite)
     {
-
         HttpUtils.Response resp = read(url, ErrorCodeRegistry.SITE_GENERIC);
-        PublicAPIResponse response = new PublicAPIResponse(resp);
+        return PublicAPIResponse.parseList(resp, isAllSite ? SITE_DECODER : MEMBER_SITE_DECODER);
+    }
 
-        List<Site> result = new ArrayList<Site>();
-        Map<String, Object> data = null;
-        for (Object entry : response.getEntries())
+    private static final EntryDecoder<Site> SITE_DECODER = new EntryDecoder<Site>()
+    {
+        public Site decode(Map<String, Object> entry)
         {
-            data = (Map<String, Object>) ((Map<String, Object>) entry).get(CloudConstant.ENTRY_VALUE);
-            if (!isAllSite)
-            {
-                data = (Map<String, Object>) data.get(CloudConstant.SITE_VALUE);
-            }
-            result.add(SiteImpl.parsePublicAPIJson(data));
+            return SiteImpl.parsePublicAPIJson(entry);
         }
+    };
 
-        return new PagingResultImpl<Site>(result, response.getHasMoreItems(), response.getSize());
-
-    }
+    private static final EntryDecoder<Site> MEMBER_SITE_DECODER = new EntryDecoder<Site>()
+    {
+        @SuppressWarnings("unchecked")
+        public Site decode(Map<String, Object> entry)
+        {
+            return SiteImpl.parsePublicAPIJson((Map<String, Object>) entry.get(CloudConstant.SITE_VALUE));
+        }
+    };
 
     @SuppressWarnings("unchecked")
     protected String parseContainer(String link)
@@ -19,7 +19,6 @@ package org.alfresco.mobile.android.api.services.impl.cloud;
 
 import java.io.IOException;
 import java.io.OutputStream;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -29,7 +28,6 @@ import org.alfresco.mobile.android.api.model.ListingContext;
 import org.alfresco.mobile.android.api.model.Node;
 import org.alfresco.mobile.android.api.model.PagingResult;
 import org.alfresco.mobile.android.api.model.Tag;
-import org.alfresco.mobile.android.api.model.impl.PagingResultImpl;
 import org.alfresco.mobile.android.api.model.impl.TagImpl;
 import org.alfresco.mobile.android.api.services.TaggingService;
 import org.alfresco.mobile.android.api.services.impl.AlfrescoService;
@@ -37,6 +35,7 @@ import org.alfresco.mobile.android.api.session.CloudSession;
 import org.alfresco.mobile.android.api.utils.CloudUrlRegistry;
 import org.alfresco.mobile.android.api.utils.JsonDataWriter;
 import org.alfresco.mobile.android.api.utils.PublicAPIResponse;
+import org.alfresco.mobile.android.api.utils.PublicAPIResponse.EntryDecoder;
 import org.alfresco.mobile.android.api.utils.messages.Messagesl18n;
 import org.apache.chemistry.opencmis.client.bindings.spi.http.HttpUtils;
 import org.apache.chemistry.opencmis.commons.impl.UrlBuilder;
@@ -158,20 +157,17 @@ public class CloudTaggingServiceImpl extends AlfrescoService implements TaggingS
     // ////////////////////////////////////////////////////////////////////////////////////
     // / INTERNAL
     // ////////////////////////////////////////////////////////////////////////////////////
-    @SuppressWarnings("unchecked")
     private PagingResult<Tag> computeTag(UrlBuilder url)
     {
         HttpUtils.Response resp = read(url, ErrorCodeRegistry.TAGGING_GENERIC);
-        PublicAPIResponse response = new PublicAPIResponse(resp);
+        return PublicAPIResponse.parseList(resp, TAG_DECODER);
+    }
 
-        List<Tag> result = new ArrayList<Tag>();
-        Map<String, Object> data = null;
-        for (Object entry : response.getEntries())
+    private static final EntryDecoder<Tag> TAG_DECODER = new EntryDecoder<Tag>()
+    {
+        public Tag decode(Map<String, Object> entry)
         {
-            data = (Map<String, Object>) ((Map<String, Object>) entry).get(CloudConstant.ENTRY_VALUE);
-            result.add(TagImpl.parsePublicAPIJson(data));
+            return TagImpl.parsePublicAPIJson(entry);
         }
-
-        return new PagingResultImpl<Tag>(result, response.getHasMoreItems(), response.getSize());
-    }
+    };
 }
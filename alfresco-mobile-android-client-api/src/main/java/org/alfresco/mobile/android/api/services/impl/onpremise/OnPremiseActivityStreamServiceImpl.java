@@ -17,10 +17,12 @@
  ******************************************************************************/
 package org.alfresco.mobile.android.api.services.impl.onpremise;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
+import org.alfresco.mobile.android.api.constants.OnPremiseConstant;
 import org.alfresco.mobile.android.api.exceptions.ErrorCodeRegistry;
 import org.alfresco.mobile.android.api.model.ActivityEntry;
 import org.alfresco.mobile.android.api.model.ListingContext;
@@ -28,6 +30,8 @@ import org.alfresco.mobile.android.api.model.PagingResult;
 import org.alfresco.mobile.android.api.model.impl.ActivityEntryImpl;
 import org.alfresco.mobile.android.api.model.impl.PagingResultImpl;
 import org.alfresco.mobile.android.api.services.impl.AbstractActivityStreamService;
+import org.alfresco.mobile.android.api.services.impl.PagedSnapshotCache;
+import org.alfresco.mobile.android.api.session.AlfrescoSession;
 import org.alfresco.mobile.android.api.session.RepositorySession;
 import org.alfresco.mobile.android.api.utils.JsonUtils;
 import org.alfresco.mobile.android.api.utils.OnPremiseUrlRegistry;
@@ -89,40 +93,57 @@ public class OnPremiseActivityStreamServiceImpl extends AbstractActivityStreamSe
     {
         try
         {
-            // read and parse
-            HttpUtils.Response resp = read(url, ErrorCodeRegistry.ACTIVITISTREAM_GENERIC);
+            PagedSnapshotCache snapshots = getSnapshotCache();
+            String key = getSnapshotKey(url.toString());
 
-            List<Object> json = JsonUtils.parseArray(resp.getStream(), resp.getCharset());
-            int size = json.size();
-            ArrayList<ActivityEntry> result = new ArrayList<ActivityEntry>(size);
-
-            Boolean b = false;
-            if (listingContext != null)
+            // Following pages are served from the feed retrieved by the first
+            // one.
+            List<Object> json = null;
+            if (listingContext != null && listingContext.getSkipCount() > 0)
             {
-                int fromIndex = (listingContext.getSkipCount() > size) ? size : listingContext.getSkipCount();
+                json = snapshots.get(key);
+            }
 
-                // Case if skipCount > result size
-                if (listingContext.getMaxItems() + fromIndex >= size)
+            boolean complete = true;
+            if (json == null)
+            {
+                int limit = -1;
+                if (listingContext != null && isServerPaging())
                 {
-                    json = json.subList(fromIndex, size);
-                    b = false;
+                    // The feed doesn't report whether skipCount has been
+                    // applied : only the limit is pushed and the page is
+                    // extracted locally. One more item tells if there are
+                    // more items.
+                    limit = listingContext.getSkipCount() + listingContext.getMaxItems() + 1;
+                    url.addParameter(OnPremiseConstant.PARAM_MAXITEMS, limit);
                 }
-                else
+
+                // read and parse
+                HttpUtils.Response resp = read(url, ErrorCodeRegistry.ACTIVITISTREAM_GENERIC);
+                json = JsonUtils.parseArray(resp.getStream(), resp.getCharset());
+
+                complete = json.size() != limit;
+                if (complete)
                 {
-                    json = json.subList(fromIndex, listingContext.getMaxItems() + fromIndex);
-                    b = true;
+                    snapshots.put(key, json);
                 }
             }
 
-            if (json != null)
+            PagingResult<Object> page = PagedSnapshotCache.page(json, listingContext);
+            ArrayList<ActivityEntry> result = new ArrayList<ActivityEntry>(page.getList().size());
+            for (Object obj : page.getList())
             {
-                for (Object obj : json)
-                {
-                    result.add(ActivityEntryImpl.parseJson((Map<String, Object>) obj));
-                }
+                result.add(ActivityEntryImpl.parseJson((Map<String, Object>) obj));
             }
 
-            return new PagingResultImpl<ActivityEntry>(result, b, size);
+            if (complete)
+            {
+                return new PagingResultImpl<ActivityEntry>(result, page.hasMoreItems(), page.getTotalItems());
+            }
+            else
+            {
+                return new PagingResultImpl<ActivityEntry>(result, true, -1);
+            }
         }
         catch (Exception e)
         {
@@ -130,4 +151,10 @@ public class OnPremiseActivityStreamServiceImpl extends AbstractActivityStreamSe
         }
         return null;
     }
+
+    private boolean isServerPaging()
+    {
+        Serializable value = session.getParameter(AlfrescoSession.ACTIVITY_STREAM_SERVER_PAGING);
+        return value != null && (Boolean) value;
+    }
 }
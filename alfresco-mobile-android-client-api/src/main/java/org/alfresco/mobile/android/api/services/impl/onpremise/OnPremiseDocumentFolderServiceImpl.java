@@ -52,7 +52,7 @@ public class OnPremiseDocumentFolderServiceImpl extends AbstractDocumentFolderSe
         {
             UrlBuilder url = new UrlBuilder(OnPremiseUrlRegistry.getThumbnailsUrl(session, identifier, type));
             url.addParameter("format", "json");
-            HttpUtils.Response resp = HttpUtils.invokeGET(url, getSessionHttp());
+            HttpUtils.Response resp = org.alfresco.mobile.android.api.utils.HttpUtils.invokeGET(url, getSessionHttp());
             org.alfresco.mobile.android.api.model.ContentStream cf;
             if (resp.getResponseCode() == HttpStatus.SC_NOT_FOUND)
             {
@@ -113,7 +113,7 @@ public class OnPremisePersonServiceImpl extends AbstractPersonService
     protected Person computePerson(UrlBuilder url)
     {
         Log.d("URL", url.toString());
-        HttpUtils.Response resp = HttpUtils.invokeGET(url, getSessionHttp());
+        HttpUtils.Response resp = org.alfresco.mobile.android.api.utils.HttpUtils.invokeGET(url, getSessionHttp());
 
         // check response code
         if (resp.getResponseCode() == HttpStatus.SC_NOT_FOUND)
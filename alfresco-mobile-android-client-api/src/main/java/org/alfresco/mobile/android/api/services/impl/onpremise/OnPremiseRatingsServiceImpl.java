@@ -22,6 +22,7 @@ import java.util.Map;
 import org.alfresco.mobile.android.api.constants.OnPremiseConstant;
 import org.alfresco.mobile.android.api.exceptions.ErrorCodeRegistry;
 import org.alfresco.mobile.android.api.model.Node;
+import org.alfresco.mobile.android.api.model.impl.RatingSummaryImpl;
 import org.alfresco.mobile.android.api.services.impl.AbstractRatingsService;
 import org.alfresco.mobile.android.api.session.RepositorySession;
 import org.alfresco.mobile.android.api.utils.JsonUtils;
@@ -75,44 +76,43 @@ public class OnPremiseRatingsServiceImpl extends AbstractRatingsService
     // ////////////////////////////////////////////////////////////////////////////////////
     // / INTERNAL
     // ////////////////////////////////////////////////////////////////////////////////////
+    /** {@inheritDoc} */
     @SuppressWarnings("unchecked")
-    protected int computeRatingsCount(UrlBuilder url)
+    protected RatingSummaryImpl computeRatings(UrlBuilder url)
     {
         // read and parse
         HttpUtils.Response resp = read(url, ErrorCodeRegistry.RATING_GENERIC);
         Map<String, Object> json = JsonUtils.parseObject(resp.getStream(), resp.getCharset());
 
         Map<String, Object> j = (Map<String, Object>) json.get(OnPremiseConstant.DATA_VALUE);
-        if (j.size() == 0 && j.get(OnPremiseConstant.NODESTATISTICS_VALUE) == null) { return -1; }
-
-        Map<String, Object> js = (Map<String, Object>) j.get(OnPremiseConstant.NODESTATISTICS_VALUE);
-        if (js.size() == 0 && js.get(OnPremiseConstant.LIKERATINGSSCHEME_VALUE) == null) { return -1; }
-
-        Map<String, Object> jso = (Map<String, Object>) js.get(OnPremiseConstant.LIKERATINGSSCHEME_VALUE);
-        if (jso.size() != 0 && jso.get(OnPremiseConstant.RATINGSCOUNT_VALUE) != null) { return Integer
-                .parseInt(JSONConverter.getString(jso, OnPremiseConstant.RATINGSCOUNT_VALUE)); }
-
-        return -1;
+        if (j == null) { return new RatingSummaryImpl(-1, false); }
+
+        // Number of likes
+        int count = -1;
+        Map<String, Object> likeStatistics = getLikeScheme(j, OnPremiseConstant.NODESTATISTICS_VALUE);
+        if (likeStatistics != null && likeStatistics.get(OnPremiseConstant.RATINGSCOUNT_VALUE) != null)
+        {
+            count = Integer.parseInt(JSONConverter.getString(likeStatistics, OnPremiseConstant.RATINGSCOUNT_VALUE));
+        }
+
+        // Like of the current user
+        boolean liked = false;
+        Map<String, Object> likeRating = getLikeScheme(j, OnPremiseConstant.RATINGS_VALUE);
+        if (likeRating != null && likeRating.get(OnPremiseConstant.APPLIEDBY_VALUE) != null)
+        {
+            liked = session.getPersonIdentifier().equals(
+                    JSONConverter.getString(likeRating, OnPremiseConstant.APPLIEDBY_VALUE));
+        }
+
+        return new RatingSummaryImpl(count, liked);
     }
 
     @SuppressWarnings("unchecked")
-    protected boolean computeIsRated(UrlBuilder url)
+    private static Map<String, Object> getLikeScheme(Map<String, Object> data, String key)
     {
-        // read and parse
-        HttpUtils.Response resp = read(url, ErrorCodeRegistry.RATING_GENERIC);
-        Map<String, Object> json = JsonUtils.parseObject(resp.getStream(), resp.getCharset());
-
-        Map<String, Object> j = (Map<String, Object>) json.get(OnPremiseConstant.DATA_VALUE);
-        if (j.size() == 0 && j.get(OnPremiseConstant.RATINGS_VALUE) == null) { return false; }
-
-        Map<String, Object> js = (Map<String, Object>) j.get(OnPremiseConstant.RATINGS_VALUE);
-        if (js.size() == 0 && js.get(OnPremiseConstant.LIKERATINGSSCHEME_VALUE) == null) { return false; }
-
-        Map<String, Object> jso = (Map<String, Object>) js.get(OnPremiseConstant.LIKERATINGSSCHEME_VALUE);
-        if (jso.size() != 0 && jso.get(OnPremiseConstant.APPLIEDBY_VALUE) != null) { return session
-                .getPersonIdentifier().equals(JSONConverter.getString(jso, OnPremiseConstant.APPLIEDBY_VALUE)); }
-
-        return false;
+        Map<String, Object> js = (Map<String, Object>) data.get(key);
+        if (js == null) { return null; }
+        return (Map<String, Object>) js.get(OnPremiseConstant.LIKERATINGSSCHEME_VALUE);
     }
 
 }
@@ -30,6 +30,7 @@ import org.alfresco.mobile.android.api.model.Site;
 import org.alfresco.mobile.android.api.model.impl.PagingResultImpl;
 import org.alfresco.mobile.android.api.model.impl.SiteImpl;
 import org.alfresco.mobile.android.api.services.impl.AbstractSiteServiceImpl;
+import org.alfresco.mobile.android.api.services.impl.PagedSnapshotCache;
 import org.alfresco.mobile.android.api.session.RepositorySession;
 import org.alfresco.mobile.android.api.utils.AlphaComparator;
 import org.alfresco.mobile.android.api.utils.JsonUtils;
@@ -178,36 +179,25 @@ public class OnPremiseSiteServiceImpl extends AbstractSiteServiceImpl
     protected PagingResult<Site> computeSites(UrlBuilder url, ListingContext listingContext)
     {
 
-        HttpUtils.Response resp = read(url, ErrorCodeRegistry.SITE_GENERIC);
-
-        List<Object> json = JsonUtils.parseArray(resp.getStream(), resp.getCharset());
-        int size = json.size();
-
-        List<Site> result = new ArrayList<Site>();
-        int fromIndex = 0, toIndex = size;
-        Boolean hasMoreItems = false;
-
-        // Define Listing Context
-        if (listingContext != null)
+        String key = getSnapshotKey(url.toString());
+        List<Object> json = null;
+        if (listingContext != null && listingContext.getSkipCount() > 0)
         {
-            fromIndex = (listingContext.getSkipCount() > size) ? size : listingContext.getSkipCount();
+            json = getSnapshotCache().get(key);
+        }
 
-            // Case if skipCount > result size
-            if (listingContext.getMaxItems() + fromIndex >= size)
-            {
-                toIndex = size;
-                hasMoreItems = false;
-            }
-            else
-            {
-                toIndex = listingContext.getMaxItems() + fromIndex;
-                hasMoreItems = true;
-            }
+        if (json == null)
+        {
+            HttpUtils.Response resp = read(url, ErrorCodeRegistry.SITE_GENERIC);
+            json = JsonUtils.parseArray(resp.getStream(), resp.getCharset());
+            getSnapshotCache().put(key, json);
         }
 
-        for (int i = fromIndex; i < toIndex; i++)
+        PagingResult<Object> page = PagedSnapshotCache.page(json, listingContext);
+        List<Site> result = new ArrayList<Site>(page.getList().size());
+        for (Object obj : page.getList())
         {
-            result.add(SiteImpl.parseJson((Map<String, Object>) json.get(i)));
+            result.add(SiteImpl.parseJson((Map<String, Object>) obj));
         }
 
         if (listingContext != null)
@@ -216,7 +206,7 @@ public class OnPremiseSiteServiceImpl extends AbstractSiteServiceImpl
                     new AlphaComparator(listingContext.isSortAscending(), listingContext.getSortProperty()));
         }
 
-        return new PagingResultImpl<Site>(result, hasMoreItems, size);
+        return new PagingResultImpl<Site>(result, page.hasMoreItems(), page.getTotalItems());
 
     }
 
@@ -227,7 +217,7 @@ public class OnPremiseSiteServiceImpl extends AbstractSiteServiceImpl
         String n = null;
 
         UrlBuilder url = new UrlBuilder(link);
-        HttpUtils.Response resp = HttpUtils.invokeGET(url, getSessionHttp());
+        HttpUtils.Response resp = org.alfresco.mobile.android.api.utils.HttpUtils.invokeGET(url, getSessionHttp());
 
         // check response code
         if (resp.getResponseCode() == HttpStatus.SC_NOT_FOUND)
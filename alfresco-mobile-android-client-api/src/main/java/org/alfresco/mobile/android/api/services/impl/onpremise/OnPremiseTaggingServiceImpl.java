@@ -32,6 +32,7 @@ import org.alfresco.mobile.android.api.model.impl.PagingResultImpl;
 import org.alfresco.mobile.android.api.model.impl.TagImpl;
 import org.alfresco.mobile.android.api.services.TaggingService;
 import org.alfresco.mobile.android.api.services.impl.AlfrescoService;
+import org.alfresco.mobile.android.api.services.impl.PagedSnapshotCache;
 import org.alfresco.mobile.android.api.session.RepositorySession;
 import org.alfresco.mobile.android.api.utils.JsonDataWriter;
 import org.alfresco.mobile.android.api.utils.JsonUtils;
@@ -152,6 +153,10 @@ public class OnPremiseTaggingServiceImpl extends AlfrescoService implements Tagg
                     formData.write(out);
                 }
             }, ErrorCodeRegistry.TAGGING_GENERIC);
+
+            // Tags listings of the node and of the repository changed.
+            getSnapshotCache().invalidate(url.toString());
+            getSnapshotCache().invalidate(new UrlBuilder(OnPremiseUrlRegistry.getTagsUrl(session)).toString());
         }
         catch (Exception e)
         {
@@ -164,97 +169,74 @@ public class OnPremiseTaggingServiceImpl extends AlfrescoService implements Tagg
     // ////////////////////////////////////////////////////////////////////////////////////
     private PagingResult<Tag> computeTag(UrlBuilder url, ListingContext listingContext) throws JSONException
     {
-        HttpUtils.Response resp = read(url, ErrorCodeRegistry.TAGGING_GENERIC);
-
-        String resultsString = JsonUtils.convertStreamToString(resp.getStream());
-        List<Tag> tags = new ArrayList<Tag>();
-
-        JSONArray results = new JSONArray(resultsString);
-
-        int fromIndex = 0, toIndex = results.length();
-        Boolean hasMoreItems = false;
+        String key = getSnapshotKey(url.toString());
+        List<String> names = null;
+        if (listingContext != null && listingContext.getSkipCount() > 0)
+        {
+            names = getSnapshotCache().get(key);
+        }
 
-        // Define Listing Context
-        if (listingContext != null)
+        if (names == null)
         {
-            fromIndex = (listingContext.getSkipCount() > results.length()) ? results.length() : listingContext
-                    .getSkipCount();
+            HttpUtils.Response resp = read(url, ErrorCodeRegistry.TAGGING_GENERIC);
+            JSONArray results = new JSONArray(JsonUtils.convertStreamToString(resp.getStream()));
 
-            // Case if skipCount > result size
-            if (listingContext.getMaxItems() + fromIndex >= results.length())
-            {
-                toIndex = results.length();
-                hasMoreItems = false;
-            }
-            else
+            names = new ArrayList<String>(results.length());
+            for (int i = 0; i < results.length(); i++)
             {
-                toIndex = listingContext.getMaxItems() + fromIndex;
-                hasMoreItems = true;
+                names.add(results.getString(i));
             }
+            getSnapshotCache().put(key, names);
         }
 
-        for (int i = fromIndex; i < toIndex; i++)
-        {
-            tags.add(new TagImpl(results.getString(i)));
-        }
-
-        return new PagingResultImpl<Tag>(tags, hasMoreItems, results.length());
+        return createTags(names, listingContext);
     }
 
     private PagingResult<Tag> computeSimpleTag(UrlBuilder url, ListingContext listingContext)
     {
-        HttpUtils.Response resp = read(url, ErrorCodeRegistry.TAGGING_GENERIC);
-        String resultsString = JsonUtils.convertStreamToString(resp.getStream());
-        List<Tag> tags = new ArrayList<Tag>();
-
-        String[] results;
-        String tag = null;
-        results = resultsString.replace("[", "").replace("]", "").replaceAll("\t", "").trim().split("\n");
-
-        int fromIndex = 0, toIndex = results.length, totalItems = results.length;
-        Boolean hasMoreItems = false;
-
-        // Define Listing Context
-        if (listingContext != null)
+        String key = getSnapshotKey(url.toString());
+        List<String> names = null;
+        if (listingContext != null && listingContext.getSkipCount() > 0)
         {
-            fromIndex = (listingContext.getSkipCount() > results.length) ? results.length : listingContext
-                    .getSkipCount();
-
-            // Case if skipCount > result size
-            if (listingContext.getMaxItems() + fromIndex >= results.length)
-            {
-                toIndex = results.length;
-                hasMoreItems = false;
-            }
-            else
-            {
-                toIndex = listingContext.getMaxItems() + fromIndex;
-                hasMoreItems = true;
-
-            }
+            names = getSnapshotCache().get(key);
         }
 
-        for (int i = fromIndex; i < toIndex; i++)
+        if (names == null)
         {
-            if (results[i].length() == 0)
+            HttpUtils.Response resp = read(url, ErrorCodeRegistry.TAGGING_GENERIC);
+            String resultsString = JsonUtils.convertStreamToString(resp.getStream());
+
+            String[] results = resultsString.replace("[", "").replace("]", "").replaceAll("\t", "").trim()
+                    .split("\n");
+
+            names = new ArrayList<String>(results.length);
+            for (int i = 0; i < results.length; i++)
             {
-                if (toIndex + 1 < results.length)
+                if (results[i].length() == 0)
                 {
-                    toIndex++;
+                    continue;
                 }
-                totalItems--;
-                continue;
-            }
-            if (i == results.length - 1)
-            {
-                tag = results[i];
-                tags.add(new TagImpl(tag));
-                continue;
+                if (i == results.length - 1)
+                {
+                    names.add(results[i]);
+                    continue;
+                }
+                names.add(results[i].substring(0, results[i].lastIndexOf(",")));
             }
-            tag = results[i].substring(0, results[i].lastIndexOf(","));
-            tags.add(new TagImpl(tag));
+            getSnapshotCache().put(key, names);
         }
 
-        return new PagingResultImpl<Tag>(tags, hasMoreItems, totalItems);
+        return createTags(names, listingContext);
+    }
+
+    private PagingResult<Tag> createTags(List<String> names, ListingContext listingContext)
+    {
+        PagingResult<String> page = PagedSnapshotCache.page(names, listingContext);
+        List<Tag> tags = new ArrayList<Tag>(page.getList().size());
+        for (String name : page.getList())
+        {
+            tags.add(new TagImpl(name));
+        }
+        return new PagingResultImpl<Tag>(tags, page.hasMoreItems(), page.getTotalItems());
     }
 }
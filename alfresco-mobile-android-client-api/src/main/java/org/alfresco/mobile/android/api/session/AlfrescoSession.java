@@ -25,6 +25,7 @@ import org.alfresco.mobile.android.api.model.Folder;
 import org.alfresco.mobile.android.api.model.ListingContext;
 import org.alfresco.mobile.android.api.model.RepositoryInfo;
 import org.alfresco.mobile.android.api.services.ServiceRegistry;
+import org.alfresco.mobile.android.api.utils.ConnectionPoolStatistics;
 
 /**
  * RepositorySession represents a connection to an on-premise repository as a
@@ -48,14 +49,14 @@ public interface AlfrescoSession
     String AUTHENTICATOR_CLASSNAME = "org.alfresco.mobile.api.authenticator.classname";
 
     /**
-     * Allow metadata extraction during file import. Value must be a boolean.
-     * Default : false
+     * Allow metadata extraction during file import. The request is sent in
+     * background after the creation. Value must be a boolean. Default : false
      */
     String EXTRACT_METADATA = "org.alfresco.mobile.features.extractmetadata";
 
     /**
-     * Allow thumbnail generation during file import. Value must be a boolean.
-     * Default : false
+     * Allow thumbnail generation during file import. The request is sent in
+     * background after the creation. Value must be a boolean. Default : false
      */
     String CREATE_THUMBNAIL = "org.alfresco.mobile.features.generatethumbnails";
 
@@ -64,6 +65,41 @@ public interface AlfrescoSession
     // ///////////////////////////////////////////////
     String LISTING_MAX_ITEMS = "org.alfresco.mobile.api.listing.maxitems";
 
+    /**
+     * Time to live in milliseconds of the complete listings kept by the
+     * session to serve following pages of REST API without server side
+     * paging. Value must be a long. Default : 60000
+     */
+    String LISTING_SNAPSHOT_TTL = "org.alfresco.mobile.api.listing.snapshot.ttl";
+
+    /**
+     * Estimated memory in bytes the complete listings kept by the session can
+     * use. Value must be a long. Default : 1048576
+     */
+    String LISTING_SNAPSHOT_MEMORY = "org.alfresco.mobile.api.listing.snapshot.memory";
+
+    /**
+     * Push the requested page size to the activity stream REST API instead of
+     * fetching the complete feed. Only for repositories supporting the
+     * maxItems parameter. Value must be a boolean. Default : false
+     */
+    String ACTIVITY_STREAM_SERVER_PAGING = "org.alfresco.mobile.api.activitystream.serverpaging";
+
+    /**
+     * Maximum number of node identifiers resolved by one request of
+     * DocumentFolderService.getNodesByIdentifiers. Value must be an integer.
+     * Default : 50
+     */
+    String NODES_BATCH_SIZE = "org.alfresco.mobile.api.nodes.batchsize";
+
+    /**
+     * Nodes returned by create and update methods of DocumentFolderService
+     * are built from the values sent to the server. The node is retrieved
+     * from the server only when an other value is requested. Value must be a
+     * boolean. Default : false
+     */
+    String LAZY_NODE_REFRESH = "org.alfresco.mobile.api.nodes.lazyrefresh";
+
     // ///////////////////////////////////////////////
     // CACHE
     // ///////////////////////////////////////////////
@@ -143,4 +179,10 @@ public interface AlfrescoSession
      */
     List<String> getParameterKeys();
 
+    /**
+     * Returns the request counters of the http transport for the host of the
+     * repository or null if the current transport doesn't provide them.
+     */
+    ConnectionPoolStatistics getConnectionPoolStatistics();
+
 }
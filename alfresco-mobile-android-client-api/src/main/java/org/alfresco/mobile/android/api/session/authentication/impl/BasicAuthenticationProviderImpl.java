@@ -44,7 +44,8 @@ public class BasicAuthenticationProviderImpl extends AuthenticationProviderImpl
 
     private Map<String, Serializable> parameters;
 
-    private Map<String, List<String>> fixedHeaders = new HashMap<String, List<String>>();
+    /** Precomputed headers shared by all requests. Immutable. */
+    private Map<String, List<String>> fixedHeaders;
 
     public BasicAuthenticationProviderImpl(Map<String, Serializable> parameters)
     {
@@ -67,8 +68,7 @@ public class BasicAuthenticationProviderImpl extends AuthenticationProviderImpl
 
     public Map<String, List<String>> getHTTPHeaders()
     {
-        Map<String, List<String>> result = new HashMap<String, List<String>>(fixedHeaders);
-        return result.isEmpty() ? null : result;
+        return fixedHeaders;
     }
 
     private String getParameter(String key)
@@ -84,6 +84,8 @@ public class BasicAuthenticationProviderImpl extends AuthenticationProviderImpl
 
     private void init()
     {
+        Map<String, List<String>> headers = new HashMap<String, List<String>>();
+
         // authentication
         if (sendBasicAuth)
         {
@@ -94,7 +96,7 @@ public class BasicAuthenticationProviderImpl extends AuthenticationProviderImpl
             // if no user is set, don't set basic auth header
             if (mUser != null)
             {
-                fixedHeaders.put("Authorization", createBasicAuthHeaderValue(mUser, mPassword));
+                headers.put("Authorization", createBasicAuthHeaderValue(mUser, mPassword));
             }
 
             // get proxy user and password
@@ -105,7 +107,7 @@ public class BasicAuthenticationProviderImpl extends AuthenticationProviderImpl
             // if no proxy user is set, don't set basic auth header
             if (proxyUser != null)
             {
-                fixedHeaders.put("Proxy-Authorization", createBasicAuthHeaderValue(proxyUser, proxyPassword));
+                headers.put("Proxy-Authorization", createBasicAuthHeaderValue(proxyUser, proxyPassword));
             }
         }
 
@@ -122,21 +124,23 @@ public class BasicAuthenticationProviderImpl extends AuthenticationProviderImpl
                 if (key.length() > 0)
                 {
                     String value = header.substring(colon + 1).trim();
-                    List<String> values = fixedHeaders.get(key);
+                    List<String> values = headers.get(key);
                     if (values == null)
                     {
-                        fixedHeaders.put(key, Collections.singletonList(value));
+                        headers.put(key, Collections.singletonList(value));
                     }
                     else
                     {
                         List<String> newValues = new ArrayList<String>(values);
                         newValues.add(value);
-                        fixedHeaders.put(key, newValues);
+                        headers.put(key, newValues);
                     }
                 }
             }
             x++;
         }
+
+        this.fixedHeaders = headers.isEmpty() ? null : Collections.unmodifiableMap(headers);
     }
 
     private String getPassword()
@@ -38,9 +38,10 @@ public class OAuth2AuthenticationProviderImpl extends AuthenticationProviderImpl
 
     private static final String TOKEN_TYPE_BEARER = "Bearer";
 
-    private OAuthData token;
+    private volatile OAuthData token;
 
-    private Map<String, List<String>> fixedHeaders = new HashMap<String, List<String>>();
+    /** Precomputed headers. Rebuilt only when the OAuth data changes. */
+    private volatile Map<String, List<String>> fixedHeaders;
 
     public OAuth2AuthenticationProviderImpl(OAuthData oauthData)
     {
@@ -51,13 +52,14 @@ public class OAuth2AuthenticationProviderImpl extends AuthenticationProviderImpl
     @Override
     public Map<String, List<String>> getHTTPHeaders()
     {
-        Map<String, List<String>> result = new HashMap<String, List<String>>(fixedHeaders);
-        return result.isEmpty() ? null : result;
+        return fixedHeaders;
     }
 
     private void retrieveAccessToken()
     {
-        fixedHeaders.put("Authorization", Collections.singletonList(TOKEN_TYPE_BEARER + " " + token.getAccessToken()));
+        Map<String, List<String>> headers = new HashMap<String, List<String>>(1);
+        headers.put("Authorization", Collections.singletonList(TOKEN_TYPE_BEARER + " " + token.getAccessToken()));
+        fixedHeaders = Collections.unmodifiableMap(headers);
     }
 
     @Override
@@ -82,6 +84,12 @@ public class OAuth2AuthenticationProviderImpl extends AuthenticationProviderImpl
     @Override
     public void setOAuthData(OAuthData data)
     {
+        if (token != null && data != null && token.getAccessToken() != null
+                && token.getAccessToken().equals(data.getAccessToken()))
+        {
+            this.token = data;
+            return;
+        }
         this.token = data;
         retrieveAccessToken();
     }
@@ -19,6 +19,8 @@ package org.alfresco.mobile.android.api.session.impl;
 
 import java.io.Serializable;
 import java.lang.reflect.Constructor;
+import java.net.MalformedURLException;
+import java.net.URL;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -30,16 +32,24 @@ import org.alfresco.mobile.android.api.model.Folder;
 import org.alfresco.mobile.android.api.model.ListingContext;
 import org.alfresco.mobile.android.api.model.RepositoryInfo;
 import org.alfresco.mobile.android.api.services.ServiceRegistry;
+import org.alfresco.mobile.android.api.services.impl.PagedSnapshotCache;
+import org.alfresco.mobile.android.api.services.impl.PostProcessingQueue;
 import org.alfresco.mobile.android.api.session.AlfrescoSession;
 import org.alfresco.mobile.android.api.session.CloudSession;
 import org.alfresco.mobile.android.api.session.RepositorySession;
 import org.alfresco.mobile.android.api.session.authentication.AuthenticationProvider;
 import org.alfresco.mobile.android.api.session.authentication.impl.PassthruAuthenticationProviderImpl;
 import org.alfresco.mobile.android.api.utils.CloudUrlRegistry;
+import org.alfresco.mobile.android.api.utils.ConnectionPoolStatistics;
+import org.alfresco.mobile.android.api.utils.HttpUtils;
+import org.alfresco.mobile.android.api.utils.KeepAliveHttpTransport;
 import org.alfresco.mobile.android.api.utils.OnPremiseUrlRegistry;
 import org.alfresco.mobile.android.api.utils.messages.Messagesl18n;
 import org.apache.chemistry.opencmis.client.api.Session;
 import org.apache.chemistry.opencmis.client.api.SessionFactory;
+import org.apache.chemistry.opencmis.client.bindings.impl.CmisBindingsHelper;
+import org.apache.chemistry.opencmis.client.bindings.impl.SessionImpl;
+import org.apache.chemistry.opencmis.client.bindings.spi.BindingSession;
 import org.apache.chemistry.opencmis.client.runtime.SessionFactoryImpl;
 import org.apache.chemistry.opencmis.commons.SessionParameter;
 import org.apache.chemistry.opencmis.commons.enums.BindingType;
@@ -78,6 +88,15 @@ public abstract class AbstractAlfrescoSessionImpl implements AlfrescoSession
 
     protected org.apache.chemistry.opencmis.commons.spi.AuthenticationProvider passThruAuthenticator;
 
+    /** Binding session shared by all services for http requests. */
+    private volatile BindingSession httpSession;
+
+    /** Complete listings kept to serve following pages. */
+    private PagedSnapshotCache snapshotCache;
+
+    /** Requests sent in background after document creations. */
+    private PostProcessingQueue postProcessingQueue;
+
     // ////////////////////////
     // Constructor
     // ///////////////////////
@@ -381,6 +400,16 @@ public abstract class AbstractAlfrescoSessionImpl implements AlfrescoSession
     public void disconnect()
     {
         this.authenticator = null;
+        this.httpSession = null;
+        if (snapshotCache != null)
+        {
+            snapshotCache.clear();
+        }
+        if (postProcessingQueue != null)
+        {
+            postProcessingQueue.shutdown();
+            postProcessingQueue = null;
+        }
         this.cmisSession = null;
         this.repositoryInfo = null;
         this.rootNode = null;
@@ -477,6 +506,89 @@ public abstract class AbstractAlfrescoSessionImpl implements AlfrescoSession
         return passThruAuthenticator;
     }
 
+    /**
+     * Returns the binding session shared by all services to execute http
+     * requests. The binding session is created once per session and rebuilt
+     * only if the authentication provider changes.
+     * 
+     * @return Binding session holding the passthru authentication provider.
+     */
+    public BindingSession getHttpSession()
+    {
+        BindingSession s = httpSession;
+        if (s == null || s.get(CmisBindingsHelper.AUTHENTICATION_PROVIDER_OBJECT) != passThruAuthenticator)
+        {
+            synchronized (this)
+            {
+                s = httpSession;
+                if (s == null || s.get(CmisBindingsHelper.AUTHENTICATION_PROVIDER_OBJECT) != passThruAuthenticator)
+                {
+                    s = new SessionImpl();
+                    s.put(CmisBindingsHelper.AUTHENTICATION_PROVIDER_OBJECT, passThruAuthenticator);
+                    httpSession = s;
+                }
+            }
+        }
+        return s;
+    }
+
+    /**
+     * Returns the complete listings kept by the session to serve following
+     * pages of REST API without server side paging.
+     * 
+     * @return snapshot cache associated to the session.
+     */
+    public synchronized PagedSnapshotCache getPagedSnapshotCache()
+    {
+        if (snapshotCache == null)
+        {
+            long ttl = PagedSnapshotCache.DEFAULT_TTL;
+            if (hasParameter(AlfrescoSession.LISTING_SNAPSHOT_TTL))
+            {
+                ttl = ((Number) getParameter(AlfrescoSession.LISTING_SNAPSHOT_TTL)).longValue();
+            }
+            long memoryBudget = PagedSnapshotCache.DEFAULT_MEMORY_BUDGET;
+            if (hasParameter(AlfrescoSession.LISTING_SNAPSHOT_MEMORY))
+            {
+                memoryBudget = ((Number) getParameter(AlfrescoSession.LISTING_SNAPSHOT_MEMORY)).longValue();
+            }
+            snapshotCache = new PagedSnapshotCache(ttl, memoryBudget);
+        }
+        return snapshotCache;
+    }
+
+    /**
+     * Returns the queue of metadata extraction and thumbnail generation
+     * requests sent in background after document creations.
+     * 
+     * @return post processing queue associated to the session.
+     */
+    public synchronized PostProcessingQueue getPostProcessingQueue()
+    {
+        if (postProcessingQueue == null)
+        {
+            postProcessingQueue = new PostProcessingQueue();
+        }
+        return postProcessingQueue;
+    }
+
+    /**
+     * @return Returns the request counters of the http transport for the host
+     *         of the repository or null if the current transport doesn't
+     *         provide them.
+     */
+    public ConnectionPoolStatistics getConnectionPoolStatistics()
+    {
+        try
+        {
+            return HttpUtils.getTransport().getStatistics(KeepAliveHttpTransport.getHost(new URL(baseUrl)));
+        }
+        catch (MalformedURLException e)
+        {
+            return null;
+        }
+    }
+
     /**
      * @return Returns the current default listing parameters for filtering,
      *         paging and caching.
@@ -21,17 +21,14 @@ import static org.alfresco.mobile.android.api.constants.OAuthConstant.CLOUD_URL;
 
 import java.io.Serializable;
 import java.lang.reflect.Constructor;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
-import org.alfresco.mobile.android.api.constants.CloudConstant;
 import org.alfresco.mobile.android.api.exceptions.AlfrescoConnectionException;
 import org.alfresco.mobile.android.api.exceptions.ErrorCodeRegistry;
 import org.alfresco.mobile.android.api.exceptions.impl.ExceptionHelper;
 import org.alfresco.mobile.android.api.model.PagingResult;
 import org.alfresco.mobile.android.api.model.impl.FolderImpl;
-import org.alfresco.mobile.android.api.model.impl.PagingResultImpl;
 import org.alfresco.mobile.android.api.model.impl.cloud.CloudRepositoryInfoImpl;
 import org.alfresco.mobile.android.api.services.impl.cloud.CloudServiceRegistry;
 import org.alfresco.mobile.android.api.session.AlfrescoSession;
@@ -45,6 +42,7 @@ import org.alfresco.mobile.android.api.session.authentication.impl.OAuth2Authent
 import org.alfresco.mobile.android.api.session.authentication.impl.PassthruAuthenticationProviderImpl;
 import org.alfresco.mobile.android.api.utils.CloudUrlRegistry;
 import org.alfresco.mobile.android.api.utils.PublicAPIResponse;
+import org.alfresco.mobile.android.api.utils.PublicAPIResponse.EntryDecoder;
 import org.alfresco.mobile.android.api.utils.messages.Messagesl18n;
 import org.apache.chemistry.opencmis.client.bindings.spi.http.HttpUtils.Response;
 import org.apache.chemistry.opencmis.client.runtime.SessionFactoryImpl;
@@ -228,18 +226,16 @@ public class CloudSessionImpl extends CloudSession
             ExceptionHelper.convertStatusCode(null, resp, ErrorCodeRegistry.SESSION_GENERIC);
         }
 
-        PublicAPIResponse response = new PublicAPIResponse(resp);
+        return PublicAPIResponse.parseList(resp, NETWORK_DECODER);
+    }
 
-        List<CloudNetwork> result = new ArrayList<CloudNetwork>();
-        Map<String, Object> data = null;
-        for (Object entry : response.getEntries())
+    private static final EntryDecoder<CloudNetwork> NETWORK_DECODER = new EntryDecoder<CloudNetwork>()
+    {
+        public CloudNetwork decode(Map<String, Object> entry)
         {
-            data = (Map<String, Object>) ((Map<String, Object>) entry).get(CloudConstant.ENTRY_VALUE);
-            result.add(CloudNetworkImpl.parsePublicAPIJson(data));
+            return CloudNetworkImpl.parsePublicAPIJson(entry);
         }
-
-        return new PagingResultImpl<CloudNetwork>(result, response.getHasMoreItems(), response.getSize());
-    }
+    };
 
     @Override
     public List<CloudNetwork> getNetworks()
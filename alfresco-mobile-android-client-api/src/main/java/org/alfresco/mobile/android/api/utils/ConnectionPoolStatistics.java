@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * Copyright (C) 2005-2012 Alfresco Software Limited.
+ * 
+ * This file is part of the Alfresco Mobile SDK.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ ******************************************************************************/
+package org.alfresco.mobile.android.api.utils;
+
+import java.io.Serializable;
+
+/**
+ * Snapshot of the requests sent to one host. </br> A response read to the end
+ * gives its connection back to the platform pool : the number of completed
+ * responses compared to the number of requests shows how often connections
+ * can be reused.
+ * 
+ * @author Jean Marie Pascal
+ */
+public class ConnectionPoolStatistics implements Serializable
+{
+    private static final long serialVersionUID = 1L;
+
+    private String host;
+
+    private long requestCount;
+
+    private long completedResponseCount;
+
+    private long drainedBytes;
+
+    public ConnectionPoolStatistics(String host, long requestCount, long completedResponseCount, long drainedBytes)
+    {
+        this.host = host;
+        this.requestCount = requestCount;
+        this.completedResponseCount = completedResponseCount;
+        this.drainedBytes = drainedBytes;
+    }
+
+    /**
+     * @return Returns the host associated to this pool.
+     */
+    public String getHost()
+    {
+        return host;
+    }
+
+    /**
+     * @return Returns the number of requests executed against the host.
+     */
+    public long getRequestCount()
+    {
+        return requestCount;
+    }
+
+    /**
+     * @return Returns the number of responses read to the end. Their
+     *         connection can be reused by the platform pool.
+     */
+    public long getCompletedResponseCount()
+    {
+        return completedResponseCount;
+    }
+
+    /**
+     * @return Returns the number of unread response bytes consumed to give
+     *         back connections to the pool.
+     */
+    public long getDrainedBytes()
+    {
+        return drainedBytes;
+    }
+
+    @Override
+    public String toString()
+    {
+        return host + " [requests=" + requestCount + ", completed=" + completedResponseCount + ", drained="
+                + drainedBytes + "]";
+    }
+}
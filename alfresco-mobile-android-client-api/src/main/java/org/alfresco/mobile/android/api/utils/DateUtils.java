@@ -1,91 +1,291 @@
-/*******************************************************************************
- * Copyright (C) 2005-2012 Alfresco Software Limited.
- * 
- * This file is part of the Alfresco Mobile SDK.
- * 
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *  
- *  http://www.apache.org/licenses/LICENSE-2.0
- * 
- *  Unless required by applicable law or agreed to in writing, software
- *  distributed under the License is distributed on an "AS IS" BASIS,
- *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- *  See the License for the specific language governing permissions and
- *  limitations under the License.
- ******************************************************************************/
-package org.alfresco.mobile.android.api.utils;
-
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.Locale;
-
-/**
- * List of static methods to manage date.
- * 
- * @author Jean Marie Pascal
- */
-public final class DateUtils
-{
-    
-    private DateUtils(){
-        
-    }
-    
-    public static final String FORMAT_1 = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'";
-
-    public static final String FORMAT_2 = "yyyy-MM-dd'T'HH:mm:ss'Z'";
-
-    public static final String FORMAT_3 = "yyyy-MM-dd'T'HH:mm:ss.SSSZ";
-
-    public static final String FORMAT_4 = "MMM dd yyyy HH:mm:ss zzzz";
-
-    public static final String FORMAT_5 = "dd MMM yyyy HH:mm:ss zzzz";
-
-    private static final String[] DATE_FORMATS = { FORMAT_1, FORMAT_2, FORMAT_3, FORMAT_4, FORMAT_5 };
-
-    public static Date parseJsonDate(String jsonDate)
-    {
-        return parseDate(jsonDate, FORMAT_4);
-    }
-
-    public static Date parseDate(String atomPubDate)
-    {
-        Date d = null;
-        SimpleDateFormat sdf;
-        for (int i = 0; i < DATE_FORMATS.length; i++)
-        {
-            sdf = new SimpleDateFormat(DATE_FORMATS[i], Locale.UK);
-            sdf.setLenient(true);
-            try
-            {
-                d = sdf.parse(atomPubDate);
-                break;
-            }
-            catch (ParseException e)
-            {
-                continue;
-            }
-        }
-
-        return d;
-    }
-
-    public static Date parseDate(String date, String format)
-    {
-        Date d = null;
-        SimpleDateFormat sdf = new SimpleDateFormat(format, Locale.UK);
-        sdf.setLenient(true);
-        try
-        {
-            d = sdf.parse(date);
-        }
-        catch (ParseException e)
-        {
-            d = parseDate(date);
-        }
-        return d;
-    }
-}
+/*******************************************************************************
+ * Copyright (C) 2005-2012 Alfresco Software Limited.
+ * 
+ * This file is part of the Alfresco Mobile SDK.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ ******************************************************************************/
+package org.alfresco.mobile.android.api.utils;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * List of static methods to manage date. </br> Dates returned by Alfresco
+ * (FORMAT_1 to FORMAT_5) are parsed by hand : the format is picked by
+ * inspecting the string once and the only allocation is the resulting Date.
+ * Strings the parser doesn't recognize (named time zones, full month
+ * names...) fall back to SimpleDateFormat. All methods are thread safe.
+ * 
+ * @author Jean Marie Pascal
+ */
+public final class DateUtils
+{
+    
+    private DateUtils(){
+        
+    }
+    
+    public static final String FORMAT_1 = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'";
+
+    public static final String FORMAT_2 = "yyyy-MM-dd'T'HH:mm:ss'Z'";
+
+    public static final String FORMAT_3 = "yyyy-MM-dd'T'HH:mm:ss.SSSZ";
+
+    public static final String FORMAT_4 = "MMM dd yyyy HH:mm:ss zzzz";
+
+    public static final String FORMAT_5 = "dd MMM yyyy HH:mm:ss zzzz";
+
+    private static final String[] DATE_FORMATS = { FORMAT_1, FORMAT_2, FORMAT_3, FORMAT_4, FORMAT_5 };
+
+    /** Returned by internal parsing methods if the string is not recognized. */
+    private static final long INVALID = Long.MIN_VALUE;
+
+    private static final String MONTHS = "JanFebMarAprMayJunJulAugSepOctNovDec";
+
+    public static Date parseJsonDate(String jsonDate)
+    {
+        return parseDate(jsonDate, FORMAT_4);
+    }
+
+    public static Date parseDate(String atomPubDate)
+    {
+        if (atomPubDate == null) { return null; }
+
+        long time = parse(atomPubDate);
+        if (time != INVALID) { return new Date(time); }
+
+        return parseWithFormats(atomPubDate);
+    }
+
+    public static Date parseDate(String date, String format)
+    {
+        if (date == null) { return null; }
+
+        long time = parse(date);
+        if (time != INVALID) { return new Date(time); }
+
+        Date d = null;
+        SimpleDateFormat sdf = new SimpleDateFormat(format, Locale.UK);
+        sdf.setLenient(true);
+        try
+        {
+            d = sdf.parse(date);
+        }
+        catch (ParseException e)
+        {
+            d = parseWithFormats(date);
+        }
+        return d;
+    }
+
+    // ////////////////////////////////////////////////////
+    // INTERNAL
+    // ////////////////////////////////////////////////////
+    /**
+     * Picks the format by inspecting the string.
+     * 
+     * @return number of milliseconds since epoch or INVALID.
+     */
+    private static long parse(String date)
+    {
+        int length = date.length();
+        if (length < 20) { return INVALID; }
+
+        char first = date.charAt(0);
+        if (date.charAt(4) == '-' && date.charAt(10) == 'T')
+        {
+            // FORMAT_1, FORMAT_2, FORMAT_3
+            return parseIso(date);
+        }
+        else if (Character.isLetter(first))
+        {
+            // FORMAT_4 : MMM dd yyyy HH:mm:ss zzzz
+            int month = parseMonth(date, 0);
+            if (month < 0 || date.charAt(3) != ' ' || date.charAt(6) != ' ') { return INVALID; }
+            return parseDateTime(date, parseNumber(date, 7, 4), month, parseNumber(date, 4, 2), 11);
+        }
+        else if (first >= '0' && first <= '9' && date.charAt(2) == ' ')
+        {
+            // FORMAT_5 : dd MMM yyyy HH:mm:ss zzzz
+            int month = parseMonth(date, 3);
+            if (month < 0 || date.charAt(6) != ' ') { return INVALID; }
+            return parseDateTime(date, parseNumber(date, 7, 4), month, parseNumber(date, 0, 2), 11);
+        }
+        return INVALID;
+    }
+
+    /**
+     * Parses yyyy-MM-ddTHH:mm:ss followed by optional fraction of seconds and
+     * by Z or a numeric offset.
+     */
+    private static long parseIso(String date)
+    {
+        int year = parseNumber(date, 0, 4);
+        int month = parseNumber(date, 5, 2);
+        int day = parseNumber(date, 8, 2);
+        int hour = parseNumber(date, 11, 2);
+        int minute = parseNumber(date, 14, 2);
+        int second = parseNumber(date, 17, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 0 || hour < 0 || minute < 0 || second < 0
+                || date.charAt(7) != '-' || date.charAt(13) != ':' || date.charAt(16) != ':') { return INVALID; }
+
+        int length = date.length();
+        int pos = 19;
+        int millis = 0;
+        if (date.charAt(pos) == '.')
+        {
+            pos++;
+            int scale = 100;
+            while (pos < length && date.charAt(pos) >= '0' && date.charAt(pos) <= '9')
+            {
+                millis += (date.charAt(pos) - '0') * scale;
+                scale /= 10;
+                pos++;
+            }
+        }
+
+        if (pos >= length) { return INVALID; }
+        int offset = parseOffset(date, pos);
+        if (offset == Integer.MIN_VALUE) { return INVALID; }
+
+        return toMillis(year, month, day, hour, minute, second) + millis - offset * 60000L;
+    }
+
+    /**
+     * Parses "HH:mm:ss zzzz" starting at the position and combines it with
+     * the date.
+     */
+    private static long parseDateTime(String date, int year, int month, int day, int pos)
+    {
+        int hour = parseNumber(date, pos + 1, 2);
+        int minute = parseNumber(date, pos + 4, 2);
+        int second = parseNumber(date, pos + 7, 2);
+        if (year < 0 || day < 0 || hour < 0 || minute < 0 || second < 0 || date.charAt(pos) != ' '
+                || date.charAt(pos + 3) != ':' || date.charAt(pos + 6) != ':' || date.charAt(pos + 9) != ' ') { return INVALID; }
+
+        pos += 10;
+        if (pos >= date.length()) { return INVALID; }
+        int offset = parseOffset(date, pos);
+        if (offset == Integer.MIN_VALUE) { return INVALID; }
+
+        return toMillis(year, month, day, hour, minute, second) - offset * 60000L;
+    }
+
+    /**
+     * Parses a time zone : Z, GMT, UTC optionally followed by +hh, +hhmm or
+     * +hh:mm. Trailing characters like " (BST)" are ignored.
+     * 
+     * @return offset in minutes or Integer.MIN_VALUE.
+     */
+    private static int parseOffset(String date, int pos)
+    {
+        int length = date.length();
+        if (date.charAt(pos) == 'Z') { return 0; }
+        if (date.startsWith("GMT", pos) || date.startsWith("UTC", pos))
+        {
+            pos += 3;
+            if (pos >= length || (date.charAt(pos) != '+' && date.charAt(pos) != '-')) { return 0; }
+        }
+
+        char sign = date.charAt(pos);
+        if ((sign != '+' && sign != '-') || pos + 3 > length) { return Integer.MIN_VALUE; }
+        int hours = parseNumber(date, pos + 1, 2);
+        int minutes = 0;
+        pos += 3;
+        if (pos < length && date.charAt(pos) == ':')
+        {
+            pos++;
+        }
+        if (pos + 2 <= length && date.charAt(pos) >= '0' && date.charAt(pos) <= '9')
+        {
+            minutes = parseNumber(date, pos, 2);
+        }
+        if (hours < 0 || minutes < 0) { return Integer.MIN_VALUE; }
+
+        int offset = hours * 60 + minutes;
+        return (sign == '-') ? -offset : offset;
+    }
+
+    /**
+     * @return month between 1 and 12 of the three letters english name or -1.
+     */
+    private static int parseMonth(String date, int pos)
+    {
+        for (int i = 0; i < 12; i++)
+        {
+            if (date.regionMatches(true, pos, MONTHS, i * 3, 3)) { return i + 1; }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the positive number made of the digits or -1.
+     */
+    private static int parseNumber(String date, int pos, int digits)
+    {
+        if (pos + digits > date.length()) { return -1; }
+        int value = 0;
+        for (int i = pos; i < pos + digits; i++)
+        {
+            char c = date.charAt(i);
+            if (c < '0' || c > '9') { return -1; }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Converts a UTC date time to milliseconds since epoch. Out of range
+     * values roll over the next field like a lenient calendar.
+     */
+    private static long toMillis(int year, int month, int day, int hour, int minute, int second)
+    {
+        // Days since 1970-01-01 in the proleptic gregorian calendar.
+        int y = (month <= 2) ? year - 1 : year;
+        int era = (y >= 0 ? y : y - 399) / 400;
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        long days = era * 146097L + dayOfEra - 719468;
+
+        return ((days * 24 + hour) * 60 + minute) * 60000L + second * 1000L;
+    }
+
+    /**
+     * Tries each Alfresco format with SimpleDateFormat.
+     */
+    private static Date parseWithFormats(String date)
+    {
+        Date d = null;
+        SimpleDateFormat sdf;
+        for (int i = 0; i < DATE_FORMATS.length; i++)
+        {
+            sdf = new SimpleDateFormat(DATE_FORMATS[i], Locale.UK);
+            sdf.setLenient(true);
+            try
+            {
+                d = sdf.parse(date);
+                break;
+            }
+            catch (ParseException e)
+            {
+                continue;
+            }
+        }
+
+        return d;
+    }
+}
@@ -0,0 +1,63 @@
+/*******************************************************************************
+ * Copyright (C) 2005-2012 Alfresco Software Limited.
+ * 
+ * This file is part of the Alfresco Mobile SDK.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ ******************************************************************************/
+package org.alfresco.mobile.android.api.utils;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.chemistry.opencmis.client.bindings.spi.http.HttpUtils.Output;
+import org.apache.chemistry.opencmis.client.bindings.spi.http.HttpUtils.Response;
+import org.apache.chemistry.opencmis.commons.impl.UrlBuilder;
+
+/**
+ * Transport layer used by {@link HttpUtils} to execute Public API and
+ * webscript requests. </br> Developers can provide their own implementation
+ * with {@link HttpUtils#setTransport(HttpTransport)}. By default the SDK uses
+ * {@link KeepAliveHttpTransport}.
+ * 
+ * @author Jean Marie Pascal
+ */
+public interface HttpTransport
+{
+    /**
+     * Executes an http request.
+     * 
+     * @param url : requested URL.
+     * @param method : http method (GET, POST, PUT, DELETE).
+     * @param contentType : content type of the request body. Can be null.
+     * @param httpHeaders : extra headers (authentication...). Can be null.
+     * @param writer : writer of the request body. Can be null.
+     * @param offset : offset of the range request. Can be null.
+     * @param length : length of the range request. Can be null.
+     * @param params : url form parameters. Can be null.
+     * @return the http response.
+     */
+    Response invoke(UrlBuilder url, String method, String contentType, Map<String, List<String>> httpHeaders,
+            Output writer, BigInteger offset, BigInteger length, Map<String, String> params);
+
+    /**
+     * Returns statistics of the connection pool associated to the specified
+     * host.
+     * 
+     * @param host : hostname (with port if not the default one) e.g.
+     *            <i>localhost:8080</i>
+     * @return statistics or null if the transport doesn't manage a pool.
+     */
+    ConnectionPoolStatistics getStatistics(String host);
+}
@@ -21,6 +21,8 @@ import java.io.BufferedReader;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -29,6 +31,7 @@ import org.alfresco.mobile.android.api.exceptions.AlfrescoServiceException;
 import org.alfresco.mobile.android.api.exceptions.ErrorCodeRegistry;
 import org.alfresco.mobile.android.api.utils.messages.Messagesl18n;
 import org.apache.chemistry.opencmis.commons.impl.json.parser.ContainerFactory;
+import org.apache.chemistry.opencmis.commons.impl.json.parser.ContentHandler;
 import org.apache.chemistry.opencmis.commons.impl.json.parser.JSONParser;
 
 /**
@@ -84,14 +87,26 @@ public final class JsonUtils
         throw new AlfrescoServiceException(ErrorCodeRegistry.PARSING_GENERIC, Messagesl18n.getString("JsonUtils.0"));
     }
 
+    /**
+     * Parser instance reused for all string parsing of a thread. JSONParser
+     * resets itself on each parse but is not thread safe.
+     */
+    private static final ThreadLocal<JSONParser> PARSER = new ThreadLocal<JSONParser>()
+    {
+        @Override
+        protected JSONParser initialValue()
+        {
+            return new JSONParser();
+        }
+    };
+
     @SuppressWarnings("unchecked")
     public static Map<String, Object> parseObject(String value)
     {
         Object obj = null;
         try
         {
-            JSONParser parser = new JSONParser();
-            obj = parser.parse(value, SIMPLE_CONTAINER_FACTORY);
+            obj = PARSER.get().parse(value, SIMPLE_CONTAINER_FACTORY);
             if (obj instanceof Map) { return (Map<String, Object>) obj; }
         }
         catch (Exception e)
@@ -101,6 +116,94 @@ public final class JsonUtils
         return null;
     }
 
+    /**
+     * Parses a json object and keeps only the values of the requested root
+     * keys. Nested objects and arrays are skipped without being materialized.
+     * 
+     * @param value : json object as string.
+     * @param keys : root keys to retrieve.
+     * @return map of key/string value. Only keys present with a primitive value
+     *         are returned.
+     */
+    public static Map<String, String> parseObjectValues(String value, final Collection<String> keys)
+    {
+        final Map<String, String> values = new HashMap<String, String>(keys.size());
+        if (value == null) { return values; }
+        try
+        {
+            PARSER.get().parse(value, new ContentHandler()
+            {
+                private int depth;
+
+                private String key;
+
+                public void startJSON()
+                {
+                }
+
+                public void endJSON()
+                {
+                }
+
+                public boolean startObject()
+                {
+                    depth++;
+                    return true;
+                }
+
+                public boolean endObject()
+                {
+                    depth--;
+                    return true;
+                }
+
+                public boolean startObjectEntry(String k)
+                {
+                    if (depth == 1)
+                    {
+                        key = k;
+                    }
+                    return true;
+                }
+
+                public boolean endObjectEntry()
+                {
+                    if (depth == 1)
+                    {
+                        key = null;
+                    }
+                    return true;
+                }
+
+                public boolean startArray()
+                {
+                    depth++;
+                    return true;
+                }
+
+                public boolean endArray()
+                {
+                    depth--;
+                    return true;
+                }
+
+                public boolean primitive(Object v)
+                {
+                    if (depth == 1 && key != null && v != null && keys.contains(key))
+                    {
+                        values.put(key, v.toString());
+                    }
+                    return true;
+                }
+            });
+        }
+        catch (Exception e)
+        {
+            throw new AlfrescoServiceException(ErrorCodeRegistry.PARSING_GENERIC, e);
+        }
+        return values;
+    }
+
     /**
      * Parses an input stream.
      */
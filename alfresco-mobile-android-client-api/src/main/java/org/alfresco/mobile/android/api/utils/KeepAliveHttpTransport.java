@@ -0,0 +1,439 @@
+/*******************************************************************************
+ * Copyright (C) 2005-2012 Alfresco Software Limited.
+ * 
+ * This file is part of the Alfresco Mobile SDK.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ ******************************************************************************/
+package org.alfresco.mobile.android.api.utils;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.chemistry.opencmis.client.bindings.impl.ClientVersion;
+import org.apache.chemistry.opencmis.client.bindings.spi.http.HttpUtils.Output;
+import org.apache.chemistry.opencmis.client.bindings.spi.http.HttpUtils.Response;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisConnectionException;
+import org.apache.chemistry.opencmis.commons.impl.UrlBuilder;
+import org.apache.http.HttpStatus;
+
+import android.util.Log;
+
+/**
+ * Default {@link HttpTransport} based on {@link HttpURLConnection}. </br>
+ * This transport doesn't pool connections itself : keep-alive, the number of
+ * idle connections and their eviction are left to the platform
+ * {@link HttpURLConnection} implementation. It only drains every response
+ * stream on close so the underlying socket can go back into the platform pool
+ * instead of being discarded, and counts the requests sent to each host.
+ * </br> The platform pool reads the system properties <i>http.keepAlive</i>,
+ * <i>http.maxConnections</i> and <i>http.keepAliveDuration</i>. They are
+ * shared by the whole process and read once, when the platform opens its
+ * first connection : they must be set before any http request, and changing
+ * them later has no effect. The transport only provides a value for the ones
+ * never set, so the constructor arguments are ignored if a connection was
+ * already opened.
+ * 
+ * @author Jean Marie Pascal
+ */
+public class KeepAliveHttpTransport implements HttpTransport
+{
+    private static final String TAG = "KeepAliveHttpTransport";
+
+    /** Default maximum number of idle connections per host. */
+    public static final int DEFAULT_MAX_IDLE_CONNECTIONS = 5;
+
+    /** Default duration (in ms) an idle connection is kept in the pool. */
+    public static final long DEFAULT_KEEP_ALIVE_DURATION = 5 * 60 * 1000L;
+
+    /**
+     * Maximum number of unread bytes consumed on close. Beyond this limit it's
+     * cheaper to open a new connection than to read the remaining response.
+     */
+    private static final int MAX_DRAIN_SIZE = 64 * 1024;
+
+    private static final int BUFFER_SIZE = 2 * 1024 * 1024;
+
+    private final Map<String, HostPool> pools = new HashMap<String, HostPool>();
+
+    public KeepAliveHttpTransport()
+    {
+        this(DEFAULT_MAX_IDLE_CONNECTIONS, DEFAULT_KEEP_ALIVE_DURATION);
+    }
+
+    /**
+     * @param maxIdleConnections : value proposed to the platform for
+     *            <i>http.maxConnections</i> if it's not set.
+     * @param keepAliveDuration : value in ms proposed to the platform for
+     *            <i>http.keepAliveDuration</i> if it's not set.
+     */
+    public KeepAliveHttpTransport(int maxIdleConnections, long keepAliveDuration)
+    {
+        if (maxIdleConnections <= 0) { throw new IllegalArgumentException("maxIdleConnections"); }
+        if (keepAliveDuration <= 0) { throw new IllegalArgumentException("keepAliveDuration"); }
+
+        // Platform connection pool settings : values of the application win.
+        setDefaultProperty("http.keepAlive", "true");
+        setDefaultProperty("http.maxConnections", Integer.toString(maxIdleConnections));
+        setDefaultProperty("http.keepAliveDuration", Long.toString(keepAliveDuration));
+    }
+
+    private static synchronized void setDefaultProperty(String key, String value)
+    {
+        if (System.getProperty(key) == null)
+        {
+            System.setProperty(key, value);
+        }
+    }
+
+    // //////////////////////////////////////////////////////////////////////////////////////////
+    // INVOKE
+    // /////////////////////////////////////////////////////////////////////////////////////////
+    @Override
+    public Response invoke(UrlBuilder url, String method, String contentType, Map<String, List<String>> httpHeaders,
+            Output writer, BigInteger offset, BigInteger length, Map<String, String> params)
+    {
+        HostPool pool = null;
+        boolean released = false;
+        try
+        {
+            Log.d("URL", url.toString());
+
+            URL u = new URL(url.toString());
+            pool = getPool(getHost(u));
+            pool.acquire();
+
+            // connect
+            HttpURLConnection conn = (HttpURLConnection) u.openConnection();
+            conn.setRequestMethod(method);
+            conn.setDoInput(true);
+            conn.setDoOutput(writer != null || params != null);
+            conn.setAllowUserInteraction(false);
+            conn.setUseCaches(false);
+            conn.setRequestProperty("User-Agent", ClientVersion.OPENCMIS_CLIENT);
+
+            // set content type
+            if (contentType != null)
+            {
+                conn.setRequestProperty("Content-Type", contentType);
+            }
+            // set other headers
+            if (httpHeaders != null)
+            {
+                for (Map.Entry<String, List<String>> header : httpHeaders.entrySet())
+                {
+                    if (header.getValue() != null)
+                    {
+                        for (String value : header.getValue())
+                        {
+                            conn.addRequestProperty(header.getKey(), value);
+                        }
+                    }
+                }
+            }
+
+            // range
+            BigInteger tmpOffset = offset;
+            if ((tmpOffset != null) || (length != null))
+            {
+                StringBuilder sb = new StringBuilder("bytes=");
+
+                if ((tmpOffset == null) || (tmpOffset.signum() == -1))
+                {
+                    tmpOffset = BigInteger.ZERO;
+                }
+
+                sb.append(tmpOffset.toString());
+                sb.append("-");
+
+                if ((length != null) && (length.signum() == 1))
+                {
+                    sb.append(tmpOffset.add(length.subtract(BigInteger.ONE)).toString());
+                }
+
+                conn.setRequestProperty("Range", sb.toString());
+            }
+
+            conn.setRequestProperty("Accept-Encoding", "gzip,deflate");
+
+            // add url form parameters
+            if (params != null)
+            {
+                writeParameters(conn, params);
+            }
+
+            // send data
+            if (writer != null)
+            {
+                conn.setChunkedStreamingMode((64 * 1024) - 1);
+                OutputStream out = new BufferedOutputStream(conn.getOutputStream(), BUFFER_SIZE);
+                writer.write(out);
+                out.flush();
+            }
+
+            // connect
+            conn.connect();
+
+            // get stream, if present
+            int respCode = conn.getResponseCode();
+            InputStream inputStream = null;
+            InputStream errorStream = null;
+            if ((respCode == HttpStatus.SC_OK) || (respCode == HttpStatus.SC_CREATED)
+                    || (respCode == HttpStatus.SC_NON_AUTHORITATIVE_INFORMATION)
+                    || (respCode == HttpStatus.SC_PARTIAL_CONTENT))
+            {
+                inputStream = conn.getInputStream();
+            }
+            else
+            {
+                errorStream = conn.getErrorStream();
+            }
+
+            // The connection goes back to the pool once the stream is
+            // consumed.
+            if (inputStream != null)
+            {
+                inputStream = new PooledInputStream(inputStream, pool);
+            }
+            else if (errorStream != null)
+            {
+                errorStream = new PooledInputStream(errorStream, pool);
+            }
+            else
+            {
+                pool.release(true, 0);
+            }
+            released = true;
+
+            // get the response
+            return new Response(respCode, conn.getResponseMessage(), conn.getHeaderFields(), inputStream,
+                    errorStream);
+        }
+        catch (Exception e)
+        {
+            throw new CmisConnectionException("Cannot access " + url + ": " + e.getMessage(), e);
+        }
+        finally
+        {
+            if (pool != null && !released)
+            {
+                pool.release(false, 0);
+            }
+        }
+    }
+
+    private static void writeParameters(HttpURLConnection conn, Map<String, String> params) throws IOException
+    {
+        DataOutputStream ostream = null;
+        OutputStream os = null;
+        try
+        {
+            os = conn.getOutputStream();
+            ostream = new DataOutputStream(os);
+
+            Set<String> parameters = params.keySet();
+            StringBuffer buf = new StringBuffer();
+
+            int paramCount = 0;
+            for (String it : parameters)
+            {
+                String parameterName = it;
+                String parameterValue = (String) params.get(parameterName);
+
+                if (parameterValue != null)
+                {
+                    parameterValue = URLEncoder.encode(parameterValue, "UTF-8");
+                    if (paramCount > 0)
+                    {
+                        buf.append("&");
+                    }
+                    buf.append(parameterName);
+                    buf.append("=");
+                    buf.append(parameterValue);
+                    ++paramCount;
+                }
+            }
+            ostream.writeBytes(buf.toString());
+        }
+        finally
+        {
+            if (ostream != null)
+            {
+                ostream.flush();
+                ostream.close();
+            }
+            IOUtils.closeStream(os);
+        }
+    }
+
+    // //////////////////////////////////////////////////////////////////////////////////////////
+    // POOL
+    // /////////////////////////////////////////////////////////////////////////////////////////
+    @Override
+    public ConnectionPoolStatistics getStatistics(String host)
+    {
+        HostPool pool;
+        synchronized (pools)
+        {
+            pool = pools.get(host);
+        }
+        if (pool == null) { return new ConnectionPoolStatistics(host, 0, 0, 0); }
+        return pool.getStatistics();
+    }
+
+    private HostPool getPool(String host)
+    {
+        synchronized (pools)
+        {
+            HostPool pool = pools.get(host);
+            if (pool == null)
+            {
+                pool = new HostPool(host);
+                pools.put(host, pool);
+            }
+            return pool;
+        }
+    }
+
+    /**
+     * @return host key of the specified url e.g. <i>localhost:8080</i>
+     */
+    public static String getHost(URL url)
+    {
+        int port = url.getPort() != -1 ? url.getPort() : url.getDefaultPort();
+        return url.getHost() + ":" + port;
+    }
+
+    /**
+     * Counters of the requests sent to one host. Sockets are owned by the
+     * platform pool : only what the transport observes is reported.
+     */
+    private static final class HostPool
+    {
+        private final String host;
+
+        private long requestCount;
+
+        private long completedResponseCount;
+
+        private long drainedBytes;
+
+        HostPool(String host)
+        {
+            this.host = host;
+        }
+
+        synchronized void acquire()
+        {
+            requestCount++;
+        }
+
+        synchronized void release(boolean completed, long drained)
+        {
+            drainedBytes += drained;
+            if (completed)
+            {
+                completedResponseCount++;
+            }
+        }
+
+        synchronized ConnectionPoolStatistics getStatistics()
+        {
+            return new ConnectionPoolStatistics(host, requestCount, completedResponseCount, drainedBytes);
+        }
+    }
+
+    /**
+     * Response stream which drains the remaining bytes on close. A connection
+     * is reused by the platform only if its response has been fully read.
+     */
+    private static final class PooledInputStream extends FilterInputStream
+    {
+        private final HostPool pool;
+
+        private boolean eof;
+
+        private boolean closed;
+
+        PooledInputStream(InputStream in, HostPool pool)
+        {
+            super(in);
+            this.pool = pool;
+        }
+
+        @Override
+        public int read() throws IOException
+        {
+            int b = super.read();
+            if (b == -1)
+            {
+                eof = true;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int off, int len) throws IOException
+        {
+            int n = super.read(buffer, off, len);
+            if (n == -1)
+            {
+                eof = true;
+            }
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            if (closed) { return; }
+            closed = true;
+            long drained = 0;
+            try
+            {
+                if (!eof)
+                {
+                    byte[] buffer = new byte[4096];
+                    int n = 0;
+                    while (drained < MAX_DRAIN_SIZE && (n = in.read(buffer)) != -1)
+                    {
+                        drained += n;
+                    }
+                    eof = (n == -1);
+                }
+            }
+            catch (IOException e)
+            {
+                Log.w(TAG, "Unable to drain response : " + e.getMessage());
+                eof = false;
+            }
+            finally
+            {
+                super.close();
+                pool.release(eof, drained);
+            }
+        }
+    }
+}
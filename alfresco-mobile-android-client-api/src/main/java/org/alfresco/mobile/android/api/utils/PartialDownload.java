@@ -0,0 +1,202 @@
+/*******************************************************************************
+ * Copyright (C) 2005-2012 Alfresco Software Limited.
+ * 
+ * This file is part of the Alfresco Mobile SDK.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ ******************************************************************************/
+package org.alfresco.mobile.android.api.utils;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import org.alfresco.mobile.android.api.model.Document;
+import org.apache.chemistry.opencmis.commons.PropertyIds;
+
+/**
+ * Download of the content of a document into a local file that can be
+ * resumed after an interruption. </br> Bytes are written into a partial file
+ * next to the destination file. A descriptor keeps the expected length and
+ * the version (change token) of the document : a new download of the same
+ * version starts from the end of the partial file, a new version restarts
+ * from the first byte. The partial file becomes the destination file only if
+ * its length is the content stream length.
+ * 
+ * <pre>
+ * PartialDownload download = new PartialDownload(document, file);
+ * long offset = download.getOffset();
+ * ContentStream contentStream = docfolderService.getContentStream(document, offset);
+ * IOUtils.copyStream(contentStream.getInputStream(), download.openOutputStream(offset));
+ * download.complete();
+ * </pre>
+ * 
+ * @author Jean Marie Pascal
+ */
+public class PartialDownload
+{
+    /** Suffix of the partial file. */
+    public static final String PART_SUFFIX = ".part";
+
+    /** Suffix of the descriptor of the partial file. */
+    public static final String INFO_SUFFIX = ".part.info";
+
+    private final File file;
+
+    private final File partFile;
+
+    private final File infoFile;
+
+    private final long length;
+
+    private final String version;
+
+    /**
+     * @param document : document to download.
+     * @param file : destination file.
+     */
+    public PartialDownload(Document document, File file)
+    {
+        if (document == null) { throw new IllegalArgumentException("document"); }
+        if (file == null) { throw new IllegalArgumentException("file"); }
+        this.file = file;
+        this.partFile = new File(file.getParentFile(), file.getName() + PART_SUFFIX);
+        this.infoFile = new File(file.getParentFile(), file.getName() + INFO_SUFFIX);
+        this.length = Math.max(document.getContentStreamLength(), 0);
+        this.version = getVersion(document);
+    }
+
+    /**
+     * @return Returns the number of bytes already downloaded for this version
+     *         of the document. A partial file of an other version is deleted.
+     */
+    public long getOffset()
+    {
+        if (!partFile.isFile()) { return 0; }
+        long offset = partFile.length();
+        if (offset > length || !(length + "\n" + version).equals(readInfo()))
+        {
+            discard();
+            return 0;
+        }
+        return offset;
+    }
+
+    /**
+     * @param offset : value returned by {@link #getOffset()}.
+     * @return Returns the stream to write the bytes following the offset.
+     */
+    public OutputStream openOutputStream(long offset) throws IOException
+    {
+        if (offset == 0)
+        {
+            partFile.getParentFile().mkdirs();
+            writeInfo();
+        }
+        return new FileOutputStream(partFile, offset > 0);
+    }
+
+    /**
+     * Replaces the destination file by the partial file.
+     * 
+     * @return Returns the destination file.
+     * @throws IOException : if the partial file is not complete.
+     */
+    public File complete() throws IOException
+    {
+        long downloaded = partFile.length();
+        if (downloaded != length)
+        {
+            // More bytes than expected : the partial file can't be resumed.
+            if (downloaded > length)
+            {
+                discard();
+            }
+            throw new IOException("Incomplete download of " + file.getName() + " : " + downloaded + "/" + length);
+        }
+        if (file.exists() && !file.delete()) { throw new IOException("Unable to delete " + file); }
+        if (!partFile.renameTo(file)) { throw new IOException("Unable to rename " + partFile); }
+        infoFile.delete();
+        return file;
+    }
+
+    /**
+     * Deletes the partial file.
+     */
+    public void discard()
+    {
+        partFile.delete();
+        infoFile.delete();
+    }
+
+    /**
+     * @return Returns the expected length of the content.
+     */
+    public long getLength()
+    {
+        return length;
+    }
+
+    // ////////////////////////////////////////////////////
+    // INTERNAL
+    // ////////////////////////////////////////////////////
+    /**
+     * The change token changes with the content. If the repository doesn't
+     * provide it, the modification date is used.
+     */
+    private static String getVersion(Document document)
+    {
+        Object changeToken = document.getPropertyValue(PropertyIds.CHANGE_TOKEN);
+        if (changeToken != null) { return changeToken.toString(); }
+        if (document.getModifiedAt() != null) { return String.valueOf(document.getModifiedAt().getTimeInMillis()); }
+        return "";
+    }
+
+    private String readInfo()
+    {
+        if (!infoFile.isFile()) { return null; }
+        BufferedReader reader = null;
+        try
+        {
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(infoFile), "UTF-8"));
+            return reader.readLine() + "\n" + reader.readLine();
+        }
+        catch (IOException e)
+        {
+            return null;
+        }
+        finally
+        {
+            IOUtils.closeStream(reader);
+        }
+    }
+
+    private void writeInfo() throws IOException
+    {
+        Writer writer = new OutputStreamWriter(new FileOutputStream(infoFile), "UTF-8");
+        try
+        {
+            writer.write(length + "\n" + version + "\n");
+        }
+        finally
+        {
+            IOUtils.closeStream(writer);
+        }
+    }
+}
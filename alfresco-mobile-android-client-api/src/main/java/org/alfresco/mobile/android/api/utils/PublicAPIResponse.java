@@ -17,15 +17,25 @@
  ******************************************************************************/
 package org.alfresco.mobile.android.api.utils;
 
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
 import org.alfresco.mobile.android.api.constants.CloudConstant;
 import org.alfresco.mobile.android.api.exceptions.AlfrescoServiceException;
 import org.alfresco.mobile.android.api.exceptions.ErrorCodeRegistry;
+import org.alfresco.mobile.android.api.model.PagingResult;
+import org.alfresco.mobile.android.api.model.impl.PagingResultImpl;
 import org.alfresco.mobile.android.api.utils.messages.Messagesl18n;
 import org.apache.chemistry.opencmis.client.bindings.spi.http.HttpUtils;
 import org.apache.chemistry.opencmis.commons.impl.JSONConverter;
+import org.apache.chemistry.opencmis.commons.impl.json.parser.ContentHandler;
+import org.apache.chemistry.opencmis.commons.impl.json.parser.JSONParseException;
+import org.apache.chemistry.opencmis.commons.impl.json.parser.JSONParser;
 
 public class PublicAPIResponse
 {
@@ -80,4 +90,233 @@ public class PublicAPIResponse
         return entries;
     }
 
+    // ////////////////////////////////////////////////////////////////////////////////////
+    // / STREAMING
+    // ////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Converts the <i>entry</i> object of one element of a Public API list
+     * into a high level object.
+     */
+    public interface EntryDecoder<T>
+    {
+        /**
+         * @param entry : json <i>entry</i> object of the list element.
+         * @return high level object or null to skip the element.
+         */
+        T decode(Map<String, Object> entry);
+    }
+
+    /**
+     * Reads a Public API list envelope as a stream. Pagination is read as
+     * usual and each element of <i>entries</i> is handed to the decoder as
+     * soon as it's parsed, so only one entry is kept in memory at a time.
+     * 
+     * @param resp : http response containing a Public API list.
+     * @param decoder : decoder of each entry.
+     * @return Paging Result of decoded objects.
+     */
+    public static <T> PagingResult<T> parseList(HttpUtils.Response resp, EntryDecoder<T> decoder)
+    {
+        if (resp == null || resp.getStream() == null) { throw new AlfrescoServiceException(
+                ErrorCodeRegistry.PARSING_JSONDATA_EMPTY,
+                Messagesl18n.getString("ErrorCodeRegistry.PARSING_JSONDATA_EMPTY")); }
+
+        ListEnvelopeHandler<T> handler = new ListEnvelopeHandler<T>(decoder);
+        InputStreamReader reader = null;
+        try
+        {
+            reader = new InputStreamReader(resp.getStream(), resp.getCharset());
+            new JSONParser().parse(reader, handler);
+        }
+        catch (AlfrescoServiceException e)
+        {
+            throw e;
+        }
+        catch (Exception e)
+        {
+            throw new AlfrescoServiceException(ErrorCodeRegistry.PARSING_GENERIC, e);
+        }
+        finally
+        {
+            IOUtils.closeStream(reader);
+            IOUtils.closeStream(resp.getStream());
+        }
+
+        if (handler.pagination == null) { throw new AlfrescoServiceException(ErrorCodeRegistry.PARSING_GENERIC,
+                Messagesl18n.getString("JsonUtils.0")); }
+
+        Boolean hasMoreItems = JSONConverter.getBoolean(handler.pagination, CloudConstant.HAS_MORE_ITEMS_VALUE);
+        int size = -1;
+        if (handler.pagination.containsKey(CloudConstant.TOTAL_ITEMS_VALUE))
+        {
+            size = JSONConverter.getInteger(handler.pagination, CloudConstant.TOTAL_ITEMS_VALUE).intValue();
+        }
+
+        return new PagingResultImpl<T>(handler.result, Boolean.TRUE.equals(hasMoreItems), size);
+    }
+
+    /**
+     * Json events handler for <i>{"list" : {"pagination" : {...}, "entries" :
+     * [{"entry" : {...}}, ...]}}</i>. Only the pagination object and the
+     * current entry are materialized, everything else is skipped.
+     */
+    private static final class ListEnvelopeHandler<T> implements ContentHandler
+    {
+        private final EntryDecoder<T> decoder;
+
+        private final List<T> result = new ArrayList<T>();
+
+        private Map<String, Object> pagination;
+
+        /** Current nesting level of objects and arrays. */
+        private int depth;
+
+        /** Key opened inside the root object. */
+        private String rootKey;
+
+        /** Key opened inside the list object. */
+        private String listKey;
+
+        /** Containers of the value being materialized. */
+        private final LinkedList<Object> containers = new LinkedList<Object>();
+
+        private final LinkedList<String> keys = new LinkedList<String>();
+
+        ListEnvelopeHandler(EntryDecoder<T> decoder)
+        {
+            this.decoder = decoder;
+        }
+
+        private boolean isInList(String key)
+        {
+            return CloudConstant.LIST_VALUE.equals(rootKey) && key.equals(listKey);
+        }
+
+        @SuppressWarnings("unchecked")
+        private void add(Object value)
+        {
+            Object parent = containers.peek();
+            if (parent instanceof Map)
+            {
+                ((Map<String, Object>) parent).put(keys.peek(), value);
+            }
+            else if (parent instanceof List)
+            {
+                ((List<Object>) parent).add(value);
+            }
+        }
+
+        public void startJSON() throws JSONParseException, IOException
+        {
+        }
+
+        public void endJSON() throws JSONParseException, IOException
+        {
+        }
+
+        public boolean startObject() throws JSONParseException, IOException
+        {
+            depth++;
+            if (!containers.isEmpty() || (depth == 3 && isInList(CloudConstant.PAGINATION_VALUE))
+                    || (depth == 4 && isInList(CloudConstant.ENTRIES_VALUE)))
+            {
+                Map<String, Object> map = new LinkedHashMap<String, Object>();
+                add(map);
+                containers.push(map);
+            }
+            return true;
+        }
+
+        @SuppressWarnings("unchecked")
+        public boolean endObject() throws JSONParseException, IOException
+        {
+            if (!containers.isEmpty())
+            {
+                Map<String, Object> map = (Map<String, Object>) containers.pop();
+                if (containers.isEmpty())
+                {
+                    if (depth == 3)
+                    {
+                        pagination = map;
+                    }
+                    else
+                    {
+                        T item = decoder.decode((Map<String, Object>) map.get(CloudConstant.ENTRY_VALUE));
+                        if (item != null)
+                        {
+                            result.add(item);
+                        }
+                    }
+                }
+            }
+            depth--;
+            return true;
+        }
+
+        public boolean startObjectEntry(String key) throws JSONParseException, IOException
+        {
+            if (!containers.isEmpty())
+            {
+                keys.push(key);
+            }
+            else if (depth == 1)
+            {
+                rootKey = key;
+            }
+            else if (depth == 2)
+            {
+                listKey = key;
+            }
+            return true;
+        }
+
+        public boolean endObjectEntry() throws JSONParseException, IOException
+        {
+            if (!containers.isEmpty())
+            {
+                keys.pop();
+            }
+            else if (depth == 1)
+            {
+                rootKey = null;
+            }
+            else if (depth == 2)
+            {
+                listKey = null;
+            }
+            return true;
+        }
+
+        public boolean startArray() throws JSONParseException, IOException
+        {
+            depth++;
+            if (!containers.isEmpty())
+            {
+                List<Object> list = new ArrayList<Object>();
+                add(list);
+                containers.push(list);
+            }
+            return true;
+        }
+
+        public boolean endArray() throws JSONParseException, IOException
+        {
+            if (!containers.isEmpty())
+            {
+                containers.pop();
+            }
+            depth--;
+            return true;
+        }
+
+        public boolean primitive(Object value) throws JSONParseException, IOException
+        {
+            if (!containers.isEmpty())
+            {
+                add(value);
+            }
+            return true;
+        }
+    }
+
 }
@@ -72,6 +72,7 @@ public abstract class ActivityStreamFragment extends BaseListFragment implements
         calculateSkipCount(lc);
         ActivityStreamLoader loader = new ActivityStreamLoader(getActivity(), alfSession);
         loader.setListingContext(lc);
+        loader.setPrefetchBuffer(getPrefetchBuffer());
         return loader;
     }
 
@@ -84,6 +84,7 @@ public abstract class CommentFragment extends BaseListFragment implements
         calculateSkipCount(lc);
         CommentsLoader loader = new CommentsLoader(getActivity(), alfSession, node);
         loader.setListingContext(lc);
+        loader.setPrefetchBuffer(getPrefetchBuffer());
         return loader;
     }
 
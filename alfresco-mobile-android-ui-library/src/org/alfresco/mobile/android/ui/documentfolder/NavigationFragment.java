@@ -149,6 +149,7 @@ public abstract class NavigationFragment extends BaseListFragment implements
         if (loader != null)
         {
             loader.setListingContext(lc);
+            loader.setPrefetchBuffer(getPrefetchBuffer());
         }
 
         return loader;
@@ -17,6 +17,7 @@
  ******************************************************************************/
 package org.alfresco.mobile.android.ui.documentfolder;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import org.alfresco.mobile.android.api.model.Document;
@@ -32,6 +33,7 @@ import org.alfresco.mobile.android.ui.utils.GenericViewHolder;
 import android.app.Activity;
 import android.content.Context;
 import android.view.View;
+import android.widget.AbsListView.OnScrollListener;
 
 /**
  * Provides access to node (documents or folders) and displays them as a view
@@ -47,6 +49,9 @@ public class NodeAdapter extends BaseListAdapter<Node, GenericViewHolder>
 
     private RenditionManager renditionManager;
 
+    /** Number of rows after the visible ones whose thumbnail is prefetched. */
+    private static final int PREFETCH_COUNT = 10;
+
     public NodeAdapter(Activity context, AlfrescoSession session, int textViewResourceId, List<Node> listItems,
             List<Node> selectedItems)
     {
@@ -110,6 +115,45 @@ public class NodeAdapter extends BaseListAdapter<Node, GenericViewHolder>
         }
     }
 
+    @Override
+    public void onScrollStateChanged(int scrollState)
+    {
+        if (!activateThumbnail) { return; }
+
+        boolean fling = scrollState == OnScrollListener.SCROLL_STATE_FLING;
+        boolean wasPaused = renditionManager.isPauseWork();
+        renditionManager.setPauseWork(fling);
+        if (wasPaused && !fling)
+        {
+            // Binds again rows displayed during the fling.
+            notifyDataSetChanged();
+        }
+    }
+
+    @Override
+    public void onVisibleItemsChanged(int firstVisibleItem, int visibleItemCount)
+    {
+        if (!activateThumbnail || renditionManager.isPauseWork()) { return; }
+
+        int end = Math.min(getCount(), firstVisibleItem + visibleItemCount + PREFETCH_COUNT);
+        List<Node> nodes = new ArrayList<Node>(PREFETCH_COUNT);
+        for (int i = firstVisibleItem + visibleItemCount; i < end; i++)
+        {
+            Node node = getItem(i);
+            if (node.isDocument())
+            {
+                nodes.add(node);
+            }
+        }
+        renditionManager.prefetch(nodes);
+    }
+
+    @Override
+    public void onDestroy()
+    {
+        renditionManager.cancelPrefetch();
+    }
+
     public Boolean hasActivateThumbnail()
     {
         return activateThumbnail;
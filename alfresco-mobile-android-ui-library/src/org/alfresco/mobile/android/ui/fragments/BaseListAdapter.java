@@ -152,6 +152,38 @@ public abstract class BaseListAdapter<T, VH> extends ArrayAdapter<T>
         }
     }
 
+    // ///////////////////////////////////////////////
+    // SCROLL
+    // ///////////////////////////////////////////////
+    /**
+     * Called by the list fragment when the scroll state of the list changes.
+     * Adapters which load content in background can pause it during flings.
+     * 
+     * @param scrollState : one of the OnScrollListener SCROLL_STATE values.
+     */
+    public void onScrollStateChanged(int scrollState)
+    {
+    }
+
+    /**
+     * Called by the list fragment when the visible rows change. Adapters which
+     * load content in background can prefetch the next rows.
+     * 
+     * @param firstVisibleItem : position of the first visible row.
+     * @param visibleItemCount : number of visible rows.
+     */
+    public void onVisibleItemsChanged(int firstVisibleItem, int visibleItemCount)
+    {
+    }
+
+    /**
+     * Called when the list stops using the adapter. Adapters which load
+     * content in background cancel it.
+     */
+    public void onDestroy()
+    {
+    }
+
     public String formatDate(Context c, Date date)
     {
         switch (dateFormatType)
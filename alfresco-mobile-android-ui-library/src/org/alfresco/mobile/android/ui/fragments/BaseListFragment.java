@@ -20,6 +20,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.alfresco.mobile.android.api.asynchronous.LoaderResult;
+import org.alfresco.mobile.android.api.asynchronous.PagePrefetchBuffer;
 import org.alfresco.mobile.android.api.model.ListingContext;
 import org.alfresco.mobile.android.api.model.PagingResult;
 import org.alfresco.mobile.android.ui.R;
@@ -116,6 +117,13 @@ public abstract class BaseListFragment extends BaseFragment
 
     protected boolean checkSession = true;
 
+    /** Pages loaded in advance when read ahead is enabled. */
+    private PagePrefetchBuffer prefetchBuffer;
+
+    private int lastFirstVisibleItem = -1;
+
+    private int lastVisibleItemCount = -1;
+
     public static Bundle createBundleArgs(ListingContext lc, int loadState)
     {
         Bundle args = new Bundle();
@@ -147,6 +155,47 @@ public abstract class BaseListFragment extends BaseFragment
         }
     }
 
+    @Override
+    public void onDestroy()
+    {
+        if (prefetchBuffer != null)
+        {
+            prefetchBuffer.clear();
+        }
+        destroyAdapter();
+        super.onDestroy();
+    }
+
+    /**
+     * Enables the loading in background of the next page once a page is
+     * displayed. The next call to {@link #loadMore()} is then served without
+     * waiting for the server. Disabled by default.
+     * 
+     * @param readAhead
+     */
+    public void setReadAhead(boolean readAhead)
+    {
+        if (readAhead && prefetchBuffer == null)
+        {
+            prefetchBuffer = new PagePrefetchBuffer();
+        }
+        else if (!readAhead && prefetchBuffer != null)
+        {
+            prefetchBuffer.clear();
+            prefetchBuffer = null;
+        }
+    }
+
+    /**
+     * @return Returns the buffer to pass to paging loaders or null if read
+     *         ahead is disabled. Its counters tell how often pages loaded in
+     *         advance are used.
+     */
+    public PagePrefetchBuffer getPrefetchBuffer()
+    {
+        return prefetchBuffer;
+    }
+
     protected void checkSession(boolean activate)
     {
         if (activate && alfSession == null)
@@ -314,12 +363,23 @@ public abstract class BaseListFragment extends BaseFragment
             @Override
             public void onScrollStateChanged(AbsListView view, int scrollState)
             {
+                if (adapter instanceof BaseListAdapter)
+                {
+                    ((BaseListAdapter<?, ?>) adapter).onScrollStateChanged(scrollState);
+                }
             }
 
             @Override
             public void onScroll(AbsListView view, int firstVisibleItem, int visibleItemCount, int totalItemCount)
             {
                 savePosition();
+                if (adapter instanceof BaseListAdapter
+                        && (firstVisibleItem != lastFirstVisibleItem || visibleItemCount != lastVisibleItemCount))
+                {
+                    lastFirstVisibleItem = firstVisibleItem;
+                    lastVisibleItemCount = visibleItemCount;
+                    ((BaseListAdapter<?, ?>) adapter).onVisibleItemsChanged(firstVisibleItem, visibleItemCount);
+                }
                 if (firstVisibleItem + visibleItemCount == totalItemCount && loadState == LOAD_VISIBLE
                         && !isLockVisibleLoader)
                 {
@@ -367,10 +427,11 @@ public abstract class BaseListFragment extends BaseFragment
 
     protected void reload(Bundle b, int loaderId, LoaderCallbacks<?> callback)
     {
+        clearPrefetchBuffer();
         isFullLoad = Boolean.FALSE;
         hasmore = Boolean.FALSE;
         skipCount = 0;
-        adapter = null;
+        destroyAdapter();
 
         if (getLoaderManager().getLoader(loaderId) == null)
         {
@@ -385,15 +446,33 @@ public abstract class BaseListFragment extends BaseFragment
 
     protected void refresh(int loaderId, LoaderCallbacks<?> callback)
     {
+        clearPrefetchBuffer();
         isFullLoad = Boolean.FALSE;
         hasmore = Boolean.FALSE;
         skipCount = 0;
-        adapter = null;
+        destroyAdapter();
         if (getArguments() == null) { return; }
         getLoaderManager().restartLoader(loaderId, getArguments(), callback);
         getLoaderManager().getLoader(loaderId).forceLoad();
     }
 
+    private void destroyAdapter()
+    {
+        if (adapter instanceof BaseListAdapter)
+        {
+            ((BaseListAdapter<?, ?>) adapter).onDestroy();
+        }
+        adapter = null;
+    }
+
+    private void clearPrefetchBuffer()
+    {
+        if (prefetchBuffer != null)
+        {
+            prefetchBuffer.clear();
+        }
+    }
+
     protected boolean checkException(LoaderResult<?> result)
     {
         if (result.getException() != null)
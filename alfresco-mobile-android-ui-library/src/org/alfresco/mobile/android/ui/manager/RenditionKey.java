@@ -0,0 +1,145 @@
+/*******************************************************************************
+ * Copyright (C) 2005-2012 Alfresco Software Limited.
+ * 
+ * This file is part of the Alfresco Mobile SDK.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ ******************************************************************************/
+package org.alfresco.mobile.android.ui.manager;
+
+import org.alfresco.mobile.android.api.model.Node;
+import org.alfresco.mobile.android.api.session.AlfrescoSession;
+import org.apache.chemistry.opencmis.commons.PropertyIds;
+
+/**
+ * Identifies a rendition inside the memory and disk caches of the
+ * RenditionManager. </br> A key is created once per display request and
+ * shared by all caches : its hash code is computed at creation and its disk
+ * name (MD5 of the key) only the first time the disk cache is accessed, in
+ * background.
+ * 
+ * @author Jean Marie Pascal
+ */
+public final class RenditionKey
+{
+    private static final String SEPARATOR = "|";
+
+    private final String value;
+
+    private final int width;
+
+    private final int height;
+
+    private final int hashCode;
+
+    private volatile String diskKey;
+
+    private RenditionKey(String value, int width, int height, String diskKey)
+    {
+        this.value = value;
+        this.width = width;
+        this.height = height;
+        this.diskKey = diskKey;
+        this.hashCode = 31 * (31 * value.hashCode() + width) + height;
+    }
+
+    /**
+     * Creates the key of the thumbnail of a node. The key changes when the
+     * content of the node is modified.
+     * 
+     * @param session
+     * @param node
+     * @return key of the rendition.
+     */
+    public static RenditionKey create(AlfrescoSession session, Node node)
+    {
+        Object version = node.getPropertyValue(PropertyIds.CHANGE_TOKEN);
+        if (version == null && node.getModifiedAt() != null)
+        {
+            version = node.getModifiedAt().getTimeInMillis();
+        }
+        return new RenditionKey(session.getBaseUrl() + SEPARATOR + node.getIdentifier() + SEPARATOR + version, 0, 0,
+                null);
+    }
+
+    /**
+     * Creates the key of an unversioned rendition (avatar or node identified
+     * only by its identifier).
+     * 
+     * @param session
+     * @param identifier : node identifier or username.
+     * @return key of the rendition.
+     */
+    public static RenditionKey create(AlfrescoSession session, String identifier)
+    {
+        return new RenditionKey(session.getBaseUrl() + SEPARATOR + identifier, 0, 0, null);
+    }
+
+    /**
+     * Returns the key of the rendition decoded to a specific size. Both keys
+     * share the same disk name.
+     * 
+     * @param width
+     * @param height
+     * @return key of the decoded rendition.
+     */
+    public RenditionKey forSize(int width, int height)
+    {
+        if (this.width == width && this.height == height) { return this; }
+        return new RenditionKey(value, width, height, diskKey);
+    }
+
+    /**
+     * @return Returns the name of the rendition inside the disk cache.
+     */
+    public String getDiskKey()
+    {
+        if (diskKey == null)
+        {
+            diskKey = StorageManager.md5(value);
+        }
+        return diskKey;
+    }
+
+    public int getWidth()
+    {
+        return width;
+    }
+
+    public int getHeight()
+    {
+        return height;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj) { return true; }
+        if (!(obj instanceof RenditionKey)) { return false; }
+        RenditionKey other = (RenditionKey) obj;
+        return hashCode == other.hashCode && width == other.width && height == other.height
+                && value.equals(other.value);
+    }
+
+    @Override
+    public String toString()
+    {
+        return (width == 0 && height == 0) ? value : value + SEPARATOR + width + "x" + height;
+    }
+}
@@ -17,12 +17,31 @@
  ******************************************************************************/
 package org.alfresco.mobile.android.ui.manager;
 
-import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.ref.SoftReference;
 import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.alfresco.mobile.android.api.exceptions.AlfrescoServiceException;
 import org.alfresco.mobile.android.api.model.ContentStream;
@@ -37,21 +56,29 @@ import org.alfresco.mobile.android.ui.utils.thirdparty.DiskLruCache.Editor;
 import org.alfresco.mobile.android.ui.utils.thirdparty.DiskLruCache.Snapshot;
 import org.alfresco.mobile.android.ui.utils.thirdparty.LruCache;
 
+import android.Manifest;
 import android.app.Activity;
 import android.app.ActivityManager;
 import android.content.Context;
+import android.content.pm.PackageManager;
 import android.content.res.Resources;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
 import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.Drawable;
+import android.net.ConnectivityManager;
+import android.net.NetworkInfo;
 import android.os.AsyncTask;
+import android.os.Process;
 import android.util.DisplayMetrics;
 import android.util.Log;
 import android.widget.ImageView;
 
 /**
- * Utility class for downloading content and display it.
+ * Utility class for downloading content and display it. </br> All
+ * RenditionManager of the application share the same memory cache, disk cache
+ * and worker pool. Requests for the same rendition are coalesced : only one
+ * download and decode is done.
  * 
  * @author jpascal
  */
@@ -66,14 +93,56 @@ public class RenditionManager
 
     private int dpiClassification;
 
-    private LruCache<String, Bitmap> mMemoryCache;
+    private int defaultTargetSize;
 
-    private DiskLruCache mDiskCache;
+    private Executor executor;
 
-    private static final int DISK_CACHE_SIZE = 1024 * 1024 * 10; // 10MB
+    /** True during a fling : no new rendition is loaded. */
+    private volatile boolean pauseWork;
+
+    private final Map<RenditionKey, Future<?>> prefetchRequests = new HashMap<RenditionKey, Future<?>>();
+
+    /** Size in dp of a rendition displayed in a view without size. */
+    private static final int DEFAULT_TARGET_SIZE = 100;
+
+    private static LruCache<RenditionKey, Bitmap> sMemoryCache;
+
+    /** Bitmaps evicted from the memory cache which can be used as decode target. */
+    private static final Set<SoftReference<Bitmap>> REUSABLE_BITMAPS = Collections
+            .synchronizedSet(new HashSet<SoftReference<Bitmap>>());
+
+    /** Number of workers when the device is not on a wifi network. */
+    private static final int MIN_POOL_SIZE = 2;
+
+    /** Maximum number of workers. */
+    private static final int MAX_POOL_SIZE = 4;
+
+    private static final int KEEP_ALIVE = 10;
+
+    private static ThreadPoolExecutor sExecutor;
+
+    /** Single low priority worker which warms the disk cache. */
+    private static final ThreadPoolExecutor PREFETCH_EXECUTOR = new ThreadPoolExecutor(1, 1, KEEP_ALIVE,
+            TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), createThreadFactory("Prefetch",
+                    Process.THREAD_PRIORITY_LOWEST));
+
+    private static final Map<Object, FutureTask<?>> IN_FLIGHT_REQUESTS = new HashMap<Object, FutureTask<?>>();
+
+    /** Default size budget of the rendition disk cache : 10MB. */
+    public static final long DEFAULT_DISK_CACHE_SIZE = 1024 * 1024 * 10;
 
     private static final String DISK_CACHE_SUBDIR = "renditions";
 
+    /**
+     * Version of the disk cache entries. Opening a cache written with another
+     * version discards its content.
+     */
+    private static final int DISK_CACHE_VERSION = 3;
+
+    private static DiskLruCache sDiskCache;
+
+    private static long sDiskCacheSize = DEFAULT_DISK_CACHE_SIZE;
+
     public static final int TYPE_NODE = 0;
 
     public static final int TYPE_PERSON = 1;
@@ -86,6 +155,18 @@ public class RenditionManager
         DisplayMetrics dm = new DisplayMetrics();
         ((Activity) context).getWindowManager().getDefaultDisplay().getMetrics(dm);
         dpiClassification = dm.densityDpi;
+        defaultTargetSize = Math.round(DEFAULT_TARGET_SIZE * dm.density);
+
+        initMemoryCache(context);
+        executor = getExecutor(context);
+    }
+
+    // //////////////////////////////////////////////////////////////////////////////////////////
+    // MEMORY CACHE & WORKERS
+    // //////////////////////////////////////////////////////////////////////////////////////////
+    private static synchronized void initMemoryCache(Context context)
+    {
+        if (sMemoryCache != null) { return; }
 
         // Get memory class of this device, exceeding this amount will throw an
         // OutOfMemory exception.
@@ -94,50 +175,245 @@ public class RenditionManager
         // Use 1/10th of the available memory for this memory cache.
         final int cacheSize = 1024 * 1024 * memClass / 10;
 
-        mMemoryCache = new LruCache<String, Bitmap>(cacheSize)
+        sMemoryCache = new LruCache<RenditionKey, Bitmap>(cacheSize)
         {
             @Override
-            protected int sizeOf(String key, Bitmap bitmap)
+            protected int sizeOf(RenditionKey key, Bitmap bitmap)
             {
                 return bitmap.getRowBytes() * bitmap.getHeight();
             }
+
+            @Override
+            protected void entryRemoved(boolean evicted, RenditionKey key, Bitmap oldValue, Bitmap newValue)
+            {
+                if (evicted && oldValue.isMutable())
+                {
+                    REUSABLE_BITMAPS.add(new SoftReference<Bitmap>(oldValue));
+                }
+            }
         };
+    }
+
+    /**
+     * Returns the worker pool shared by all RenditionManager. Its size depends
+     * on the number of cores and is reduced when the device is not on a wifi
+     * network.
+     */
+    private static synchronized Executor getExecutor(Context context)
+    {
+        int poolSize = getPoolSize(context);
+        if (sExecutor == null)
+        {
+            sExecutor = new ThreadPoolExecutor(poolSize, poolSize, KEEP_ALIVE, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(), createThreadFactory(TAG, Process.THREAD_PRIORITY_BACKGROUND));
+            sExecutor.allowCoreThreadTimeOut(true);
+        }
+        else if (poolSize > sExecutor.getMaximumPoolSize())
+        {
+            sExecutor.setMaximumPoolSize(poolSize);
+            sExecutor.setCorePoolSize(poolSize);
+        }
+        else if (poolSize < sExecutor.getMaximumPoolSize())
+        {
+            sExecutor.setCorePoolSize(poolSize);
+            sExecutor.setMaximumPoolSize(poolSize);
+        }
+        return sExecutor;
+    }
+
+    private static int getPoolSize(Context context)
+    {
+        NetworkInfo info = null;
+        int permission = context.checkCallingOrSelfPermission(Manifest.permission.ACCESS_NETWORK_STATE);
+        if (permission == PackageManager.PERMISSION_GRANTED)
+        {
+            info = ((ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE))
+                    .getActiveNetworkInfo();
+        }
+
+        if (info != null && info.getType() == ConnectivityManager.TYPE_WIFI)
+        {
+            int cores = Runtime.getRuntime().availableProcessors();
+            return Math.max(MIN_POOL_SIZE, Math.min(cores + 1, MAX_POOL_SIZE));
+        }
+        return MIN_POOL_SIZE;
+    }
+
+    private static ThreadFactory createThreadFactory(final String name, final int priority)
+    {
+        return new ThreadFactory()
+        {
+            private final AtomicInteger count = new AtomicInteger(1);
+
+            public Thread newThread(final Runnable r)
+            {
+                return new Thread(new Runnable()
+                {
+                    public void run()
+                    {
+                        Process.setThreadPriority(priority);
+                        r.run();
+                    }
+                }, name + " #" + count.getAndIncrement());
+            }
+        };
+    }
+
+    /**
+     * Runs the loader of a rendition unless a request for the same key is
+     * already running. In this case waits for the result of this request.
+     * 
+     * @param key : key of the request.
+     * @param loader : downloads and/or decodes the rendition.
+     * @return the result of the loader or null if it failed.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T coalesce(Object key, Callable<T> loader)
+    {
+        FutureTask<T> request;
+        boolean owner = false;
+        synchronized (IN_FLIGHT_REQUESTS)
+        {
+            request = (FutureTask<T>) IN_FLIGHT_REQUESTS.get(key);
+            if (request == null)
+            {
+                request = new FutureTask<T>(loader);
+                IN_FLIGHT_REQUESTS.put(key, request);
+                owner = true;
+            }
+        }
+
+        if (owner)
+        {
+            try
+            {
+                request.run();
+            }
+            finally
+            {
+                synchronized (IN_FLIGHT_REQUESTS)
+                {
+                    IN_FLIGHT_REQUESTS.remove(key);
+                }
+            }
+        }
 
         try
         {
-            File cacheDir = StorageManager.getCacheDir(context, DISK_CACHE_SUBDIR);
-            mDiskCache = DiskLruCache.open(cacheDir, 1, 1, DISK_CACHE_SIZE);
-            mDiskCache.delete();
-            mDiskCache = DiskLruCache.open(cacheDir, 1, 1, DISK_CACHE_SIZE);
+            return request.get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        catch (ExecutionException e)
+        {
+            Log.w(TAG, Log.getStackTraceString(e));
+        }
+        return null;
+    }
+
+    // //////////////////////////////////////////////////////////////////////////////////////////
+    // DISK CACHE
+    // //////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Returns the rendition disk cache shared by all RenditionManager of the
+     * application. The cache is kept between screens and application restarts.
+     * 
+     * @param context
+     * @return the disk cache or null if it can't be opened.
+     */
+    public static synchronized DiskLruCache getDiskCache(Context context)
+    {
+        if (sDiskCache == null || sDiskCache.isClosed())
+        {
+            try
+            {
+                File cacheDir = StorageManager.getCacheDir(context.getApplicationContext(), DISK_CACHE_SUBDIR);
+                sDiskCache = DiskLruCache.open(cacheDir, DISK_CACHE_VERSION, 1, sDiskCacheSize);
+            }
+            catch (Exception e)
+            {
+                Log.w(TAG, Log.getStackTraceString(e));
+                sDiskCache = null;
+            }
+        }
+        return sDiskCache;
+    }
+
+    /**
+     * Defines the size budget of the rendition disk cache. Must be called
+     * before the creation of the first RenditionManager (for example in
+     * Application.onCreate()) otherwise it's applied to the next opening of
+     * the cache.
+     * 
+     * @param size : size in bytes.
+     */
+    public static synchronized void setDiskCacheSize(long size)
+    {
+        if (size <= 0) { throw new IllegalArgumentException("size <= 0"); }
+        sDiskCacheSize = size;
+    }
+
+    /**
+     * @return Returns the size budget in bytes of the rendition disk cache.
+     */
+    public static synchronized long getDiskCacheSize()
+    {
+        return sDiskCacheSize;
+    }
+
+    /**
+     * Removes all renditions stored on disk.
+     * 
+     * @param context
+     */
+    public static synchronized void clearDiskCache(Context context)
+    {
+        DiskLruCache cache = getDiskCache(context);
+        if (cache == null) { return; }
+        try
+        {
+            cache.delete();
         }
         catch (IOException e)
         {
-            Log.d(TAG, e.getMessage());
+            Log.w(TAG, Log.getStackTraceString(e));
         }
+        sDiskCache = null;
     }
 
-    public void addBitmapToMemoryCache(String key, Bitmap bitmap)
+    public void addBitmapToMemoryCache(RenditionKey key, Bitmap bitmap)
     {
         if (key == null || bitmap == null) { return; }
-        String hashKey = StorageManager.md5(key);
-        if (getBitmapFromMemCache(hashKey) == null)
+        if (sMemoryCache.get(key) == null)
         {
-            mMemoryCache.put(hashKey, bitmap);
+            sMemoryCache.put(key, bitmap);
             Log.d(TAG, "Add MemoryCache : " + key);
         }
     }
 
-    public void addBitmapToDiskMemoryCache(String key, ContentStream cf)
+    public void addBitmapToDiskMemoryCache(RenditionKey key, ContentStream cf)
     {
-        String hashKey = StorageManager.md5(key);
+        String hashKey = key.getDiskKey();
         try
         {
-            if (mDiskCache != null && mDiskCache.get(hashKey) == null)
+            DiskLruCache diskCache = getDiskCache(context);
+            if (diskCache != null && diskCache.get(hashKey) == null)
             {
-                Editor editor = mDiskCache.edit(hashKey);
-
-                IOUtils.copyStream(cf.getInputStream(), editor.newOutputStream(0));
-                editor.commit();
+                Editor editor = diskCache.edit(hashKey);
+                if (editor == null) { return; }
+                try
+                {
+                    IOUtils.copyStream(cf.getInputStream(), editor.newOutputStream(0));
+                    editor.commit();
+                }
+                catch (Exception e)
+                {
+                    editor.abort();
+                    throw e;
+                }
+                diskCache.flush();
             }
             Log.d(TAG, "Add DiskCache : " + key);
         }
@@ -147,23 +423,48 @@ public class RenditionManager
         }
     }
 
-    public Bitmap getBitmapFromMemCache(String key)
+    public Bitmap getBitmapFromMemCache(RenditionKey key)
     {
-        String hashKey = StorageManager.md5(key);
-        return mMemoryCache.get(hashKey);
+        return sMemoryCache.get(key);
     }
 
-    public Bitmap getBitmapFromDiskCache(String key)
+    public Bitmap getBitmapFromDiskCache(RenditionKey key)
     {
-        String hashKey = StorageManager.md5(key);
-        Snapshot snapshot = null;
+        return getBitmapFromDiskCache(key, 0, 0);
+    }
+
+    /**
+     * Decodes a rendition stored in the disk cache to the requested size.
+     * 
+     * @param key : key of the rendition.
+     * @param reqWidth : width of the view. 0 to decode at full size.
+     * @param reqHeight : height of the view. 0 to decode at full size.
+     * @return the bitmap or null if the rendition is not in the disk cache.
+     */
+    public Bitmap getBitmapFromDiskCache(RenditionKey key, int reqWidth, int reqHeight)
+    {
+        final String hashKey = key.getDiskKey();
+        final DiskLruCache diskCache = getDiskCache(context);
+        if (diskCache == null) { return null; }
         try
         {
-            snapshot = mDiskCache.get(hashKey);
+            final Snapshot snapshot = diskCache.get(hashKey);
             if (snapshot != null)
             {
                 Log.d(TAG, "GET DiskCache : " + key);
-                return decodeStream(snapshot.getInputStream(0), dpiClassification);
+                // The entry is read again from the disk cache for the pixels.
+                return decode(new ImageSource()
+                {
+                    private Snapshot next = snapshot;
+
+                    public InputStream open() throws IOException
+                    {
+                        Snapshot current = (next != null) ? next : diskCache.get(hashKey);
+                        next = null;
+                        if (current == null) { throw new IOException("Evicted from disk cache : " + hashKey); }
+                        return current.getInputStream(0);
+                    }
+                }, reqWidth, reqHeight, dpiClassification);
             }
         }
         catch (IOException e)
@@ -182,42 +483,234 @@ public class RenditionManager
      */
     public void display(ImageView iv, Node n, int initDrawableId)
     {
-        display(iv, n.getIdentifier(), initDrawableId, TYPE_NODE);
+        display(iv, n.getIdentifier(), RenditionKey.create(session, n), initDrawableId, TYPE_NODE);
     }
 
     public void display(ImageView iv, int initDrawableId, String identifier)
     {
-        display(iv, identifier, initDrawableId, TYPE_NODE);
+        display(iv, identifier, RenditionKey.create(session, identifier), initDrawableId, TYPE_NODE);
     }
 
     public void display(ImageView iv, String username, int initDrawableId)
     {
-        display(iv, username, initDrawableId, TYPE_PERSON);
+        display(iv, username, RenditionKey.create(session, username), initDrawableId, TYPE_PERSON);
     }
 
-    private void display(ImageView iv, String identifier, int initDrawableId, int type)
+    // //////////////////////////////////////////////////////////////////////////////////////////
+    // SCROLL
+    // //////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Pauses the loading of renditions, for example during a fling. Views
+     * displayed while paused show their default drawable : they must be bound
+     * again once the work is resumed.
+     * 
+     * @param pauseWork
+     */
+    public void setPauseWork(boolean pauseWork)
+    {
+        this.pauseWork = pauseWork;
+    }
+
+    public boolean isPauseWork()
     {
-        final String imageKey = identifier;
-        final Bitmap bitmap = getBitmapFromMemCache(imageKey);
+        return pauseWork;
+    }
+
+    /**
+     * Downloads in background the thumbnails of the nodes into the disk cache
+     * so they are ready when their rows are displayed. Prefetches of nodes
+     * which are not part of the list anymore are cancelled.
+     * 
+     * @param nodes : nodes which are going to be displayed.
+     */
+    public void prefetch(List<Node> nodes)
+    {
+        if (pauseWork || getDiskCache(context) == null) { return; }
+
+        Map<RenditionKey, Node> requested = new HashMap<RenditionKey, Node>(nodes.size());
+        for (Node node : nodes)
+        {
+            requested.put(RenditionKey.create(session, node), node);
+        }
+
+        synchronized (prefetchRequests)
+        {
+            Iterator<Map.Entry<RenditionKey, Future<?>>> it = prefetchRequests.entrySet().iterator();
+            while (it.hasNext())
+            {
+                Map.Entry<RenditionKey, Future<?>> entry = it.next();
+                if (!requested.containsKey(entry.getKey()))
+                {
+                    entry.getValue().cancel(false);
+                    it.remove();
+                }
+            }
+
+            for (Map.Entry<RenditionKey, Node> entry : requested.entrySet())
+            {
+                if (!prefetchRequests.containsKey(entry.getKey()))
+                {
+                    PrefetchTask task = new PrefetchTask(entry.getKey(), entry.getValue().getIdentifier());
+                    prefetchRequests.put(entry.getKey(), PREFETCH_EXECUTOR.submit(task));
+                }
+            }
+        }
+        PREFETCH_EXECUTOR.purge();
+    }
+
+    /**
+     * Cancels all prefetches requested by this manager.
+     */
+    public void cancelPrefetch()
+    {
+        synchronized (prefetchRequests)
+        {
+            for (Future<?> request : prefetchRequests.values())
+            {
+                request.cancel(false);
+            }
+            prefetchRequests.clear();
+        }
+        PREFETCH_EXECUTOR.purge();
+    }
+
+    private class PrefetchTask implements Runnable
+    {
+        private final RenditionKey key;
+
+        private final String identifier;
+
+        public PrefetchTask(RenditionKey key, String identifier)
+        {
+            this.key = key;
+            this.identifier = identifier;
+        }
+
+        @Override
+        public void run()
+        {
+            try
+            {
+                if (!pauseWork)
+                {
+                    downloadToDiskCache(session, key, identifier, null);
+                }
+            }
+            finally
+            {
+                synchronized (prefetchRequests)
+                {
+                    prefetchRequests.remove(key);
+                }
+            }
+        }
+    }
+
+    // //////////////////////////////////////////////////////////////////////////////////////////
+    // LOADING
+    // //////////////////////////////////////////////////////////////////////////////////////////
+    private ContentStream getRenditionStream(AlfrescoSession session, String identifier, String username)
+    {
+        try
+        {
+            if (identifier != null)
+            {
+                return ((AbstractDocumentFolderServiceImpl) session.getServiceRegistry().getDocumentFolderService())
+                        .getRenditionStream(identifier, DocumentFolderService.RENDITION_THUMBNAIL);
+            }
+            else if (username != null) { return ((AbstractPersonService) session.getServiceRegistry()
+                    .getPersonService()).getAvatarStream(username); }
+        }
+        catch (AlfrescoServiceException e)
+        {
+            Log.d(TAG, e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Downloads a rendition into the disk cache unless it's already there.
+     * Concurrent downloads of the same rendition are coalesced.
+     */
+    private void downloadToDiskCache(final AlfrescoSession session, final RenditionKey key,
+            final String identifier, final String username)
+    {
+        coalesce(key.getDiskKey(), new Callable<Boolean>()
+        {
+            public Boolean call() throws IOException
+            {
+                DiskLruCache diskCache = getDiskCache(context);
+                if (diskCache == null) { return false; }
+                Snapshot snapshot = diskCache.get(key.getDiskKey());
+                if (snapshot != null)
+                {
+                    snapshot.close();
+                    return true;
+                }
+
+                ContentStream cf = getRenditionStream(session, identifier, username);
+                if (cf == null || cf.getInputStream() == null) { return false; }
+                addBitmapToDiskMemoryCache(key, cf);
+                return true;
+            }
+        });
+    }
+
+    private void display(ImageView iv, String identifier, RenditionKey imageKey, int initDrawableId, int type)
+    {
+        int reqWidth = getTargetSize(iv.getWidth(), iv.getLayoutParams() != null ? iv.getLayoutParams().width : 0);
+        int reqHeight = getTargetSize(iv.getHeight(), iv.getLayoutParams() != null ? iv.getLayoutParams().height
+                : 0);
+
+        // The same rendition can be displayed at different sizes.
+        final RenditionKey memoryKey = imageKey.forSize(reqWidth, reqHeight);
+        final Bitmap bitmap = getBitmapFromMemCache(memoryKey);
         if (bitmap != null)
         {
             iv.setImageBitmap(bitmap);
             Log.d(TAG, "Cache : " + identifier);
         }
+        else if (pauseWork)
+        {
+            // The row is bound again when the work is resumed.
+            if (cancelPotentialWork(identifier, iv))
+            {
+                iv.setImageResource(initDrawableId);
+            }
+        }
         else if (cancelPotentialWork(identifier, iv))
         {
-            final BitmapWorkerTask task = new BitmapWorkerTask(session, iv, identifier, type);
+            final BitmapWorkerTask task = new BitmapWorkerTask(session, iv, identifier, imageKey, type);
+            task.setTargetSize(memoryKey);
             Bitmap bm = BitmapFactory.decodeResource(context.getResources(), initDrawableId);
             final AsyncDrawable asyncDrawable = new AsyncDrawable(context.getResources(), bm, task);
             iv.setImageDrawable(asyncDrawable);
-            task.execute();
+            task.executeOnExecutor(executor);
         }
     }
 
+    /**
+     * Returns the size a view displays a rendition with : its measured size,
+     * its layout size or the default size when the view is not laid out yet.
+     */
+    private int getTargetSize(int measuredSize, int layoutSize)
+    {
+        if (measuredSize > 0)
+        {
+            return measuredSize;
+        }
+        else if (layoutSize > 0) { return layoutSize; }
+        return defaultTargetSize;
+    }
+
     // //////////////////////////////////////////////////////////////////////////////////////////
     // //////////////////////////////////////////////////////////////////////////////////////////
     // //////////////////////////////////////////////////////////////////////////////////////////
 
+    /**
+     * Returns the biggest power of 2 which keeps the decoded image at least as
+     * big as the requested size.
+     */
     public static int calculateInSampleSize(BitmapFactory.Options options, int reqWidth, int reqHeight)
     {
         // Raw height and width of image
@@ -225,85 +718,165 @@ public class RenditionManager
         final int width = options.outWidth;
         int inSampleSize = 1;
 
+        if (reqWidth <= 0 || reqHeight <= 0) { return inSampleSize; }
+
         if (height > reqHeight || width > reqWidth)
         {
-            if (width > height)
-            {
-                inSampleSize = Math.round((float) height / (float) reqHeight);
-            }
-            else
+            final int halfHeight = height / 2;
+            final int halfWidth = width / 2;
+            while ((halfHeight / inSampleSize) >= reqHeight && (halfWidth / inSampleSize) >= reqWidth)
             {
-                inSampleSize = Math.round((float) width / (float) reqWidth);
+                inSampleSize *= 2;
             }
         }
         return inSampleSize;
     }
 
-    public static Bitmap decodeFile(File f, int requiredSize, int dpiClassification)
+    public static Bitmap decodeFile(final File f, int requiredSize, int dpiClassification)
+    {
+        return decode(new ImageSource()
+        {
+            public InputStream open() throws IOException
+            {
+                return new FileInputStream(f);
+            }
+        }, requiredSize, requiredSize, dpiClassification);
+    }
+
+    public static Bitmap decodeStream(InputStream is, int dpiClassification)
+    {
+        return decodeStream(is, 0, 0, dpiClassification);
+    }
+
+    /**
+     * Decodes an image to the size of the view which displays it. Images
+     * without transparency are decoded in RGB_565. The stream is closed.
+     * </br> The stream can't be rewound : it's kept in memory for the bounds
+     * pass. Prefer {@link #decodeFile(File, int, int)} for local files.
+     * 
+     * @param is : stream of the image.
+     * @param reqWidth : width of the view. 0 to decode at full size.
+     * @param reqHeight : height of the view. 0 to decode at full size.
+     * @param dpiClassification
+     * @return the bitmap or null if the stream is not a valid image.
+     */
+    public static Bitmap decodeStream(InputStream is, int reqWidth, int reqHeight, int dpiClassification)
     {
-        InputStream fis = null;
-        Bitmap bmp = null;
+        if (is == null) { return null; }
+        final byte[] data;
         try
         {
-            fis = new BufferedInputStream(new FileInputStream(f));
-            // decode image size
-            BitmapFactory.Options o = new BitmapFactory.Options();
-            o.inDither = false;
-            o.inScaled = false;
-            o.inPreferredConfig = Bitmap.Config.ARGB_8888;
-            o.inTargetDensity = dpiClassification;
-            o.inJustDecodeBounds = true;
-            BitmapFactory.decodeStream(fis, null, o);
-            fis.close();
-
-            // Find the correct scale value. It should be the power of 2.
-            int scale = calculateInSampleSize(o, requiredSize, requiredSize);
-
-            // decode with inSampleSize
-            fis = new BufferedInputStream(new FileInputStream(f));
-            BitmapFactory.Options o2 = new BitmapFactory.Options();
-            o2.inSampleSize = scale;
-            o2.inPurgeable = true;
-            o.inPreferredConfig = Bitmap.Config.ARGB_8888;
-            o.inTargetDensity = dpiClassification;
-            o.inJustDecodeBounds = false;
-            o.inPurgeable = true;
-            bmp = BitmapFactory.decodeStream(fis, null, o2);
-            fis.close();
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            IOUtils.copyStream(is, bos);
+            data = bos.toByteArray();
         }
         catch (Exception e)
         {
             Log.w(TAG, Log.getStackTraceString(e));
+            return null;
         }
         finally
         {
-            IOUtils.closeStream(fis);
+            IOUtils.closeStream(is);
         }
-        return bmp;
+
+        return decode(new ImageSource()
+        {
+            public InputStream open()
+            {
+                return new ByteArrayInputStream(data);
+            }
+        }, reqWidth, reqHeight, dpiClassification);
     }
 
-    public static Bitmap decodeStream(InputStream is, int dpiClassification)
+    /**
+     * Source of an image read twice : once for its bounds, once for its
+     * pixels.
+     */
+    private interface ImageSource
+    {
+        InputStream open() throws IOException;
+    }
+
+    private static Bitmap decode(ImageSource source, int reqWidth, int reqHeight, int dpiClassification)
     {
-        if (is == null) { return null; }
         try
         {
-            BufferedInputStream bis = new BufferedInputStream(is);
             BitmapFactory.Options o = new BitmapFactory.Options();
+            o.inJustDecodeBounds = true;
+            decode(source, o);
+            if (o.outWidth <= 0 || o.outHeight <= 0) { return null; }
+
+            o.inSampleSize = calculateInSampleSize(o, reqWidth, reqHeight);
+            o.inPreferredConfig = hasAlpha(o.outMimeType) ? Bitmap.Config.ARGB_8888 : Bitmap.Config.RGB_565;
             o.inDither = false;
             o.inScaled = false;
-            o.inPreferredConfig = Bitmap.Config.ARGB_8888;
             o.inTargetDensity = dpiClassification;
-            o.inPurgeable = true;
-            return BitmapFactory.decodeStream(bis, null, o);
+            o.inMutable = true;
+            o.inJustDecodeBounds = false;
+            o.inBitmap = getReusableBitmap(o);
+            try
+            {
+                return decode(source, o);
+            }
+            catch (IllegalArgumentException e)
+            {
+                // The decoder refused the reusable bitmap.
+                o.inBitmap = null;
+                return decode(source, o);
+            }
         }
         catch (Exception e)
         {
             Log.w(TAG, Log.getStackTraceString(e));
         }
+        return null;
+    }
+
+    private static Bitmap decode(ImageSource source, BitmapFactory.Options o) throws IOException
+    {
+        InputStream is = source.open();
+        try
+        {
+            return BitmapFactory.decodeStream(is, null, o);
+        }
         finally
         {
             IOUtils.closeStream(is);
         }
+    }
+
+    private static boolean hasAlpha(String mimetype)
+    {
+        return mimetype == null || !mimetype.equals("image/jpeg");
+    }
+
+    /**
+     * Returns an evicted bitmap the decoder can write into. Before Android
+     * 4.4 the decoder only reuses a bitmap of the same size and configuration
+     * without subsampling.
+     */
+    private static Bitmap getReusableBitmap(BitmapFactory.Options options)
+    {
+        if (options.inSampleSize != 1) { return null; }
+        synchronized (REUSABLE_BITMAPS)
+        {
+            Iterator<SoftReference<Bitmap>> it = REUSABLE_BITMAPS.iterator();
+            while (it.hasNext())
+            {
+                Bitmap bitmap = it.next().get();
+                if (bitmap == null || bitmap.isRecycled() || !bitmap.isMutable())
+                {
+                    it.remove();
+                }
+                else if (bitmap.getWidth() == options.outWidth && bitmap.getHeight() == options.outHeight
+                        && bitmap.getConfig() == options.inPreferredConfig)
+                {
+                    it.remove();
+                    return bitmap;
+                }
+            }
+        }
         return null;
     }
 
@@ -320,12 +893,19 @@ public class RenditionManager
 
         private String username;
 
-        public BitmapWorkerTask(AlfrescoSession session, ImageView imageView, String identifier, int type)
+        private RenditionKey key;
+
+        private RenditionKey memoryKey;
+
+        public BitmapWorkerTask(AlfrescoSession session, ImageView imageView, String identifier, RenditionKey key,
+                int type)
         {
             // Use a WeakReference to ensure the ImageView can be garbage
             // collected
             this.imageViewReference = new WeakReference<ImageView>(imageView);
             this.session = session;
+            this.key = key;
+            this.memoryKey = key;
 
             if (type == TYPE_NODE)
             {
@@ -339,70 +919,59 @@ public class RenditionManager
 
         private String getId()
         {
-            if (identifier != null)
-            {
-                return identifier;
-            }
-            else if (username != null) { return username; }
-            return null;
+            return (identifier != null) ? identifier : username;
+        }
+
+        /**
+         * Defines the size the rendition is decoded to.
+         * 
+         * @param memoryKey : key of the rendition at the size of the view.
+         */
+        public void setTargetSize(RenditionKey memoryKey)
+        {
+            this.memoryKey = memoryKey;
         }
 
         // Decode image in background.
         @Override
         protected Bitmap doInBackground(Void... params)
         {
-            Bitmap bm = null;
-            ContentStream cf = null;
-            String key = getId();
+            // Another row may have loaded it since the request was queued.
+            Bitmap bm = getBitmapFromMemCache(memoryKey);
+            if (bm != null) { return bm; }
 
-            if (mDiskCache != null)
+            return coalesce(memoryKey, new Callable<Bitmap>()
             {
-                bm = getBitmapFromDiskCache(key);
-            }
+                public Bitmap call()
+                {
+                    return load();
+                }
+            });
+        }
+
+        private Bitmap load()
+        {
+            Bitmap bm = getBitmapFromDiskCache(key, memoryKey.getWidth(), memoryKey.getHeight());
 
             if (bm == null)
             {
-                if (identifier != null)
-                {
-                    try
-                    {
-                        cf = ((AbstractDocumentFolderServiceImpl) session.getServiceRegistry()
-                                .getDocumentFolderService()).getRenditionStream(identifier,
-                                DocumentFolderService.RENDITION_THUMBNAIL);
-                    }
-                    catch (AlfrescoServiceException e)
-                    {
-                        cf = null;
-                    }
-                }
-                else if (username != null)
+                if (getDiskCache(context) != null)
                 {
-                    try
-                    {
-                        cf = ((AbstractPersonService) session.getServiceRegistry().getPersonService())
-                                .getAvatarStream(username);
-                        key = username;
-                    }
-                    catch (AlfrescoServiceException e)
-                    {
-                        cf = null;
-                    }
+                    downloadToDiskCache(session, key, identifier, username);
+                    bm = getBitmapFromDiskCache(key, memoryKey.getWidth(), memoryKey.getHeight());
                 }
-                if (cf != null && cf.getInputStream() != null)
+                else
                 {
-                    if (mDiskCache != null)
-                    {
-                        addBitmapToDiskMemoryCache(key, cf);
-                        bm = getBitmapFromDiskCache(key);
-                    }
-                    else
+                    ContentStream cf = getRenditionStream(session, identifier, username);
+                    if (cf != null && cf.getInputStream() != null)
                     {
-                        bm = decodeStream(cf.getInputStream(), dpiClassification);
+                        bm = decodeStream(cf.getInputStream(), memoryKey.getWidth(), memoryKey.getHeight(),
+                                dpiClassification);
                     }
                 }
             }
 
-            addBitmapToMemoryCache(key, bm);
+            addBitmapToMemoryCache(memoryKey, bm);
             return bm;
         }
 
@@ -452,7 +1021,7 @@ public class RenditionManager
 
         if (bitmapWorkerTask != null)
         {
-            final String bitmapData = bitmapWorkerTask.username;
+            final String bitmapData = bitmapWorkerTask.getId();
             if (bitmapData != null && !bitmapData.equals(data))
             {
                 bitmapWorkerTask.cancel(true);
@@ -22,7 +22,6 @@ import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 
 import org.alfresco.mobile.android.api.exceptions.AlfrescoServiceException;
 import org.alfresco.mobile.android.api.exceptions.ErrorCodeRegistry;
@@ -36,6 +35,8 @@ public class StorageManager
 
     private static final String TAG = "StorageManager";
 
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
     /**
      * Return the cache dir and check if exists
      * 
@@ -81,7 +82,8 @@ public class StorageManager
     }
 
     /**
-     * Create the MD5 representation of a string
+     * Create the MD5 representation of a string : 32 lowercase hexadecimal
+     * characters.
      * 
      * @param s
      * @return
@@ -92,18 +94,19 @@ public class StorageManager
         {
             // Create MD5 Hash
             MessageDigest digest = java.security.MessageDigest.getInstance("MD5");
-            digest.update(s.getBytes());
+            digest.update(s.getBytes("UTF-8"));
             byte messageDigest[] = digest.digest();
 
-            // Create Hex String
-            StringBuffer hexString = new StringBuffer();
+            // Create Hex String, each byte on 2 characters.
+            char[] hexString = new char[messageDigest.length * 2];
             for (int i = 0; i < messageDigest.length; i++)
             {
-                hexString.append(Integer.toHexString(0xFF & messageDigest[i]));
+                hexString[2 * i] = HEX_DIGITS[(messageDigest[i] >> 4) & 0x0F];
+                hexString[2 * i + 1] = HEX_DIGITS[messageDigest[i] & 0x0F];
             }
-            return hexString.toString();
+            return new String(hexString);
         }
-        catch (NoSuchAlgorithmException e)
+        catch (Exception e)
         {
             Log.e(TAG, Log.getStackTraceString(e));
         }
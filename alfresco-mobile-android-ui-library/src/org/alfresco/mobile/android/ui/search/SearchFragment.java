@@ -113,6 +113,7 @@ public abstract class SearchFragment extends BaseListFragment implements
         if (searchLoader != null)
         {
             searchLoader.setListingContext(lc);
+            searchLoader.setPrefetchBuffer(getPrefetchBuffer());
         }
         return searchLoader;
     }
@@ -88,6 +88,7 @@ public abstract class SitesFragment extends BaseListFragment implements
         }
         calculateSkipCount(lc);
         st.setListingContext(lc);
+        st.setPrefetchBuffer(getPrefetchBuffer());
         return st;
     }
 
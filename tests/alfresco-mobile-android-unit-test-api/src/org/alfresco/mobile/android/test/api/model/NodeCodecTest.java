@@ -0,0 +1,289 @@
+/*******************************************************************************
+ * Copyright (C) 2005-2012 Alfresco Software Limited.
+ * 
+ * This file is part of the Alfresco Mobile SDK.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ ******************************************************************************/
+package org.alfresco.mobile.android.test.api.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import junit.framework.Assert;
+
+import org.alfresco.mobile.android.api.model.Document;
+import org.alfresco.mobile.android.api.model.Folder;
+import org.alfresco.mobile.android.api.model.Node;
+import org.alfresco.mobile.android.api.model.Property;
+import org.alfresco.mobile.android.api.model.PropertyType;
+import org.alfresco.mobile.android.api.model.impl.NodeCodec;
+import org.alfresco.mobile.android.api.model.impl.NodeImpl;
+import org.alfresco.mobile.android.api.model.impl.PropertyImpl;
+import org.alfresco.mobile.android.api.services.DocumentFolderService;
+import org.alfresco.mobile.android.test.AlfrescoSDKTestCase;
+import org.apache.chemistry.opencmis.commons.PropertyIds;
+import org.apache.chemistry.opencmis.commons.enums.Action;
+
+import android.util.Log;
+
+/**
+ * Test class for the compact binary format of nodes. Compares it with the
+ * default java serialization of the same values.
+ * 
+ * @author Jean Marie Pascal
+ */
+public class NodeCodecTest extends AlfrescoSDKTestCase
+{
+    private static final String TAG = "NodeCodecTest";
+
+    private static final int ITERATIONS = 20;
+
+    protected DocumentFolderService docfolderservice;
+
+    @Override
+    protected void initSession()
+    {
+        if (alfsession == null)
+        {
+            alfsession = createRepositorySession();
+        }
+        Assert.assertNotNull(alfsession.getServiceRegistry());
+        docfolderservice = alfsession.getServiceRegistry().getDocumentFolderService();
+        Assert.assertNotNull(docfolderservice);
+    }
+
+    /**
+     * Encodes and decodes nodes and checks all values are restored.
+     */
+    public void testRoundTrip() throws Exception
+    {
+        Folder folder = createUnitTestFolder(alfsession);
+        createDocuments(folder, 5);
+        createFolders(folder, 5);
+        List<Node> nodes = docfolderservice.getChildren(folder);
+        Assert.assertEquals(10, nodes.size());
+
+        List<Node> decoded = NodeCodec.decodeList(NodeCodec.encode(nodes));
+        Assert.assertEquals(nodes.size(), decoded.size());
+        for (int i = 0; i < nodes.size(); i++)
+        {
+            checkNode(nodes.get(i), decoded.get(i));
+        }
+
+        // Java serialization relies on the same format.
+        for (Node node : nodes)
+        {
+            checkNode(node, (Node) deserialize(serialize(node)));
+        }
+
+        Node node = NodeCodec.decode(NodeCodec.encode(folder));
+        Assert.assertTrue(node instanceof Folder);
+        checkNode(folder, node);
+    }
+
+    /**
+     * Decodes bytes written by hand : codes of types and actions don't depend
+     * on the OpenCMIS version. Actions written by name are restored.
+     */
+    public void testStableFormat() throws Exception
+    {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bos);
+        out.writeByte(2); // version
+        out.writeInt(1); // nodes
+        out.writeByte(1); // document
+        out.writeBoolean(true);
+        writeString(out, "id");
+        out.writeShort(2); // properties
+        out.writeShort(0); // cmis:objectId
+        out.writeByte(2); // id type
+        out.writeByte(1); // string value
+        writeString(out, "id");
+        out.writeShort(1); // cmis:name
+        out.writeByte(1); // string type
+        out.writeByte(1); // string value
+        writeString(out, "name");
+        out.writeShort(0); // aspects
+        out.writeByte(1); // action words
+        out.writeLong(1L | 1L << 17); // delete object, get content stream
+        out.writeShort(1); // action names
+        out.writeShort(0xFFFF);
+        writeString(out, Action.CAN_GET_ACL.value());
+        out.close();
+
+        Node node = NodeCodec.decode(bos.toByteArray());
+        Assert.assertTrue(node instanceof Document);
+        Assert.assertEquals("id", node.getIdentifier());
+        Assert.assertEquals("name", node.getName());
+        Assert.assertEquals(PropertyType.ID, node.getProperty(PropertyIds.OBJECT_ID).getType());
+        Assert.assertEquals(PropertyType.STRING, node.getProperty(PropertyIds.NAME).getType());
+        Assert.assertEquals(EnumSet.of(Action.CAN_DELETE_OBJECT, Action.CAN_GET_CONTENT_STREAM, Action.CAN_GET_ACL),
+                toActions(((NodeImpl) node).getAllowableActions()));
+    }
+
+    /**
+     * Compares size and speed of the compact format with the default java
+     * serialization of the node values.
+     */
+    public void testBenchmark() throws Exception
+    {
+        Folder folder = createUnitTestFolder(alfsession);
+        createDocuments(folder, 50);
+        List<Node> nodes = docfolderservice.getChildren(folder);
+
+        ArrayList<Serializable> values = new ArrayList<Serializable>(nodes.size());
+        for (Node node : nodes)
+        {
+            values.add(getValues((NodeImpl) node));
+        }
+
+        // Warm up
+        NodeCodec.decodeList(NodeCodec.encode(nodes));
+        deserialize(serialize(values));
+
+        long start = System.nanoTime();
+        byte[] compact = null;
+        for (int i = 0; i < ITERATIONS; i++)
+        {
+            compact = NodeCodec.encode(nodes);
+        }
+        long compactWrite = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++)
+        {
+            NodeCodec.decodeList(compact);
+        }
+        long compactRead = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        byte[] java = null;
+        for (int i = 0; i < ITERATIONS; i++)
+        {
+            java = serialize(values);
+        }
+        long javaWrite = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++)
+        {
+            deserialize(java);
+        }
+        long javaRead = System.nanoTime() - start;
+
+        Log.d(TAG, nodes.size() + " nodes - compact : " + compact.length + " bytes, write "
+                + compactWrite / (ITERATIONS * 1000) + " us, read " + compactRead / (ITERATIONS * 1000) + " us");
+        Log.d(TAG, nodes.size() + " nodes - java : " + java.length + " bytes, write "
+                + javaWrite / (ITERATIONS * 1000) + " us, read " + javaRead / (ITERATIONS * 1000) + " us");
+
+        Assert.assertTrue(compact.length < java.length);
+    }
+
+    // ////////////////////////////////////////////////////
+    // INTERNAL
+    // ////////////////////////////////////////////////////
+    private void checkNode(Node expected, Node actual)
+    {
+        Assert.assertEquals(expected.getClass(), actual.getClass());
+        Assert.assertEquals(expected.getIdentifier(), actual.getIdentifier());
+        Assert.assertEquals(expected.getName(), actual.getName());
+        Assert.assertEquals(expected.getType(), actual.getType());
+        Assert.assertEquals(expected.isDocument(), actual.isDocument());
+        Assert.assertEquals(expected.getCreatedAt().getTimeInMillis(), actual.getCreatedAt().getTimeInMillis());
+        Assert.assertEquals(expected.getModifiedAt().getTimeInMillis(), actual.getModifiedAt().getTimeInMillis());
+        Assert.assertEquals(expected.getAspects(), actual.getAspects());
+        Assert.assertEquals(expected.getProperties().keySet(), actual.getProperties().keySet());
+        Assert.assertEquals((Object) expected.getPropertyValue(PropertyIds.CHANGE_TOKEN),
+                actual.getPropertyValue(PropertyIds.CHANGE_TOKEN));
+        Assert.assertEquals(expected.getProperty(PropertyIds.NAME).getType(), actual.getProperty(PropertyIds.NAME)
+                .getType());
+        if (expected instanceof Document)
+        {
+            Assert.assertEquals(((Document) expected).getContentStreamLength(),
+                    ((Document) actual).getContentStreamLength());
+        }
+        Assert.assertEquals(((NodeImpl) expected).getAllowableActions(), ((NodeImpl) actual).getAllowableActions());
+        Assert.assertEquals(((NodeImpl) expected).hasAllowableAction(Action.CAN_DELETE_OBJECT),
+                ((NodeImpl) actual).hasAllowableAction(Action.CAN_DELETE_OBJECT));
+    }
+
+    /**
+     * Values a detached node holds, in their default java form.
+     */
+    private Serializable getValues(NodeImpl node)
+    {
+        HashMap<String, Property> properties = new HashMap<String, Property>();
+        for (Map.Entry<String, Property> entry : node.getProperties().entrySet())
+        {
+            properties.put(entry.getKey(), new PropertyImpl((Object) entry.getValue().getValue()));
+        }
+        ArrayList<Serializable> values = new ArrayList<Serializable>(4);
+        values.add(node.getIdentifier());
+        values.add(properties);
+        values.add(new ArrayList<String>(node.getAspects()));
+        values.add(new HashSet<String>(node.getAllowableActions()));
+        return values;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException
+    {
+        byte[] bytes = value.getBytes("UTF-8");
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static EnumSet<Action> toActions(Set<String> values)
+    {
+        EnumSet<Action> actions = EnumSet.noneOf(Action.class);
+        for (String value : values)
+        {
+            actions.add(Action.fromValue(value));
+        }
+        return actions;
+    }
+
+    private static byte[] serialize(Object object) throws IOException
+    {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bos);
+        out.writeObject(object);
+        out.close();
+        return bos.toByteArray();
+    }
+
+    private static Object deserialize(byte[] data) throws IOException, ClassNotFoundException
+    {
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(data));
+        try
+        {
+            return in.readObject();
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+}
@@ -18,13 +18,20 @@
 package org.alfresco.mobile.android.test.api.services;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import junit.framework.Assert;
 
@@ -39,10 +46,22 @@ import org.alfresco.mobile.android.api.model.Folder;
 import org.alfresco.mobile.android.api.model.ListingContext;
 import org.alfresco.mobile.android.api.model.Node;
 import org.alfresco.mobile.android.api.model.PagingResult;
+import org.alfresco.mobile.android.api.model.impl.ContentStreamImpl;
+import org.alfresco.mobile.android.api.model.impl.NodeImpl;
+import org.alfresco.mobile.android.api.services.BulkUploader;
 import org.alfresco.mobile.android.api.services.DocumentFolderService;
+import org.alfresco.mobile.android.api.services.FolderExporter;
+import org.alfresco.mobile.android.api.services.PagingIterator;
+import org.alfresco.mobile.android.api.services.impl.PostProcessingQueue;
 import org.alfresco.mobile.android.api.session.AlfrescoSession;
+import org.alfresco.mobile.android.api.session.authentication.impl.PassthruAuthenticationProviderImpl;
+import org.alfresco.mobile.android.api.session.impl.AbstractAlfrescoSessionImpl;
+import org.alfresco.mobile.android.api.utils.IOUtils;
+import org.alfresco.mobile.android.api.utils.NodeRefUtils;
+import org.alfresco.mobile.android.api.utils.PartialDownload;
 import org.alfresco.mobile.android.test.AlfrescoSDKTestCase;
 import org.apache.chemistry.opencmis.commons.PropertyIds;
+import org.apache.chemistry.opencmis.commons.SessionParameter;
 
 import android.util.Log;
 
@@ -352,6 +371,439 @@ public class DocumentFolderServiceTest extends AlfrescoSDKTestCase
         // Assert.assertFalse(pagingDocuments.hasMoreItems());
     }
 
+    /**
+     * Test resolution of several nodes by identifiers.
+     */
+    public void testGetNodesByIdentifiers()
+    {
+        Folder unitTestFolder = createUnitTestFolder(alfsession);
+        createFolders(unitTestFolder, FOLDERS_NUMBER);
+        createDocuments(unitTestFolder, DOCS_NUMBER);
+        List<Node> children = docfolderservice.getChildren(unitTestFolder);
+        Assert.assertEquals(ITEMS_NUMBER, children.size());
+
+        // Reverse order + unknown identifier + duplicate
+        List<String> identifiers = new ArrayList<String>(ITEMS_NUMBER + 2);
+        for (int i = children.size() - 1; i >= 0; i--)
+        {
+            identifiers.add(children.get(i).getIdentifier());
+        }
+        String unknownIdentifier = NodeRefUtils.createNodeRefByIdentifier("00000000-0000-0000-0000-000000000000");
+        identifiers.add(unknownIdentifier);
+        identifiers.add(children.get(0).getIdentifier());
+
+        List<Node> nodes = docfolderservice.getNodesByIdentifiers(identifiers);
+        Assert.assertEquals(identifiers.size(), nodes.size());
+        for (int i = 0; i < ITEMS_NUMBER; i++)
+        {
+            Node expected = children.get(ITEMS_NUMBER - 1 - i);
+            Assert.assertNotNull(nodes.get(i));
+            Assert.assertEquals(expected.getIdentifier(), nodes.get(i).getIdentifier());
+            Assert.assertEquals(expected.isDocument(), nodes.get(i).isDocument());
+        }
+        Assert.assertNull(nodes.get(ITEMS_NUMBER));
+        Assert.assertEquals(children.get(0).getIdentifier(), nodes.get(ITEMS_NUMBER + 1).getIdentifier());
+
+        // Version labels : same versions as getNodeByIdentifier.
+        Document doc = null;
+        for (Node child : children)
+        {
+            if (child.isDocument())
+            {
+                doc = (Document) child;
+                break;
+            }
+        }
+        Document updated = docfolderservice.updateContent(doc, createContentFile(SAMPLE_FOLDER_DESCRIPTION));
+        identifiers.clear();
+        identifiers.add(doc.getIdentifier());
+        identifiers.add(updated.getIdentifier());
+        nodes = docfolderservice.getNodesByIdentifiers(identifiers);
+        for (int i = 0; i < identifiers.size(); i++)
+        {
+            Node expected = docfolderservice.getNodeByIdentifier(identifiers.get(i));
+            Assert.assertEquals(expected.getIdentifier(), nodes.get(i).getIdentifier());
+            Assert.assertEquals(expected.getPropertyValue(PropertyIds.VERSION_LABEL),
+                    nodes.get(i).getPropertyValue(PropertyIds.VERSION_LABEL));
+        }
+
+        // Empty list
+        Assert.assertTrue(docfolderservice.getNodesByIdentifiers(new ArrayList<String>()).isEmpty());
+    }
+
+    /**
+     * Test iteration over all children with small pages.
+     */
+    public void testPagingIterator()
+    {
+        Folder unitTestFolder = createUnitTestFolder(alfsession);
+        createFolders(unitTestFolder, FOLDERS_NUMBER);
+        createDocuments(unitTestFolder, DOCS_NUMBER);
+
+        // Without read ahead
+        Set<String> identifiers = new HashSet<String>(ITEMS_NUMBER);
+        PagingIterator<Node> it = PagingIterator.children(docfolderservice, unitTestFolder, 4, false);
+        while (it.hasNext())
+        {
+            Assert.assertTrue(identifiers.add(it.next().getIdentifier()));
+        }
+        Assert.assertEquals(ITEMS_NUMBER, identifiers.size());
+        Assert.assertEquals(4, it.getPageCount());
+
+        // With read ahead
+        identifiers.clear();
+        it = PagingIterator.children(docfolderservice, unitTestFolder, 4, true);
+        while (it.hasNext())
+        {
+            Assert.assertTrue(identifiers.add(it.next().getIdentifier()));
+        }
+        Assert.assertEquals(ITEMS_NUMBER, identifiers.size());
+
+        // Documents only
+        int count = 0;
+        PagingIterator<Document> docs = PagingIterator.documents(docfolderservice, unitTestFolder, 3, true);
+        while (docs.hasNext())
+        {
+            Assert.assertTrue(docs.next().isDocument());
+            count++;
+        }
+        Assert.assertEquals(DOCS_NUMBER, count);
+
+        // Close before the end
+        it = PagingIterator.children(docfolderservice, unitTestFolder, 2, true);
+        Assert.assertTrue(it.hasNext());
+        it.next();
+        it.close();
+        Assert.assertFalse(it.hasNext());
+    }
+
+    /**
+     * Compares the number of requests of create and update methods with and
+     * without lazy refresh of the returned nodes. Checks values of lazy nodes
+     * once retrieved.
+     */
+    public void testLazyNodeRefresh()
+    {
+        Folder unitTestFolder = createUnitTestFolder(alfsession);
+
+        Map<String, Serializable> settings = new HashMap<String, Serializable>(2);
+        settings.put(SessionParameter.AUTHENTICATION_PROVIDER_CLASS, RequestCounter.class.getName());
+        AlfrescoSession eagerSession = createRepositorySession(settings);
+        settings = new HashMap<String, Serializable>(2);
+        settings.put(SessionParameter.AUTHENTICATION_PROVIDER_CLASS, RequestCounter.class.getName());
+        settings.put(AlfrescoSession.LAZY_NODE_REFRESH, true);
+        AlfrescoSession lazySession = createRepositorySession(settings);
+        DocumentFolderService lazyService = lazySession.getServiceRegistry().getDocumentFolderService();
+
+        // Each refresh of a node is one request.
+        long[] eager = writeNodes(eagerSession, unitTestFolder, "eager");
+        long[] lazy = writeNodes(lazySession, unitTestFolder, "lazy");
+        Log.d(TAG, DOCS_NUMBER + " create : eager " + eager[0] + " requests, lazy " + lazy[0] + " requests");
+        Log.d(TAG, DOCS_NUMBER + " update : eager " + eager[1] + " requests, lazy " + lazy[1] + " requests");
+        Assert.assertEquals(eager[0] - DOCS_NUMBER, lazy[0]);
+        Assert.assertEquals(eager[1] - DOCS_NUMBER, lazy[1]);
+
+        // Known values don't need the server.
+        Map<String, Serializable> properties = new HashMap<String, Serializable>();
+        properties.put(ContentModel.PROP_TITLE, SAMPLE_FOLDER_DESCRIPTION);
+        Document doc = lazyService.createDocument(unitTestFolder, "lazy.txt", properties,
+                createContentFile(SAMPLE_FOLDER_DESCRIPTION));
+        Assert.assertTrue(((NodeImpl) doc).isPending());
+        Assert.assertEquals("lazy.txt", doc.getName());
+        Assert.assertEquals(SAMPLE_FOLDER_DESCRIPTION, doc.getTitle());
+        Assert.assertTrue(doc.isDocument());
+        Assert.assertEquals(SAMPLE_FOLDER_DESCRIPTION.length(), doc.getContentStreamLength());
+        Assert.assertTrue(((NodeImpl) doc).isPending());
+
+        // Server values retrieve the node.
+        Assert.assertNotNull(doc.getCreatedAt());
+        Assert.assertFalse(((NodeImpl) doc).isPending());
+        Document expected = (Document) docfolderservice.getNodeByIdentifier(doc.getIdentifier());
+        Assert.assertEquals(expected.getIdentifier(), doc.getIdentifier());
+        Assert.assertEquals(expected.getType(), doc.getType());
+        Assert.assertEquals(expected.getContentStreamLength(), doc.getContentStreamLength());
+        Assert.assertEquals(expected.getAspects(), doc.getAspects());
+
+        properties.clear();
+        properties.put(ContentModel.PROP_DESCRIPTION, SAMPLE_FOLDER_DESCRIPTION);
+        Node node = lazyService.updateProperties(doc, properties);
+        Assert.assertTrue(((NodeImpl) node).isPending());
+        Assert.assertEquals(SAMPLE_FOLDER_DESCRIPTION, node.getDescription());
+        Assert.assertEquals(SAMPLE_FOLDER_DESCRIPTION, node.getTitle());
+        Assert.assertFalse(((NodeImpl) node).isPending());
+
+        Folder folder = lazyService.createFolder(unitTestFolder, "lazyFolder", null);
+        Assert.assertTrue(folder.isFolder());
+        Assert.assertEquals(folder.getIdentifier(), docfolderservice.getChildByPath(unitTestFolder, "lazyFolder")
+                .getIdentifier());
+        Assert.assertNotNull(folder.getModifiedAt());
+    }
+
+    /**
+     * Uploads a local directory tree with and without parallelism and checks
+     * the report and the mirrored tree.
+     */
+    public void testBulkUpload() throws Exception
+    {
+        Folder unitTestFolder = createUnitTestFolder(alfsession);
+
+        // 2 levels of subfolders with 4 files of 64 KB each.
+        File root = new File(getTargetContext().getCacheDir(), "bulkupload");
+        File[] dirs = new File[] { root, new File(root, "sub1"), new File(root, "sub2"),
+                new File(root, "sub1/sub11") };
+        byte[] data = new byte[64 * 1024];
+        for (File dir : dirs)
+        {
+            dir.mkdirs();
+            for (int i = 0; i < DOCS_NUMBER; i++)
+            {
+                FileOutputStream out = new FileOutputStream(new File(dir, SAMPLE_DOC_NAME + i + ".bin"));
+                out.write(data);
+                out.close();
+            }
+        }
+        int filesNumber = dirs.length * DOCS_NUMBER;
+        long totalLength = filesNumber * (long) data.length;
+
+        final AtomicLong progress = new AtomicLong();
+        final AtomicInteger completed = new AtomicInteger();
+        for (int parallelism : new int[] { 1, BulkUploader.DEFAULT_PARALLELISM })
+        {
+            Folder target = docfolderservice.createFolder(unitTestFolder, "bulk" + parallelism, null);
+            progress.set(0);
+            completed.set(0);
+            BulkUploader uploader = new BulkUploader(docfolderservice, parallelism);
+            uploader.setListener(new BulkUploader.Listener()
+            {
+                public void onProgress(ContentFile file, long bytesRead, long totalBytesRead, long total)
+                {
+                    progress.set(totalBytesRead);
+                }
+
+                public void onItemCompleted(BulkUploader.Result result)
+                {
+                    completed.incrementAndGet();
+                }
+            });
+            BulkUploader.Report report = uploader.upload(target, root);
+            Log.d(TAG, "Bulk upload x" + parallelism + " : " + filesNumber + " files in " + report.getDuration()
+                    + " ms, " + report.getThroughput() / 1024 + " KB/s");
+
+            Assert.assertEquals(filesNumber + dirs.length - 1, report.getResults().size());
+            Assert.assertEquals(0, report.getFailureCount());
+            Assert.assertEquals(report.getResults().size(), completed.get());
+            Assert.assertEquals(totalLength, report.getBytes());
+            Assert.assertEquals(totalLength, progress.get());
+            Node node = docfolderservice.getChildByPath(target, "sub1/sub11/" + SAMPLE_DOC_NAME + "0.bin");
+            Assert.assertTrue(node.isDocument());
+            Assert.assertEquals(data.length, ((Document) node).getContentStreamLength());
+        }
+
+        // Existing folders are reused, existing documents are reported.
+        Folder target = (Folder) docfolderservice.getChildByPath(unitTestFolder, "bulk1");
+        BulkUploader.Report report = new BulkUploader(docfolderservice).upload(target, root);
+        Assert.assertEquals(dirs.length - 1, report.getSuccessCount());
+        Assert.assertEquals(filesNumber, report.getFailureCount());
+    }
+
+    /**
+     * Exports a folder tree, then exports it again after a cancellation and
+     * a local modification.
+     */
+    public void testFolderExport() throws Exception
+    {
+        Folder unitTestFolder = createUnitTestFolder(alfsession);
+        Folder sub = createNewFolder(alfsession, unitTestFolder, "sub1", null);
+        Folder subsub = createNewFolder(alfsession, sub, "sub11", null);
+        createDocuments(unitTestFolder, DOCS_NUMBER);
+        createDocuments(subsub, DOCS_NUMBER);
+        int documentsNumber = 2 * DOCS_NUMBER;
+
+        File directory = new File(getTargetContext().getCacheDir(), "export");
+        delete(directory);
+
+        // Cancelled after the first document.
+        final FolderExporter exporter = new FolderExporter(docfolderservice, 1, 2);
+        exporter.setListener(new FolderExporter.Listener()
+        {
+            public void onProgress(Document document, long bytesWritten, long totalBytesWritten)
+            {
+            }
+
+            public void onItemCompleted(FolderExporter.Result result)
+            {
+                exporter.cancel();
+            }
+        });
+        FolderExporter.Report report = exporter.export(unitTestFolder, directory);
+        Assert.assertEquals(0, report.getCount(FolderExporter.Status.FAILED));
+        Assert.assertTrue(report.getCount(FolderExporter.Status.DOWNLOADED) >= 1);
+        Assert.assertTrue(report.getCount(FolderExporter.Status.DOWNLOADED) < documentsNumber);
+
+        // Resumed : downloaded documents are skipped.
+        int downloaded = report.getCount(FolderExporter.Status.DOWNLOADED);
+        report = new FolderExporter(docfolderservice).export(unitTestFolder, directory);
+        Log.d(TAG, "Export : " + report.getFolderCount() + " folders, " + report.getBytes() + " bytes in "
+                + report.getDuration() + " ms");
+        Assert.assertEquals(3, report.getFolderCount());
+        Assert.assertEquals(documentsNumber, report.getResults().size());
+        Assert.assertEquals(downloaded, report.getCount(FolderExporter.Status.SKIPPED));
+        Assert.assertEquals(documentsNumber - downloaded, report.getCount(FolderExporter.Status.DOWNLOADED));
+
+        File local = new File(directory, "sub1/sub11/" + SAMPLE_DOC_NAME + "-0.txt");
+        Document doc = (Document) docfolderservice.getChildByPath(subsub, SAMPLE_DOC_NAME + "-0.txt");
+        Assert.assertTrue(local.isFile());
+        Assert.assertEquals(doc.getContentStreamLength(), local.length());
+
+        // Local modification : downloaded again.
+        FileOutputStream out = new FileOutputStream(local, true);
+        out.write(1);
+        out.close();
+        report = new FolderExporter(docfolderservice).export(unitTestFolder, directory);
+        Assert.assertEquals(documentsNumber - 1, report.getCount(FolderExporter.Status.SKIPPED));
+        Assert.assertEquals(1, report.getCount(FolderExporter.Status.DOWNLOADED));
+        Assert.assertEquals(doc.getContentStreamLength(), local.length());
+    }
+
+    /**
+     * Interrupts a download in the middle, resumes it with a range request
+     * and checks a new version restarts the download.
+     */
+    public void testResumableDownload() throws Exception
+    {
+        Folder unitTestFolder = createUnitTestFolder(alfsession);
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 1000; i++)
+        {
+            builder.append(SAMPLE_FOLDER_DESCRIPTION).append(i);
+        }
+        String content = builder.toString();
+        Document doc = docfolderservice.createDocument(unitTestFolder, "resume.txt", null,
+                createContentFile(content));
+        int half = (int) doc.getContentStreamLength() / 2;
+
+        // Range request
+        ContentStream contentStream = docfolderservice.getContentStream(doc, half);
+        Assert.assertEquals(doc.getContentStreamLength() - half, contentStream.getLength());
+        Assert.assertEquals(content.substring(half), readContent(contentStream));
+
+        // Interrupted download
+        File file = new File(getTargetContext().getCacheDir(), "resume.txt");
+        delete(file);
+        PartialDownload download = new PartialDownload(doc, file);
+        Assert.assertEquals(0, download.getOffset());
+        OutputStream out = download.openOutputStream(0);
+        out.write(content.substring(0, half).getBytes("UTF-8"));
+        out.close();
+        try
+        {
+            download.complete();
+            Assert.fail();
+        }
+        catch (IOException e)
+        {
+            Assert.assertFalse(file.exists());
+        }
+
+        // Resumed
+        download = new PartialDownload(doc, file);
+        Assert.assertEquals(half, download.getOffset());
+        contentStream = docfolderservice.getContentStream(doc, half);
+        IOUtils.copyStream(contentStream.getInputStream(), download.openOutputStream(half));
+        Assert.assertEquals(file, download.complete());
+        Assert.assertEquals(content, readContent(new ContentStreamImpl(new FileInputStream(file), "text/plain",
+                file.length())));
+
+        // New version : the partial file of the previous version is discarded.
+        out = new PartialDownload(doc, file).openOutputStream(0);
+        out.write(1);
+        out.close();
+        Document newDoc = docfolderservice.updateContent(doc, createContentFile(SAMPLE_FOLDER_DESCRIPTION));
+        Assert.assertEquals(0, new PartialDownload(newDoc, file).getOffset());
+
+        // getContent resumes in the cache folder.
+        ContentFile contentFile = docfolderservice.getContent(newDoc);
+        Assert.assertEquals(newDoc.getContentStreamLength(), contentFile.getFile().length());
+    }
+
+    private void delete(File f)
+    {
+        if (!f.exists()) { return; }
+        if (f.isDirectory())
+        {
+            for (File c : f.listFiles())
+            {
+                delete(c);
+            }
+        }
+        f.delete();
+    }
+
+    /**
+     * Creates then updates documents. Types used by the methods are retrieved
+     * by a first document not counted. Updated nodes are not in the cache of
+     * the session : an eager refresh requests the server.
+     * 
+     * @return Returns the number of requests of the creates and of the
+     *         updates.
+     */
+    private long[] writeNodes(AlfrescoSession session, Folder parent, String prefix)
+    {
+        DocumentFolderService service = session.getServiceRegistry().getDocumentFolderService();
+        Map<String, Serializable> properties = new HashMap<String, Serializable>();
+        properties.put(ContentModel.PROP_TITLE, prefix);
+        service.updateProperties(service.createDocument(parent, prefix + ".txt", null,
+                createContentFile(SAMPLE_FOLDER_DESCRIPTION)), properties);
+
+        List<Document> docs = new ArrayList<Document>(DOCS_NUMBER);
+        RequestCounter.COUNT.set(0);
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < DOCS_NUMBER; i++)
+        {
+            docs.add(service.createDocument(parent, prefix + i + ".txt", null,
+                    createContentFile(SAMPLE_FOLDER_DESCRIPTION)));
+        }
+        long createRequests = RequestCounter.COUNT.get();
+        long createTime = System.currentTimeMillis() - start;
+
+        for (Document doc : docs)
+        {
+            // Retrieves lazy nodes before the update.
+            Assert.assertNotNull(doc.getCreatedAt());
+            ((AbstractAlfrescoSessionImpl) session).getCmisSession().removeObjectFromCache(doc.getIdentifier());
+        }
+
+        RequestCounter.COUNT.set(0);
+        start = System.currentTimeMillis();
+        for (int i = 0; i < DOCS_NUMBER; i++)
+        {
+            properties.clear();
+            properties.put(ContentModel.PROP_TITLE, prefix + i);
+            service.updateProperties(docs.get(i), properties);
+        }
+        long updateRequests = RequestCounter.COUNT.get();
+        Log.d(TAG, prefix + " : " + DOCS_NUMBER + " create in " + createTime + " ms, update in "
+                + (System.currentTimeMillis() - start) + " ms");
+        return new long[] { createRequests, updateRequests };
+    }
+
+    /**
+     * Counts the responses received by the CMIS binding of the sessions which
+     * use it.
+     */
+    public static class RequestCounter extends PassthruAuthenticationProviderImpl
+    {
+        private static final long serialVersionUID = 1L;
+
+        static final AtomicInteger COUNT = new AtomicInteger();
+
+        @Override
+        public void putResponseHeaders(String url, int statusCode, Map<String, List<String>> headers)
+        {
+            COUNT.incrementAndGet();
+        }
+    }
+
     /**
      * Test parent, child navigation.
      * 
@@ -538,7 +990,7 @@ public class DocumentFolderServiceTest extends AlfrescoSDKTestCase
     /**
      * Test Rendition after content Creation + (eventually) metadata extraction.
      */
-    public void testRenditionExtractionAfterUpload()
+    public void testRenditionExtractionAfterUpload() throws InterruptedException
     {
         // Create Session with extract metadata and create thumbnail true.
         initSessionWithParams();
@@ -548,6 +1000,12 @@ public class DocumentFolderServiceTest extends AlfrescoSDKTestCase
 
         createDocumentFromAsset(unitTestFolder, "android.jpg");
 
+        // Extraction and thumbnail requests are sent in background.
+        PostProcessingQueue queue = ((AbstractAlfrescoSessionImpl) alfsession).getPostProcessingQueue();
+        Assert.assertTrue(queue.awaitIdle(60000));
+        Assert.assertEquals(0, queue.getFailedCount());
+        Assert.assertEquals(2, queue.getCompletedCount());
+
         Document doc = (Document) docfolderservice.getChildByPath(unitTestFolder, "android.jpg");
 
         checkRendition(doc, true, true);
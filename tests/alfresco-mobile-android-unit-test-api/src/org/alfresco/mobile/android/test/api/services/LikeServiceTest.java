@@ -18,7 +18,9 @@
 package org.alfresco.mobile.android.test.api.services;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import junit.framework.Assert;
@@ -28,6 +30,7 @@ import org.alfresco.mobile.android.api.exceptions.AlfrescoServiceException;
 import org.alfresco.mobile.android.api.exceptions.ErrorCodeRegistry;
 import org.alfresco.mobile.android.api.model.Folder;
 import org.alfresco.mobile.android.api.model.Node;
+import org.alfresco.mobile.android.api.model.RatingSummary;
 import org.alfresco.mobile.android.api.services.DocumentFolderService;
 import org.alfresco.mobile.android.api.services.RatingService;
 import org.alfresco.mobile.android.api.session.AlfrescoSession;
@@ -125,6 +128,72 @@ public class LikeServiceTest extends AlfrescoSDKTestCase
         checkSecondUnlike(folder);
     }
 
+    /**
+     * Test like count and like state of several nodes.
+     */
+    public void testLikeServiceBatch()
+    {
+        if (!alfsession.getRepositoryInfo().getCapabilities().doesSupportLikingNodes()) { return; }
+
+        Folder unitTestFolder = createUnitTestFolder(alfsession);
+        Folder liked = createNewFolder(alfsession, unitTestFolder, LIKE_FOLDER + "-1", null);
+        Folder notLiked = createNewFolder(alfsession, unitTestFolder, LIKE_FOLDER + "-2", null);
+        likeService.like(liked);
+
+        List<Node> nodes = new ArrayList<Node>(3);
+        nodes.add(liked);
+        nodes.add(notLiked);
+        nodes.add(liked);
+
+        Map<String, Integer> counts = likeService.getLikeCounts(nodes);
+        Assert.assertEquals(2, counts.size());
+        Assert.assertEquals(1, (int) counts.get(liked.getIdentifier()));
+        Assert.assertEquals(0, (int) counts.get(notLiked.getIdentifier()));
+
+        Map<String, Boolean> states = likeService.getLikedStates(nodes);
+        Assert.assertEquals(2, states.size());
+        Assert.assertTrue(states.get(liked.getIdentifier()));
+        Assert.assertFalse(states.get(notLiked.getIdentifier()));
+
+        Assert.assertTrue(likeService.getLikeCounts(new ArrayList<Node>()).isEmpty());
+    }
+
+    /**
+     * Test rating summary and its invalidation by like/unlike.
+     */
+    public void testRatingSummary()
+    {
+        if (!alfsession.getRepositoryInfo().getCapabilities().doesSupportLikingNodes()) { return; }
+
+        Folder unitTestFolder = createUnitTestFolder(alfsession);
+        Folder folder = createNewFolder(alfsession, unitTestFolder, LIKE_FOLDER, null);
+
+        RatingSummary summary = likeService.getRatingSummary(folder);
+        Assert.assertNotNull(summary);
+        Assert.assertEquals(0, summary.getLikeCount());
+        Assert.assertFalse(summary.isLiked());
+        Assert.assertNotNull(summary.getLastUpdatedAt());
+
+        // Kept by the service
+        Assert.assertSame(summary, likeService.getRatingSummary(folder));
+
+        // Like invalidates the summary
+        likeService.like(folder);
+        summary = likeService.getRatingSummary(folder);
+        Assert.assertEquals(1, summary.getLikeCount());
+        Assert.assertTrue(summary.isLiked());
+
+        // Unlike invalidates the summary
+        likeService.unlike(folder);
+        summary = likeService.getRatingSummary(folder);
+        Assert.assertEquals(0, summary.getLikeCount());
+        Assert.assertFalse(summary.isLiked());
+
+        List<Node> nodes = new ArrayList<Node>(1);
+        nodes.add(folder);
+        Assert.assertSame(summary, likeService.getRatingSummaries(nodes).get(folder.getIdentifier()));
+    }
+
     // Error if unlike a node already liked.
     protected void checkSecondUnlike(Folder folder)
     {
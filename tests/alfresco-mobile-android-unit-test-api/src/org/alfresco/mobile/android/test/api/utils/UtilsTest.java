@@ -17,14 +17,18 @@
  ******************************************************************************/
 package org.alfresco.mobile.android.test.api.utils;
 
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
 import java.util.Locale;
 
 import junit.framework.Assert;
 
+import org.alfresco.mobile.android.api.utils.DateUtils;
 import org.alfresco.mobile.android.api.utils.NodeRefUtils;
 
 import android.os.PatternMatcher;
 import android.test.AndroidTestCase;
+import android.util.Log;
 
 public class UtilsTest extends AndroidTestCase
 {
@@ -89,4 +93,73 @@ public class UtilsTest extends AndroidTestCase
                 "i".equals("I".toLowerCase(new Locale("tr"))));
     }
 
+    private static final String[] DATES = { "2012-10-15T20:11:09.123Z", "2012-10-15T20:11:09Z",
+            "2012-10-15T20:11:09.123+0100", "Oct 15 2012 13:35:21 GMT+0100 (BST)", "15 Oct 2012 13:35:21 GMT+0100" };
+
+    private static final long[] TIMES = { 1350331869123L, 1350331869000L, 1350328269123L, 1350304521000L,
+            1350304521000L };
+
+    public void testParseDate()
+    {
+        for (int i = 0; i < DATES.length; i++)
+        {
+            Assert.assertEquals(DATES[i], TIMES[i], DateUtils.parseDate(DATES[i]).getTime());
+            Assert.assertEquals(DATES[i], TIMES[i], DateUtils.parseJsonDate(DATES[i]).getTime());
+        }
+        Assert.assertEquals(1350328269123L, DateUtils.parseDate("2012-10-15T20:11:09.123+01:00").getTime());
+        Assert.assertEquals(1330559999000L, DateUtils.parseDate("2012-02-29T23:59:59Z").getTime());
+
+        // Named time zones are parsed by SimpleDateFormat.
+        Assert.assertNotNull(DateUtils.parseDate("Oct 15 2012 13:35:21 BST"));
+        Assert.assertNull(DateUtils.parseDate("not a date"));
+        Assert.assertNull(DateUtils.parseDate(null));
+    }
+
+    /**
+     * Compares DateUtils with the previous implementation : one
+     * SimpleDateFormat per attempt until a format matches.
+     */
+    public void testParseDateBenchmark()
+    {
+        int iterations = 2000;
+
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++)
+        {
+            for (String date : DATES)
+            {
+                DateUtils.parseDate(date);
+            }
+        }
+        long parser = System.nanoTime() - start;
+
+        String[] formats = { DateUtils.FORMAT_1, DateUtils.FORMAT_2, DateUtils.FORMAT_3, DateUtils.FORMAT_4,
+                DateUtils.FORMAT_5 };
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++)
+        {
+            for (String date : DATES)
+            {
+                for (String format : formats)
+                {
+                    SimpleDateFormat sdf = new SimpleDateFormat(format, Locale.UK);
+                    sdf.setLenient(true);
+                    try
+                    {
+                        sdf.parse(date);
+                        break;
+                    }
+                    catch (ParseException e)
+                    {
+                        continue;
+                    }
+                }
+            }
+        }
+        long simpleDateFormat = System.nanoTime() - start;
+
+        int count = iterations * DATES.length;
+        Log.d("UtilsTest", "parseDate : " + parser / count + " ns/date, SimpleDateFormat : " + simpleDateFormat
+                / count + " ns/date");
+    }
 }